@@ -0,0 +1,28 @@
+package mate.academy.carsharing.cache;
+
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.config.CacheConfig;
+import mate.academy.carsharing.event.CarInventoryChangedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@RequiredArgsConstructor
+@Component
+public class CarCacheEvictionListener {
+    private final CacheManager cacheManager;
+
+    // Evict only after commit, otherwise a concurrent reader could cache the old inventory again.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarInventoryChanged(CarInventoryChangedEvent event) {
+        Cache cars = cacheManager.getCache(CacheConfig.CARS_CACHE);
+        if (cars != null) {
+            cars.evict(event.carId());
+        }
+        Cache carPages = cacheManager.getCache(CacheConfig.CAR_PAGES_CACHE);
+        if (carPages != null) {
+            carPages.clear();
+        }
+    }
+}
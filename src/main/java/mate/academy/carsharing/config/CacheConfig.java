@@ -0,0 +1,11 @@
+package mate.academy.carsharing.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+    public static final String CARS_CACHE = "cars";
+    public static final String CAR_PAGES_CACHE = "carPages";
+}
@@ -1,6 +1,13 @@
 package mate.academy.carsharing.config;
 
+import mate.academy.carsharing.ratelimit.RateLimitFilter;
+import mate.academy.carsharing.ratelimit.RateLimitProperties;
+import mate.academy.carsharing.security.BoundedPasswordEncoder;
+import mate.academy.carsharing.security.CachingDaoAuthenticationProvider;
 import mate.academy.carsharing.security.JwtAuthenticationFilter;
+import mate.academy.carsharing.security.PasswordHashingExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -11,23 +18,28 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @EnableMethodSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 @Configuration
 public class SecurityConfig {
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor,
+            @Value("${security.password.bcrypt-strength:10}") int bcryptStrength) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength),
+                passwordHashingExecutor);
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(UserDetailsService userDetailsService,
+    public SecurityFilterChain securityFilterChain(
+            CachingDaoAuthenticationProvider authenticationProvider,
             JwtAuthenticationFilter jwtAuthenticationFilter,
+            RateLimitFilter rateLimitFilter,
             HttpSecurity http) throws Exception {
         return http
                 .cors(AbstractHttpConfigurer::disable)
@@ -40,8 +52,16 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET,
                                 "api/payments/cancel", "api/payments/success")
                         .permitAll()
+                        .requestMatchers(HttpMethod.POST, "api/payments/webhook")
+                        .permitAll()
+                        .requestMatchers(HttpMethod.POST, "api/telegram/webhook")
+                        .permitAll()
                         .requestMatchers("api/auth/**", "/swagger-ui/**", "/v3/api-docs/**")
                         .permitAll()
+                        .requestMatchers("/actuator/health")
+                        .permitAll()
+                        .requestMatchers("/actuator/**")
+                        .hasRole("MANAGER")
                         .anyRequest()
                         .authenticated()
                 )
@@ -50,7 +70,9 @@ public class SecurityConfig {
                         session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(
                         jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
-                .userDetailsService(userDetailsService)
+                // after both JWT and HTTP Basic, so per-user groups see the user
+                .addFilterAfter(rateLimitFilter, BasicAuthenticationFilter.class)
+                .authenticationProvider(authenticationProvider)
                 .build();
     }
 
@@ -3,10 +3,12 @@ package mate.academy.carsharing.config;
 import mate.academy.carsharing.telegram.TelegramBotService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
+@Profile("!telegram_webhook")
 @Configuration
 public class TelegramBotConfig {
     private final TelegramBotService telegramBotService;
@@ -0,0 +1,40 @@
+package mate.academy.carsharing.config;
+
+import mate.academy.carsharing.telegram.TelegramWebhookBotService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+@Profile("telegram_webhook")
+@Configuration
+public class TelegramWebhookConfig {
+    private final TelegramWebhookBotService telegramWebhookBotService;
+
+    public TelegramWebhookConfig(TelegramWebhookBotService telegramWebhookBotService) {
+        this.telegramWebhookBotService = telegramWebhookBotService;
+    }
+
+    // updates are received by TelegramWebhookController, so no webhook server is started
+    @Bean
+    public SetWebhook telegramWebhook(@Value("${TELEGRAM_WEBHOOK_URL}") String baseUrl,
+            @Value("${TELEGRAM_WEBHOOK_SECRET:}") String secretToken,
+            @Value("${telegram.webhook.max-connections:40}") int maxConnections) {
+        if (secretToken.isBlank()) {
+            throw new IllegalStateException("Telegram webhook secret is not configured");
+        }
+        SetWebhook setWebhook = SetWebhook.builder()
+                .url(baseUrl + telegramWebhookBotService.getBotPath())
+                .secretToken(secretToken)
+                .maxConnections(maxConnections)
+                .build();
+        try {
+            telegramWebhookBotService.setWebhook(setWebhook);
+            return setWebhook;
+        } catch (TelegramApiException e) {
+            throw new RuntimeException("Can't register Telegram webhook", e);
+        }
+    }
+}
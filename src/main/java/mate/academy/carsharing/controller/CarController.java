@@ -4,13 +4,18 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import mate.academy.carsharing.annotation.UserRoleDescription;
+import mate.academy.carsharing.dto.car.CarAvailabilityResponseDto;
 import mate.academy.carsharing.dto.car.CarResponseDto;
 import mate.academy.carsharing.dto.car.CreateCarRequestDto;
+import mate.academy.carsharing.dto.car.ShardCarInventoryRequestDto;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
 import mate.academy.carsharing.service.CarService;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -20,6 +25,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -58,6 +64,32 @@ public class CarController {
         return carService.updateById(id, requestDto);
     }
 
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @UserRoleDescription
+    @Operation(summary = "Shard car inventory.", description = "Split inventory of a car in "
+            + "high demand across several slots so concurrent rentals don't wait for each other.")
+    @PutMapping("/{id}/inventory-slots")
+    public CarResponseDto shardInventory(@PathVariable Long id,
+            @RequestBody @Valid ShardCarInventoryRequestDto requestDto) {
+        return carService.shardInventory(id, requestDto);
+    }
+
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("permitAll()")
+    @UserRoleDescription
+    @Operation(summary = "Get cars available for a period.",
+            description = "Get ids of cars with at least one unit free for the whole period "
+                    + "and number of such units.")
+    @Parameter(name = "from", description = "rental date", example = "2024-05-01")
+    @Parameter(name = "to", description = "return date", example = "2024-05-05")
+    @GetMapping("/available")
+    public List<CarAvailabilityResponseDto> findAvailable(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return carService.findAvailable(from, to);
+    }
+
     @ResponseStatus(HttpStatus.OK)
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_CUSTOMER', 'ROLE_ANONYMOUS')")
     @UserRoleDescription
@@ -78,4 +110,18 @@ public class CarController {
     public List<CarResponseDto> getAll(Pageable pageable) {
         return carService.getAll(pageable);
     }
+
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("permitAll()")
+    @UserRoleDescription
+    @Operation(summary = "Scroll cars.", description = "Get cars slice by slice. Pass "
+            + "'nextCursor' from the previous response to get the next slice.")
+    @Parameter(name = "size", description = "elements per slice, default value = 20")
+    @Parameter(name = "sort", description = "sort criteria", example = "dailyFee,Desc")
+    @Parameter(name = "cursor", description = "continuation token from the previous slice")
+    @GetMapping("/scroll")
+    public SliceResponseDto<CarResponseDto> scroll(Pageable pageable,
+            @RequestParam(required = false) String cursor) {
+        return carService.scroll(pageable, cursor);
+    }
 }
@@ -7,18 +7,21 @@ import jakarta.validation.Valid;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import mate.academy.carsharing.annotation.UserRoleDescription;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
 import mate.academy.carsharing.dto.payment.CreatePaymentRequestDto;
 import mate.academy.carsharing.dto.payment.PaymentResponseDto;
 import mate.academy.carsharing.dto.payment.PaymentSearchParametersDto;
 import mate.academy.carsharing.dto.payment.RenewPaymentRequestDto;
+import mate.academy.carsharing.security.AuthenticatedUser;
 import mate.academy.carsharing.service.PaymentService;
+import mate.academy.carsharing.service.StripeWebhookService;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -30,6 +33,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/payments")
 public class PaymentController {
     private final PaymentService paymentService;
+    private final StripeWebhookService stripeWebhookService;
 
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasRole('ROLE_MANAGER')")
@@ -50,9 +54,26 @@ public class PaymentController {
     @Parameter(name = "size", description = "elements per page, default value = 20")
     @Parameter(name = "sort", description = "sort criteria", example = "amountToPay,Desc")
     @GetMapping("/search")
-    public List<PaymentResponseDto> searchPayments(Authentication authentication,
+    public List<PaymentResponseDto> searchPayments(
+            @Parameter(hidden = true) AuthenticatedUser user,
             PaymentSearchParametersDto searchParameters, Pageable pageable) {
-        return paymentService.search(authentication.getName(), searchParameters, pageable);
+        return paymentService.search(user, searchParameters, pageable);
+    }
+
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_CUSTOMER')")
+    @UserRoleDescription
+    @Operation(summary = "Scroll payments.", description = "Get payments slice by slice. Pass "
+            + "'nextCursor' from the previous response to get the next slice.")
+    @Parameter(name = "size", description = "elements per slice, default value = 20")
+    @Parameter(name = "sort", description = "sort criteria", example = "amountToPay,Desc")
+    @Parameter(name = "cursor", description = "continuation token from the previous slice")
+    @GetMapping("/search/scroll")
+    public SliceResponseDto<PaymentResponseDto> scrollPayments(
+            @Parameter(hidden = true) AuthenticatedUser user,
+            PaymentSearchParametersDto searchParameters, Pageable pageable,
+            @RequestParam(required = false) String cursor) {
+        return paymentService.scroll(user, searchParameters, pageable, cursor);
     }
 
     @ResponseStatus(HttpStatus.OK)
@@ -77,6 +98,17 @@ public class PaymentController {
         return paymentService.processCanceledPayment(sessionId);
     }
 
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("permitAll()")
+    @UserRoleDescription
+    @Operation(summary = "Stripe webhook endpoint updates payment status.",
+            description = "Verifies Stripe signature, handles checkout session events.")
+    @PostMapping("/webhook")
+    public void handleStripeWebhook(@RequestBody String payload,
+            @RequestHeader("Stripe-Signature") String signature) {
+        stripeWebhookService.handleEvent(payload, signature);
+    }
+
     @ResponseStatus(HttpStatus.OK)
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_CUSTOMER')")
     @UserRoleDescription
@@ -85,7 +117,7 @@ public class PaymentController {
     @PostMapping("/renew")
     public PaymentResponseDto renewPaymentSession(
             @RequestBody @Valid RenewPaymentRequestDto requestDto,
-            Authentication authentication) {
-        return paymentService.renewPaymentSession(requestDto.paymentId(), authentication.getName());
+            @Parameter(hidden = true) AuthenticatedUser user) {
+        return paymentService.renewPaymentSession(requestDto.paymentId(), user);
     }
 }
@@ -7,19 +7,21 @@ import jakarta.validation.Valid;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import mate.academy.carsharing.annotation.UserRoleDescription;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
 import mate.academy.carsharing.dto.rental.CreateRentalRequestDto;
 import mate.academy.carsharing.dto.rental.RentalResponseDto;
 import mate.academy.carsharing.dto.rental.RentalSearchParametersDto;
+import mate.academy.carsharing.security.AuthenticatedUser;
 import mate.academy.carsharing.service.RentalService;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -55,14 +57,33 @@ public class RentalController {
         return rentalService.searchRentals(searchParameters, pageable);
     }
 
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @UserRoleDescription
+    @Operation(summary = "Scroll rentals.", description = "Admin can get rentals slice by "
+            + "slice. Pass 'nextCursor' from the previous response to get the next slice.")
+    @Parameter(name = "user_id", description = "Get rentals for users with specified 'user_id'.",
+            example = "2, 57")
+    @Parameter(name = "is_active", description = "Specify 'true' to get active rentals or "
+            + "'false' to get nonactive rentals.", example = "true")
+    @Parameter(name = "sort", description = "sort criteria", example = "rentalDate,Desc")
+    @Parameter(name = "cursor", description = "continuation token from the previous slice")
+    @GetMapping("/search/scroll")
+    public SliceResponseDto<RentalResponseDto> scrollRentals(
+            RentalSearchParametersDto searchParameters, Pageable pageable,
+            @RequestParam(required = false) String cursor) {
+        return rentalService.scrollRentals(searchParameters, pageable, cursor);
+    }
+
     @ResponseStatus(HttpStatus.OK)
     @PreAuthorize("hasRole('ROLE_CUSTOMER')")
     @UserRoleDescription
     @Operation(summary = "Get rental info by id.", description = "Get rental info by id.")
     @Parameter(name = "id", description = "Rental id", example = "247")
     @GetMapping("/{id}")
-    public RentalResponseDto getRental(@PathVariable Long id, Authentication authentication) {
-        return rentalService.getRentalByIdAndUserEmail(id, authentication.getName());
+    public RentalResponseDto getRental(@PathVariable Long id,
+            @Parameter(hidden = true) AuthenticatedUser user) {
+        return rentalService.getRentalByIdAndUser(id, user);
     }
 
     @ResponseStatus(HttpStatus.OK)
@@ -0,0 +1,48 @@
+package mate.academy.carsharing.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import mate.academy.carsharing.exception.TelegramWebhookException;
+import mate.academy.carsharing.telegram.TelegramWebhookBotService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+@Tag(name = "Telegram bot", description = "Endpoint receiving Telegram bot updates")
+@Profile("telegram_webhook")
+@RestController
+public class TelegramWebhookController {
+    private static final String SECRET_TOKEN_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final TelegramWebhookBotService telegramWebhookBotService;
+    private final byte[] secretToken;
+
+    public TelegramWebhookController(TelegramWebhookBotService telegramWebhookBotService,
+            @Value("${TELEGRAM_WEBHOOK_SECRET:}") String secretToken) {
+        this.telegramWebhookBotService = telegramWebhookBotService;
+        this.secretToken = secretToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("permitAll()")
+    @Operation(summary = "Telegram webhook endpoint.",
+            description = "Verifies the secret token and handles bot updates.")
+    @PostMapping("${telegram.webhook.path:/api/telegram/webhook}")
+    public void handleUpdate(@RequestBody Update update,
+            @RequestHeader(value = SECRET_TOKEN_HEADER, required = false) String token) {
+        if (secretToken.length == 0 || token == null || !MessageDigest.isEqual(secretToken,
+                token.getBytes(StandardCharsets.UTF_8))) {
+            throw new TelegramWebhookException("Invalid Telegram secret token");
+        }
+        telegramWebhookBotService.onWebhookUpdateReceived(update);
+    }
+}
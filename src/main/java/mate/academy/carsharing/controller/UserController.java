@@ -1,6 +1,7 @@
 package mate.academy.carsharing.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -9,10 +10,10 @@ import mate.academy.carsharing.dto.user.UserResponseDto;
 import mate.academy.carsharing.dto.user.UserResponseDtoWithRoles;
 import mate.academy.carsharing.dto.user.UserUpdateInfoRequestDto;
 import mate.academy.carsharing.dto.user.UserUpdateRoleRequestDto;
+import mate.academy.carsharing.security.AuthenticatedUser;
 import mate.academy.carsharing.service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -46,9 +47,9 @@ public class UserController {
     @Operation(summary = "Update info about user.",
             description = "User can update firstName, lastName or password.")
     @PatchMapping("/me")
-    public UserResponseDto updateUserInfo(Authentication authentication,
+    public UserResponseDto updateUserInfo(@Parameter(hidden = true) AuthenticatedUser user,
             @RequestBody @Valid UserUpdateInfoRequestDto requestDto) {
-        return userService.updateUserInfo(authentication.getName(), requestDto);
+        return userService.updateUserInfo(user, requestDto);
     }
 
     @ResponseStatus(HttpStatus.OK)
@@ -56,7 +57,7 @@ public class UserController {
     @UserRoleDescription
     @Operation(summary = "Get user info.", description = "Get info about user.")
     @GetMapping("/me")
-    public UserResponseDtoWithRoles getUserInfo(Authentication authentication) {
-        return userService.getUserInfo(authentication.getName());
+    public UserResponseDtoWithRoles getUserInfo(@Parameter(hidden = true) AuthenticatedUser user) {
+        return userService.getUserInfo(user);
     }
 }
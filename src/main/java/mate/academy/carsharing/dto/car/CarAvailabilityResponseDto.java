@@ -0,0 +1,6 @@
+package mate.academy.carsharing.dto.car;
+
+public record CarAvailabilityResponseDto(
+        Long carId,
+        int availableUnits) {
+}
@@ -0,0 +1,12 @@
+package mate.academy.carsharing.dto.car;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record ShardCarInventoryRequestDto(
+        @NotNull
+        @Min(1)
+        @Max(64)
+        Integer slots) {
+}
@@ -0,0 +1,16 @@
+package mate.academy.carsharing.dto.page;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record SliceResponseDto<T>(
+        List<T> content,
+        boolean hasNext,
+        String nextCursor) {
+    public <R> SliceResponseDto<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mappedContent = content.stream()
+                .<R>map(mapper)
+                .toList();
+        return new SliceResponseDto<>(mappedContent, hasNext, nextCursor);
+    }
+}
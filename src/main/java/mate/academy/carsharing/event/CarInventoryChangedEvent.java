@@ -0,0 +1,4 @@
+package mate.academy.carsharing.event;
+
+public record CarInventoryChangedEvent(Long carId) {
+}
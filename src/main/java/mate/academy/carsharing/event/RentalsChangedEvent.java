@@ -0,0 +1,4 @@
+package mate.academy.carsharing.event;
+
+public record RentalsChangedEvent(Long userId) {
+}
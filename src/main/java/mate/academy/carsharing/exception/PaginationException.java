@@ -0,0 +1,7 @@
+package mate.academy.carsharing.exception;
+
+public class PaginationException extends RuntimeException {
+    public PaginationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package mate.academy.carsharing.exception;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
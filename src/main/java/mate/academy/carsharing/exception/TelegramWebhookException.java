@@ -0,0 +1,7 @@
+package mate.academy.carsharing.exception;
+
+public class TelegramWebhookException extends RuntimeException {
+    public TelegramWebhookException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,67 @@
+package mate.academy.carsharing.inventory;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import mate.academy.carsharing.repository.rental.RentalPeriod;
+
+// Immutable snapshot of one car: how many units it has in total, for every date where
+// the number of booked units changes how many units are booked from that date on, and how
+// many rentals are due back by every return date.
+public record CarAvailability(int capacity, NavigableMap<LocalDate, Integer> bookedFrom,
+        NavigableMap<LocalDate, Integer> dueBy) {
+    // availableNow is the free inventory counter, rentals that already took a unit add it back
+    public static CarAvailability of(int availableNow, Collection<RentalPeriod> activeRentals) {
+        NavigableMap<LocalDate, Integer> deltas = new TreeMap<>();
+        NavigableMap<LocalDate, Integer> returns = new TreeMap<>();
+        int reserved = 0;
+        for (RentalPeriod rental : activeRentals) {
+            deltas.merge(rental.getRentalDate(), 1, Integer::sum);
+            deltas.merge(rental.getReturnDate(), -1, Integer::sum);
+            returns.merge(rental.getReturnDate(), 1, Integer::sum);
+            if (rental.isInventoryReserved()) {
+                reserved++;
+            }
+        }
+        return new CarAvailability(availableNow + reserved, accumulate(deltas),
+                accumulate(returns));
+    }
+
+    public int availableUnits(LocalDate from, LocalDate to) {
+        return availableUnits(from, to, LocalDate.now());
+    }
+
+    // overdue is decided when asked, the snapshot may be older than today
+    public int availableUnits(LocalDate from, LocalDate to, LocalDate today) {
+        int maxBooked = bookedOn(from, today);
+        for (LocalDate date : bookedFrom.subMap(from, false, to, false).keySet()) {
+            maxBooked = Math.max(maxBooked, bookedOn(date, today));
+        }
+        return Math.max(capacity - maxBooked, 0);
+    }
+
+    // an overdue rental keeps the car until it is actually returned
+    private int bookedOn(LocalDate date, LocalDate today) {
+        LocalDate overdueBy = date.isBefore(today) ? date : today;
+        return valueAt(bookedFrom, date) + valueAt(dueBy, overdueBy);
+    }
+
+    private static int valueAt(NavigableMap<LocalDate, Integer> map, LocalDate date) {
+        Map.Entry<LocalDate, Integer> entry = map.floorEntry(date);
+        return entry == null ? 0 : entry.getValue();
+    }
+
+    private static NavigableMap<LocalDate, Integer> accumulate(
+            NavigableMap<LocalDate, Integer> deltas) {
+        NavigableMap<LocalDate, Integer> totals = new TreeMap<>();
+        int total = 0;
+        for (Map.Entry<LocalDate, Integer> delta : deltas.entrySet()) {
+            total += delta.getValue();
+            totals.put(delta.getKey(), total);
+        }
+        return Collections.unmodifiableNavigableMap(totals);
+    }
+}
@@ -0,0 +1,95 @@
+package mate.academy.carsharing.inventory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.dto.car.CarAvailabilityResponseDto;
+import mate.academy.carsharing.event.CarInventoryChangedEvent;
+import mate.academy.carsharing.repository.car.CarRepository;
+import mate.academy.carsharing.repository.car.CarStock;
+import mate.academy.carsharing.repository.rental.RentalPeriod;
+import mate.academy.carsharing.repository.rental.RentalRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@RequiredArgsConstructor
+@Component
+public class CarAvailabilityIndex {
+    private final CarRepository carRepository;
+    private final RentalRepository rentalRepository;
+    private final Map<Long, Entry> availabilityByCarId = new ConcurrentHashMap<>();
+    // orders rebuilds and per-car reloads by the moment they started reading the database
+    private final AtomicLong clock = new AtomicLong();
+
+    // Every node holds its own copy and hears only about changes made on it, so the whole
+    // index is reloaded regularly to pick up bookings and returns made on other nodes.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${inventory.availability.refresh-delay:30000}",
+            fixedDelayString = "${inventory.availability.refresh-delay:30000}")
+    public void rebuild() {
+        long snapshotAt = clock.incrementAndGet();
+        Map<Long, List<RentalPeriod>> rentalsByCarId = rentalRepository.findActiveRentalPeriods()
+                .stream()
+                .collect(Collectors.groupingBy(RentalPeriod::getCarId));
+        Map<Long, CarAvailability> rebuilt = new HashMap<>();
+        for (CarStock car : carRepository.findAllProjectedBy()) {
+            rebuilt.put(car.getId(), CarAvailability.of(car.getInventory(),
+                    rentalsByCarId.getOrDefault(car.getId(), List.of())));
+        }
+        // replaced in place, queries never see an empty index while it is reloaded
+        rebuilt.forEach((carId, availability) -> update(carId, availability, snapshotAt));
+        availabilityByCarId.keySet().forEach(carId -> {
+            if (!rebuilt.containsKey(carId)) {
+                availabilityByCarId.computeIfPresent(carId,
+                        (id, entry) -> entry.loadedAt() > snapshotAt ? entry : null);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarInventoryChanged(CarInventoryChangedEvent event) {
+        Long carId = event.carId();
+        long loadedAt = clock.incrementAndGet();
+        // a removed car is kept as an empty entry, so an older rebuild can't bring it back
+        CarAvailability availability = carRepository.findProjectedById(carId)
+                .map(car -> CarAvailability.of(car.getInventory(),
+                        rentalRepository.findActiveRentalPeriodsByCarId(carId)))
+                .orElse(null);
+        update(carId, availability, loadedAt);
+    }
+
+    // an entry read after this one started stays, it saw at least the same commits
+    private void update(Long carId, CarAvailability availability, long loadedAt) {
+        availabilityByCarId.compute(carId, (id, entry) -> entry != null
+                && entry.loadedAt() > loadedAt ? entry : new Entry(availability, loadedAt));
+    }
+
+    public List<CarAvailabilityResponseDto> findAvailable(LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        List<CarAvailabilityResponseDto> availableCars = new ArrayList<>();
+        availabilityByCarId.forEach((carId, entry) -> {
+            if (entry.availability() == null) {
+                return;
+            }
+            int availableUnits = entry.availability().availableUnits(from, to, today);
+            if (availableUnits > 0) {
+                availableCars.add(new CarAvailabilityResponseDto(carId, availableUnits));
+            }
+        });
+        availableCars.sort(Comparator.comparing(CarAvailabilityResponseDto::carId));
+        return availableCars;
+    }
+
+    private record Entry(CarAvailability availability, long loadedAt) {
+    }
+}
@@ -0,0 +1,109 @@
+package mate.academy.carsharing.inventory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+import mate.academy.carsharing.event.CarInventoryChangedEvent;
+import mate.academy.carsharing.exception.EntityNotFoundException;
+import mate.academy.carsharing.model.Car;
+import mate.academy.carsharing.model.CarInventorySlot;
+import mate.academy.carsharing.repository.car.CarInventorySlotRepository;
+import mate.academy.carsharing.repository.car.CarInventoryTotal;
+import mate.academy.carsharing.repository.car.CarRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Splits the inventory of a hot car across several slot rows so concurrent rentals lock
+// different rows. Car.inventory stays the reported total and is rolled up periodically.
+@Component
+public class CarInventorySharding {
+    private final CarInventorySlotRepository carInventorySlotRepository;
+    private final CarRepository carRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<Long, Integer> slotCounts;
+
+    public CarInventorySharding(CarInventorySlotRepository carInventorySlotRepository,
+            CarRepository carRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${inventory.sharding.slot-count-ttl:30s}") Duration slotCountTtl) {
+        this.carInventorySlotRepository = carInventorySlotRepository;
+        this.carRepository = carRepository;
+        this.eventPublisher = eventPublisher;
+        this.slotCounts = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(slotCountTtl)
+                .build();
+    }
+
+    public int getSlotCount(Long carId) {
+        return slotCounts.get(carId, carInventorySlotRepository::countByCarId);
+    }
+
+    public int refreshSlotCount(Long carId) {
+        slotCounts.invalidate(carId);
+        return getSlotCount(carId);
+    }
+
+    // only a hint, the cached count may predate a sharding done on another node
+    public boolean isSharded(Long carId) {
+        return getSlotCount(carId) > 0;
+    }
+
+    @Transactional
+    public void shard(Long carId, int slots) {
+        Car car = carRepository.findByIdForUpdate(carId).orElseThrow(
+                () -> new EntityNotFoundException("Can't find car by id: " + carId));
+        List<CarInventorySlot> currentSlots = carInventorySlotRepository.findAllByCarId(carId);
+        int total = currentSlots.isEmpty()
+                ? car.getInventory()
+                : currentSlots.stream().mapToInt(CarInventorySlot::getInventory).sum();
+        distribute(carId, total, slots);
+        // bumps the version, so optimistic reservations read before the sharding retry
+        carRepository.updateInventory(carId, total);
+    }
+
+    @Transactional
+    public void resetInventory(Long carId, int total) {
+        List<CarInventorySlot> currentSlots = carInventorySlotRepository.findAllByCarId(carId);
+        if (!currentSlots.isEmpty()) {
+            distribute(carId, total, currentSlots.size());
+        }
+    }
+
+    @Transactional
+    public void rollUpTotals() {
+        for (CarInventoryTotal total : carInventorySlotRepository.findTotalsOutOfSync()) {
+            carRepository.updateInventory(total.getCarId(), total.getTotal().intValue());
+            eventPublisher.publishEvent(new CarInventoryChangedEvent(total.getCarId()));
+        }
+    }
+
+    private void distribute(Long carId, int total, int slots) {
+        carInventorySlotRepository.deleteSlotsOfCar(carId);
+        List<CarInventorySlot> newSlots = IntStream.range(0, slots)
+                .mapToObj(slot -> createSlot(carId, slot,
+                        total / slots + (slot < total % slots ? 1 : 0)))
+                .toList();
+        carInventorySlotRepository.saveAll(newSlots);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                slotCounts.put(carId, slots);
+            }
+        });
+    }
+
+    private CarInventorySlot createSlot(Long carId, int slot, int inventory) {
+        CarInventorySlot carInventorySlot = new CarInventorySlot();
+        carInventorySlot.setCarId(carId);
+        carInventorySlot.setSlot(slot);
+        carInventorySlot.setInventory(inventory);
+        return carInventorySlot;
+    }
+}
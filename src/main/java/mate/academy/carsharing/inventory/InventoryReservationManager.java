@@ -0,0 +1,65 @@
+package mate.academy.carsharing.inventory;
+
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.inventory.strategy.ShardedReservationStrategy;
+import mate.academy.carsharing.repository.car.CarRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Component
+public class InventoryReservationManager {
+    private final List<InventoryReservationStrategy> strategies;
+    private final CarRepository carRepository;
+    private final CarInventorySharding carInventorySharding;
+    private final ShardedReservationStrategy shardedReservationStrategy;
+    private final InventoryReservationStrategy defaultStrategy;
+
+    public InventoryReservationManager(List<InventoryReservationStrategy> strategies,
+            CarRepository carRepository,
+            CarInventorySharding carInventorySharding,
+            ShardedReservationStrategy shardedReservationStrategy,
+            @Value("${inventory.reservation.strategy:atomic}") String strategyKey) {
+        this.strategies = strategies;
+        this.carRepository = carRepository;
+        this.carInventorySharding = carInventorySharding;
+        this.shardedReservationStrategy = shardedReservationStrategy;
+        this.defaultStrategy = getStrategy(strategyKey);
+    }
+
+    public InventoryReservationStrategy getStrategy(String key) {
+        return strategies.stream()
+                .filter(strategy -> strategy.getKey().equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Can't find inventory reservation strategy for key " + key));
+    }
+
+    // Strategies refuse cars that have slot rows, so a node whose cached slot count
+    // predates a sharding falls through to the slots instead of updating the cars row.
+    public boolean reserve(Long carId) {
+        if (!carInventorySharding.isSharded(carId)) {
+            if (defaultStrategy.reserve(carId)) {
+                return true;
+            }
+            if (carInventorySharding.refreshSlotCount(carId) == 0) {
+                return false;
+            }
+        }
+        return shardedReservationStrategy.reserve(carId);
+    }
+
+    // Giving a car back can't break the inventory >= 0 invariant,
+    // so a blind increment is safe whatever strategy is used for reservations.
+    @Transactional
+    public void release(Long carId) {
+        if (!carInventorySharding.isSharded(carId) && carRepository.incrementInventory(carId) > 0) {
+            return;
+        }
+        if (!shardedReservationStrategy.release(carId)) {
+            log.warn("Can't return a unit of car with id: {}, it has no inventory row", carId);
+        }
+    }
+}
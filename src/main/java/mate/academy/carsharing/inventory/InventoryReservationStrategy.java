@@ -0,0 +1,7 @@
+package mate.academy.carsharing.inventory;
+
+public interface InventoryReservationStrategy {
+    String getKey();
+
+    boolean reserve(Long carId);
+}
@@ -0,0 +1,84 @@
+package mate.academy.carsharing.inventory;
+
+import java.time.LocalDate;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.event.CarInventoryChangedEvent;
+import mate.academy.carsharing.repository.car.CarRepository;
+import mate.academy.carsharing.repository.rental.RentalRepository;
+import mate.academy.carsharing.repository.rental.StartedRental;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Bookings for later dates leave the inventory counter alone, so the unit stays free for
+// rentals that end before they start. This takes the unit once such a booking has started.
+@Slf4j
+@Component
+public class StartedRentalReserver {
+    private final RentalRepository rentalRepository;
+    private final CarRepository carRepository;
+    private final InventoryReservationManager inventoryReservationManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public StartedRentalReserver(RentalRepository rentalRepository,
+            CarRepository carRepository,
+            InventoryReservationManager inventoryReservationManager,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${rental.inventory.reserve-chunk-size:500}") int chunkSize) {
+        this.rentalRepository = rentalRepository;
+        this.carRepository = carRepository;
+        this.inventoryReservationManager = inventoryReservationManager;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public int reserveStartedRentals() {
+        LocalDate today = LocalDate.now();
+        int reserved = 0;
+        int waiting = 0;
+        Long lastId = 0L;
+        List<StartedRental> rentals;
+        do {
+            rentals = rentalRepository.findUnreservedStartedRentalsAfter(today, lastId,
+                    PageRequest.of(0, chunkSize));
+            for (StartedRental rental : rentals) {
+                if (Boolean.TRUE.equals(
+                        transactionTemplate.execute(status -> reserve(rental, status)))) {
+                    reserved++;
+                } else {
+                    waiting++;
+                }
+                lastId = rental.id();
+            }
+        } while (rentals.size() == chunkSize);
+        if (waiting > 0) {
+            log.warn("{} started rentals are still waiting for a free unit, "
+                    + "their cars are held by overdue rentals", waiting);
+        }
+        return reserved;
+    }
+
+    private boolean reserve(StartedRental rental, TransactionStatus status) {
+        if (!inventoryReservationManager.reserve(rental.carId())) {
+            return false;
+        }
+        // bookings check the counter under this lock, it must not change between their reads
+        carRepository.findByIdForUpdate(rental.carId());
+        if (rentalRepository.markInventoryReserved(rental.id()) == 0) {
+            // returned meanwhile, the rollback gives the unit back
+            status.setRollbackOnly();
+            return false;
+        }
+        eventPublisher.publishEvent(new CarInventoryChangedEvent(rental.carId()));
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package mate.academy.carsharing.inventory.strategy;
+
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.inventory.InventoryReservationStrategy;
+import mate.academy.carsharing.repository.car.CarRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+@Component
+public class AtomicUpdateReservationStrategy implements InventoryReservationStrategy {
+    private final CarRepository carRepository;
+
+    @Override
+    public String getKey() {
+        return "atomic";
+    }
+
+    @Override
+    @Transactional
+    public boolean reserve(Long carId) {
+        return carRepository.decrementInventory(carId) > 0;
+    }
+}
@@ -0,0 +1,109 @@
+package mate.academy.carsharing.inventory.strategy;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import mate.academy.carsharing.exception.RentalException;
+import mate.academy.carsharing.inventory.InventoryReservationStrategy;
+import mate.academy.carsharing.model.Car;
+import mate.academy.carsharing.repository.car.CarInventorySlotRepository;
+import mate.academy.carsharing.repository.car.CarRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+public class OptimisticReservationStrategy implements InventoryReservationStrategy {
+    private static final long BACKOFF_MILLIS = 5;
+
+    private final CarRepository carRepository;
+    private final CarInventorySlotRepository carInventorySlotRepository;
+    private final ShardedReservationStrategy shardedReservationStrategy;
+    private final TransactionTemplate requiresNewTransaction;
+    private final int maxAttempts;
+
+    public OptimisticReservationStrategy(CarRepository carRepository,
+            CarInventorySlotRepository carInventorySlotRepository,
+            ShardedReservationStrategy shardedReservationStrategy,
+            PlatformTransactionManager transactionManager,
+            @Value("${inventory.reservation.optimistic.max-attempts:5}") int maxAttempts) {
+        this.carRepository = carRepository;
+        this.carInventorySlotRepository = carInventorySlotRepository;
+        this.shardedReservationStrategy = shardedReservationStrategy;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction
+                .setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public String getKey() {
+        return "optimistic";
+    }
+
+    // A version conflict poisons the persistence context it happened in, so every attempt
+    // runs in its own transaction and the decrement is undone if the caller rolls back.
+    @Override
+    public boolean reserve(Long carId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                boolean reserved = Boolean.TRUE.equals(
+                        requiresNewTransaction.execute(status -> tryReserve(carId)));
+                if (reserved) {
+                    releaseOnRollback(carId);
+                }
+                return reserved;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new RentalException("Car with id: " + carId
+                            + " is in high demand right now, please try again");
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    private boolean tryReserve(Long carId) {
+        Optional<Car> car = carRepository.findById(carId);
+        // sharding bumps the car version, so a sharding committed after this read fails the save
+        if (car.isEmpty() || car.get().getInventory() < 1
+                || carInventorySlotRepository.countByCarId(carId) > 0) {
+            return false;
+        }
+        car.get().setInventory(car.get().getInventory() - 1);
+        carRepository.saveAndFlush(car.get());
+        return true;
+    }
+
+    private void releaseOnRollback(Long carId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    // the car may have been sharded meanwhile, then the unit goes to a slot
+                    requiresNewTransaction.executeWithoutResult(transactionStatus -> {
+                        if (carRepository.incrementInventory(carId) == 0) {
+                            shardedReservationStrategy.release(carId);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(BACKOFF_MILLIS * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RentalException("Reservation of car was interrupted");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package mate.academy.carsharing.inventory.strategy;
+
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.inventory.InventoryReservationStrategy;
+import mate.academy.carsharing.model.Car;
+import mate.academy.carsharing.repository.car.CarInventorySlotRepository;
+import mate.academy.carsharing.repository.car.CarRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+@Component
+public class PessimisticReservationStrategy implements InventoryReservationStrategy {
+    private final CarRepository carRepository;
+    private final CarInventorySlotRepository carInventorySlotRepository;
+
+    @Override
+    public String getKey() {
+        return "pessimistic";
+    }
+
+    @Override
+    @Transactional
+    public boolean reserve(Long carId) {
+        Optional<Car> car = carRepository.findByIdForUpdate(carId);
+        // a locking read, so a sharding committed while waiting for the car row is seen
+        if (car.isEmpty() || car.get().getInventory() < 1
+                || !carInventorySlotRepository.findAllByCarId(carId).isEmpty()) {
+            return false;
+        }
+        car.get().setInventory(car.get().getInventory() - 1);
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package mate.academy.carsharing.inventory.strategy;
+
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.inventory.CarInventorySharding;
+import mate.academy.carsharing.inventory.InventoryReservationStrategy;
+import mate.academy.carsharing.repository.car.CarInventorySlotRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+@Component
+public class ShardedReservationStrategy implements InventoryReservationStrategy {
+    private final CarInventorySlotRepository carInventorySlotRepository;
+    private final CarInventorySharding carInventorySharding;
+
+    @Override
+    public String getKey() {
+        return "sharded";
+    }
+
+    @Override
+    @Transactional
+    public boolean reserve(Long carId) {
+        int slots = carInventorySharding.getSlotCount(carId);
+        if (slots > 0 && reserveFromSlots(carId, slots)) {
+            return true;
+        }
+        // the cached count may predate a re-shard into more slots
+        int freshSlots = carInventorySharding.refreshSlotCount(carId);
+        return freshSlots != slots && freshSlots > 0 && reserveFromSlots(carId, freshSlots);
+    }
+
+    @Transactional
+    public boolean release(Long carId) {
+        int slots = carInventorySharding.getSlotCount(carId);
+        if (slots > 0 && carInventorySlotRepository.incrementInventory(carId,
+                ThreadLocalRandom.current().nextInt(slots)) > 0) {
+            return true;
+        }
+        // a re-shard into fewer slots may have removed the chosen one, slot 0 always exists
+        return carInventorySharding.refreshSlotCount(carId) > 0
+                && carInventorySlotRepository.incrementInventory(carId, 0) > 0;
+    }
+
+    private boolean reserveFromSlots(Long carId, int slots) {
+        int firstSlot = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            if (carInventorySlotRepository.decrementInventory(carId, (firstSlot + i) % slots) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,124 @@
+package mate.academy.carsharing.ledger;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import mate.academy.carsharing.model.Payment;
+import mate.academy.carsharing.repository.account.AccountSummaryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Keeps a summary row per user so rental eligibility is one keyed lookup. Other nodes see
+// a change at most one TTL late, the local cache is evicted after the change commits.
+@Component
+public class AccountSummaryLedger {
+    private final AccountSummaryRepository accountSummaryRepository;
+    private final TransactionTemplate newTransaction;
+    private final AtomicLong generation = new AtomicLong();
+    // an evicted user keeps an empty entry, so a load that read the row before the change
+    // committed can't put the old values back
+    private final Cache<Long, Entry> summaries;
+
+    public AccountSummaryLedger(AccountSummaryRepository accountSummaryRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${account.summary.cache-ttl:30s}") Duration summaryTtl) {
+        this.accountSummaryRepository = accountSummaryRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(summaryTtl)
+                .build();
+    }
+
+    public AccountSummarySnapshot getSummary(Long userId) {
+        Entry entry = summaries.getIfPresent(userId);
+        if (entry != null && entry.summary() != null) {
+            return entry.summary();
+        }
+        long readAt = generation.get();
+        AccountSummarySnapshot summary = loadSummary(userId);
+        summaries.asMap().compute(userId, (id, current) -> current != null
+                && current.stamp() > readAt ? current : new Entry(summary, readAt));
+        return summary;
+    }
+
+    public boolean isAllowedToRent(Long userId) {
+        return getSummary(userId).expiredPayments() == 0;
+    }
+
+    public void rentalOpened(Long userId) {
+        apply(userId, 0, BigDecimal.ZERO, 1);
+    }
+
+    public void rentalReturned(Long userId) {
+        apply(userId, 0, BigDecimal.ZERO, -1);
+    }
+
+    public void apply(Long userId, int expiredDelta, BigDecimal outstandingDelta,
+            int activeRentalsDelta) {
+        // a missing row is built from scratch on the next lookup
+        accountSummaryRepository.addToSummary(userId, expiredDelta, outstandingDelta,
+                activeRentalsDelta);
+        evictAfterCommit(List.of(userId));
+    }
+
+    public void recalculate(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        accountSummaryRepository.recalculate(userIds,
+                Payment.Status.EXPIRED, Payment.Status.PENDING);
+        evictAfterCommit(userIds);
+    }
+
+    private AccountSummarySnapshot loadSummary(Long userId) {
+        return accountSummaryRepository.findById(userId)
+                .map(AccountSummarySnapshot::of)
+                .orElseGet(() -> createSummary(userId));
+    }
+
+    // in its own transaction, so the row doesn't stay locked until the caller commits
+    private AccountSummarySnapshot createSummary(Long userId) {
+        return newTransaction.execute(status -> {
+            accountSummaryRepository.insertIfAbsent(userId,
+                    Payment.Status.EXPIRED.name(), Payment.Status.PENDING.name());
+            return accountSummaryRepository.findById(userId)
+                    .map(AccountSummarySnapshot::of)
+                    .orElseGet(() -> AccountSummarySnapshot.empty(userId));
+        });
+    }
+
+    private void evictAfterCommit(Collection<Long> userIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userIds);
+            }
+        });
+    }
+
+    private void evict(Collection<Long> userIds) {
+        long evictedAt = generation.incrementAndGet();
+        for (Long userId : userIds) {
+            summaries.put(userId, new Entry(null, evictedAt));
+        }
+    }
+
+    private record Entry(AccountSummarySnapshot summary, long stamp) {
+    }
+}
@@ -0,0 +1,21 @@
+package mate.academy.carsharing.ledger;
+
+import java.math.BigDecimal;
+import mate.academy.carsharing.model.AccountSummary;
+
+// What AccountSummaryLedger caches, a copy of the row that no persistence context can change
+public record AccountSummarySnapshot(
+        Long userId,
+        int expiredPayments,
+        BigDecimal outstandingBalance,
+        int activeRentals) {
+
+    public static AccountSummarySnapshot of(AccountSummary summary) {
+        return new AccountSummarySnapshot(summary.getUserId(), summary.getExpiredPayments(),
+                summary.getOutstandingBalance(), summary.getActiveRentals());
+    }
+
+    public static AccountSummarySnapshot empty(Long userId) {
+        return new AccountSummarySnapshot(userId, 0, BigDecimal.ZERO, 0);
+    }
+}
@@ -0,0 +1,80 @@
+package mate.academy.carsharing.ledger;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.model.Payment;
+import mate.academy.carsharing.model.Rental;
+import mate.academy.carsharing.repository.payment.PaymentRepository;
+import mate.academy.carsharing.repository.rental.RentalRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+@Component
+public class RentalBalanceLedger {
+    private final PaymentRepository paymentRepository;
+    private final RentalRepository rentalRepository;
+    private final AccountSummaryLedger accountSummaryLedger;
+
+    @Transactional
+    public Payment open(Payment payment) {
+        Payment savedPayment = paymentRepository.save(payment);
+        applyDeltas(savedPayment, null);
+        return savedPayment;
+    }
+
+    // the status only moves if nobody moved it since the payment was read,
+    // so a racing webhook and redirect can't count the same payment twice
+    @Transactional
+    public boolean transition(Payment payment, Payment.Status newStatus) {
+        Payment.Status currentStatus = payment.getStatus();
+        if (currentStatus == newStatus || paymentRepository.updateStatus(
+                List.of(payment.getId()), currentStatus, newStatus) == 0) {
+            return false;
+        }
+        payment.setStatus(newStatus);
+        applyDeltas(payment, currentStatus);
+        return true;
+    }
+
+    @Transactional
+    public int transitionAll(Collection<Long> paymentIds, Payment.Status currentStatus,
+            Payment.Status newStatus) {
+        List<Long> rentalIds = paymentRepository.findRentalIdsByIdIn(paymentIds);
+        int updated = paymentRepository.updateStatus(paymentIds, currentStatus, newStatus);
+        if (updated > 0) {
+            recalculate(rentalIds);
+        }
+        return updated;
+    }
+
+    @Transactional
+    public void recalculate(Collection<Long> rentalIds) {
+        rentalRepository.recalculateTotals(rentalIds,
+                Payment.Status.PAID, Payment.Status.PENDING);
+        accountSummaryLedger.recalculate(rentalRepository.findUserIdsByIdIn(rentalIds));
+    }
+
+    private void applyDeltas(Payment payment, Payment.Status oldStatus) {
+        Rental rental = payment.getRental();
+        BigDecimal outstandingDelta = delta(Payment.Status.PENDING, oldStatus, payment);
+        rentalRepository.addToTotals(rental.getId(),
+                delta(Payment.Status.PAID, oldStatus, payment), outstandingDelta);
+        int expiredDelta = (payment.getStatus() == Payment.Status.EXPIRED ? 1 : 0)
+                - (oldStatus == Payment.Status.EXPIRED ? 1 : 0);
+        accountSummaryLedger.apply(rental.getUser().getId(), expiredDelta, outstandingDelta, 0);
+    }
+
+    private BigDecimal delta(Payment.Status total, Payment.Status oldStatus, Payment payment) {
+        BigDecimal delta = BigDecimal.ZERO;
+        if (payment.getStatus() == total) {
+            delta = delta.add(payment.getAmountToPay());
+        }
+        if (oldStatus == total) {
+            delta = delta.subtract(payment.getAmountToPay());
+        }
+        return delta;
+    }
+}
@@ -0,0 +1,66 @@
+package mate.academy.carsharing.ledger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.model.Payment;
+import mate.academy.carsharing.repository.account.AccountSummaryRepository;
+import mate.academy.carsharing.repository.rental.RentalRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class RentalBalanceVerifier {
+    private final RentalRepository rentalRepository;
+    private final AccountSummaryRepository accountSummaryRepository;
+    private final RentalBalanceLedger rentalBalanceLedger;
+    private final AccountSummaryLedger accountSummaryLedger;
+    private final MeterRegistry meterRegistry;
+    @Value("${rental.balance.verify.chunk-size:500}")
+    private int chunkSize;
+
+    // totals are maintained incrementally, this catches anything written around the ledger
+    public int verify() {
+        int repaired = 0;
+        Long lastId = 0L;
+        List<Long> driftedIds;
+        do {
+            driftedIds = rentalRepository.findDriftedIdsAfter(lastId, Payment.Status.PAID,
+                    Payment.Status.PENDING, PageRequest.of(0, chunkSize));
+            if (!driftedIds.isEmpty()) {
+                rentalBalanceLedger.recalculate(driftedIds);
+                repaired += driftedIds.size();
+                lastId = driftedIds.get(driftedIds.size() - 1);
+            }
+        } while (driftedIds.size() == chunkSize);
+        meterRegistry.counter("rentals.balance.drift.repaired").increment(repaired);
+        if (repaired > 0) {
+            log.warn("Repaired paid/outstanding totals of {} rentals", repaired);
+        }
+        return repaired + verifyAccountSummaries();
+    }
+
+    private int verifyAccountSummaries() {
+        int repaired = 0;
+        Long lastId = 0L;
+        List<Long> driftedIds;
+        do {
+            driftedIds = accountSummaryRepository.findDriftedIdsAfter(lastId,
+                    Payment.Status.EXPIRED, Payment.Status.PENDING, PageRequest.of(0, chunkSize));
+            if (!driftedIds.isEmpty()) {
+                accountSummaryLedger.recalculate(driftedIds);
+                repaired += driftedIds.size();
+                lastId = driftedIds.get(driftedIds.size() - 1);
+            }
+        } while (driftedIds.size() == chunkSize);
+        meterRegistry.counter("accounts.summary.drift.repaired").increment(repaired);
+        if (repaired > 0) {
+            log.warn("Repaired account summaries of {} users", repaired);
+        }
+        return repaired;
+    }
+}
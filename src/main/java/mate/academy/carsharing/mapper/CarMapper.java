@@ -5,6 +5,7 @@ import mate.academy.carsharing.dto.car.CarResponseDto;
 import mate.academy.carsharing.dto.car.CreateCarRequestDto;
 import mate.academy.carsharing.model.Car;
 import org.mapstruct.Mapper;
+import org.mapstruct.MappingTarget;
 
 @Mapper(config = MapperConfig.class)
 public interface CarMapper {
@@ -12,4 +13,6 @@ public interface CarMapper {
     CarResponseDto toDto(Car car);
 
     Car toModel(CreateCarRequestDto requestDto);
+
+    void updateModel(CreateCarRequestDto requestDto, @MappingTarget Car car);
 }
@@ -4,6 +4,7 @@ import mate.academy.carsharing.config.MapperConfig;
 import mate.academy.carsharing.dto.payment.CreatePaymentRequestDto;
 import mate.academy.carsharing.dto.payment.PaymentResponseDto;
 import mate.academy.carsharing.model.Payment;
+import mate.academy.carsharing.repository.payment.PaymentView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -14,5 +15,7 @@ public interface PaymentMapper {
     @Mapping(target = "userId", source = "rental.user.id")
     PaymentResponseDto toDto(Payment payment);
 
+    PaymentResponseDto toDto(PaymentView paymentView);
+
     Payment toModel(CreatePaymentRequestDto requestDto);
 }
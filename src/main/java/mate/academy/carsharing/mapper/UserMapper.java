@@ -5,14 +5,17 @@ import mate.academy.carsharing.dto.user.UserRegistrationRequestDto;
 import mate.academy.carsharing.dto.user.UserResponseDto;
 import mate.academy.carsharing.dto.user.UserResponseDtoWithRoles;
 import mate.academy.carsharing.model.User;
+import mate.academy.carsharing.repository.role.RoleRegistry;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
-@Mapper(config = MapperConfig.class)
+@Mapper(config = MapperConfig.class, uses = RoleRegistry.class)
 public interface UserMapper {
 
     UserResponseDto toDto(User user);
 
     User toModel(UserRegistrationRequestDto requestDto);
 
+    @Mapping(target = "roles", source = "roleMask")
     UserResponseDtoWithRoles toDtoWithRoles(User user);
 }
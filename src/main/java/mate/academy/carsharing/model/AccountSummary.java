@@ -0,0 +1,30 @@
+package mate.academy.carsharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row per user, kept by AccountSummaryLedger with bulk updates.
+@Entity
+@Table(name = "account_summaries")
+@NoArgsConstructor
+@Data
+public class AccountSummary {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    @Column(name = "expired_payments", nullable = false)
+    private int expiredPayments;
+    @Column(name = "outstanding_balance", nullable = false)
+    private BigDecimal outstandingBalance = BigDecimal.ZERO;
+    @Column(name = "active_rentals", nullable = false)
+    private int activeRentals;
+
+    public AccountSummary(Long userId) {
+        this.userId = userId;
+    }
+}
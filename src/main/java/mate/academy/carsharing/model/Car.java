@@ -8,6 +8,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,7 +17,7 @@ import org.hibernate.annotations.SQLRestriction;
 
 @Entity
 @Table(name = "cars")
-@SQLDelete(sql = "UPDATE cars SET deleted = true WHERE id = ?")
+@SQLDelete(sql = "UPDATE cars SET deleted = true WHERE id = ? AND version = ?")
 @NoArgsConstructor
 @SQLRestriction("deleted = false")
 @Data
@@ -37,6 +38,9 @@ public class Car {
     private BigDecimal dailyFee;
     @Column(name = "deleted", nullable = false, columnDefinition = "TINYINT")
     private boolean deleted = false;
+    @Version
+    @Column(nullable = false)
+    private Long version;
 
     public enum Type {
         SEDAN,
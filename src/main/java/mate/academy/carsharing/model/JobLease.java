@@ -0,0 +1,24 @@
+package mate.academy.carsharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "job_leases")
+@NoArgsConstructor
+@Data
+public class JobLease {
+    @Id
+    private String name;
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+}
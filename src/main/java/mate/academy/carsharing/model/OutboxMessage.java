@@ -0,0 +1,47 @@
+package mate.academy.carsharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import mate.academy.carsharing.telegram.TelegramMessageEvent;
+
+@Entity
+@Table(name = "notification_outbox")
+@NoArgsConstructor
+@Data
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TelegramMessageEvent.Priority priority;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // IN_FLIGHT rows sit in a send queue, next_attempt_at is when that lease runs out
+    public enum Status {
+        PENDING,
+        IN_FLIGHT,
+        FAILED
+    }
+}
@@ -2,12 +2,14 @@ package mate.academy.carsharing.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -34,14 +36,24 @@ public class Rental {
     private LocalDate actualReturnDate;
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "car_id", nullable = false)
     private Car car;
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+    // kept by RentalBalanceLedger with bulk updates, entity flushes never overwrite them
+    @Column(name = "paid_total", nullable = false, updatable = false)
+    private BigDecimal paidTotal = BigDecimal.ZERO;
+    @Column(name = "outstanding_total", nullable = false, updatable = false)
+    private BigDecimal outstandingTotal = BigDecimal.ZERO;
+    // true once the rental took a unit of the car inventory, bookings for later dates take
+    // it when they start. Set on insert and by a bulk update, entity flushes never change it.
+    @Column(name = "inventory_reserved", nullable = false, updatable = false,
+            columnDefinition = "TINYINT")
+    private boolean inventoryReserved;
     @Column(name = "deleted", nullable = false, columnDefinition = "TINYINT")
     private boolean deleted;
 }
@@ -8,6 +8,9 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
@@ -30,7 +33,36 @@ public class Role implements GrantedAuthority {
     }
 
     public enum RoleName {
-        ROLE_MANAGER,
-        ROLE_CUSTOMER
+        // bits are persisted in users.role_mask, never reuse or renumber them
+        ROLE_MANAGER(1),
+        ROLE_CUSTOMER(1 << 1);
+
+        private final int mask;
+
+        RoleName(int mask) {
+            this.mask = mask;
+        }
+
+        public int getMask() {
+            return mask;
+        }
+
+        public static int toMask(Collection<RoleName> roleNames) {
+            int mask = 0;
+            for (RoleName roleName : roleNames) {
+                mask |= roleName.mask;
+            }
+            return mask;
+        }
+
+        public static Set<RoleName> fromMask(int mask) {
+            Set<RoleName> roleNames = EnumSet.noneOf(RoleName.class);
+            for (RoleName roleName : values()) {
+                if ((mask & roleName.mask) != 0) {
+                    roleNames.add(roleName);
+                }
+            }
+            return roleNames;
+        }
     }
 }
@@ -0,0 +1,23 @@
+package mate.academy.carsharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "stripe_webhook_events")
+@NoArgsConstructor
+@Data
+public class StripeWebhookEvent {
+    @Id
+    @Column(name = "event_id")
+    private String eventId;
+    @Column(nullable = false)
+    private String type;
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+}
@@ -0,0 +1,33 @@
+package mate.academy.carsharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "telegram_failed_updates")
+@NoArgsConstructor
+@Data
+public class TelegramFailedUpdate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String bot;
+    @Column(name = "update_id", nullable = false)
+    private Integer updateId;
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    @Column(length = 1000)
+    private String error;
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+}
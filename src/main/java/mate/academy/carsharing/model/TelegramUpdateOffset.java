@@ -0,0 +1,19 @@
+package mate.academy.carsharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "telegram_update_offsets")
+@NoArgsConstructor
+@Data
+public class TelegramUpdateOffset {
+    @Id
+    private String bot;
+    @Column(name = "last_update_id", nullable = false)
+    private Integer lastUpdateId;
+}
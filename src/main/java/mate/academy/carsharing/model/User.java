@@ -2,16 +2,11 @@ package mate.academy.carsharing.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.JoinTable;
-import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -19,6 +14,7 @@ import lombok.NoArgsConstructor;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 @Data
@@ -39,20 +35,34 @@ public class User implements UserDetails {
     private String lastName;
     @Column(nullable = false)
     private String password;
+    // Role.RoleName bits, read with the user row instead of joining users_roles
     @EqualsAndHashCode.Exclude
-    @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(
-            name = "users_roles",
-            joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "role_id")
-    )
-    private Set<Role> roles = new HashSet<>();
+    @Column(name = "role_mask", nullable = false)
+    private int roleMask;
     @Column(name = "deleted", nullable = false, columnDefinition = "TINYINT")
     private boolean deleted = false;
+    @EqualsAndHashCode.Exclude
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
+    public Set<Role.RoleName> getRoleNames() {
+        return Role.RoleName.fromMask(roleMask);
+    }
+
+    public boolean addRole(Role.RoleName roleName) {
+        int newRoleMask = roleMask | roleName.getMask();
+        if (newRoleMask == roleMask) {
+            return false;
+        }
+        roleMask = newRoleMask;
+        return true;
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return roles;
+        return getRoleNames().stream()
+                .map(roleName -> new SimpleGrantedAuthority(roleName.name()))
+                .toList();
     }
 
     @Override
@@ -0,0 +1,79 @@
+package mate.academy.carsharing.outbox;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.model.OutboxMessage;
+import mate.academy.carsharing.repository.outbox.OutboxMessageRepository;
+import mate.academy.carsharing.telegram.TelegramMessageEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+@Component
+public class NotificationOutbox {
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    // joins the caller's transaction, so messages become visible to the dispatcher
+    // only after the business change is committed
+    @Transactional
+    public void enqueue(Long chatId, String message) {
+        outboxMessageRepository.save(createMessage(chatId, message,
+                TelegramMessageEvent.Priority.NOTIFICATION, now()));
+    }
+
+    // commits on its own, for notices about a failure the caller's transaction rolls back on
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void enqueueInNewTransaction(Long chatId, String message) {
+        outboxMessageRepository.save(createMessage(chatId, message,
+                TelegramMessageEvent.Priority.NOTIFICATION, now()));
+    }
+
+    @Transactional
+    public void enqueue(Map<Long, String> messagesByChatId) {
+        enqueue(messagesByChatId, TelegramMessageEvent.Priority.NOTIFICATION);
+    }
+
+    @Transactional
+    public void enqueue(Map<Long, String> messagesByChatId,
+            TelegramMessageEvent.Priority priority) {
+        if (messagesByChatId.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = now();
+        outboxMessageRepository.saveAll(messagesByChatId.entrySet().stream()
+                .map(entry -> createMessage(entry.getKey(), entry.getValue(), priority, now))
+                .toList());
+    }
+
+    @Transactional
+    public void enqueue(Collection<Long> chatIds, String message,
+            TelegramMessageEvent.Priority priority) {
+        if (chatIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = now();
+        outboxMessageRepository.saveAll(chatIds.stream()
+                .map(chatId -> createMessage(chatId, message, priority, now))
+                .toList());
+    }
+
+    static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    private OutboxMessage createMessage(Long chatId, String message,
+            TelegramMessageEvent.Priority priority, LocalDateTime now) {
+        OutboxMessage outboxMessage = new OutboxMessage();
+        outboxMessage.setChatId(chatId);
+        outboxMessage.setMessage(message);
+        outboxMessage.setPriority(priority);
+        outboxMessage.setStatus(OutboxMessage.Status.PENDING);
+        outboxMessage.setCreatedAt(now);
+        outboxMessage.setNextAttemptAt(now);
+        return outboxMessage;
+    }
+}
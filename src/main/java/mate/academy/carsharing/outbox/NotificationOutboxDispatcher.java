@@ -0,0 +1,188 @@
+package mate.academy.carsharing.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.exception.ServiceBusyException;
+import mate.academy.carsharing.model.OutboxMessage;
+import mate.academy.carsharing.repository.outbox.OutboxMessageRepository;
+import mate.academy.carsharing.scheduler.JobLeaseExecutor;
+import mate.academy.carsharing.telegram.TelegramMessageDeliveredEvent;
+import mate.academy.carsharing.telegram.TelegramMessageDroppedEvent;
+import mate.academy.carsharing.telegram.TelegramMessageEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class NotificationOutboxDispatcher {
+    private static final String DISPATCH_JOB = "notificationOutbox";
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+    // rows in flight whose lease ran out were lost with the node that held them
+    private static final List<OutboxMessage.Status> DUE_STATUSES =
+            List.of(OutboxMessage.Status.PENDING, OutboxMessage.Status.IN_FLIGHT);
+
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+    private final Queue<Long> deliveredIds = new ConcurrentLinkedQueue<>();
+    private final Queue<TelegramMessageDroppedEvent> droppedMessages =
+            new ConcurrentLinkedQueue<>();
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JobLeaseExecutor jobLeaseExecutor;
+    private final MeterRegistry meterRegistry;
+    @Value("${notification.outbox.batch-size:100}")
+    private int batchSize;
+    @Value("${notification.outbox.max-attempts:8}")
+    private int maxAttempts;
+    @Value("${notification.outbox.retry-delay:5s}")
+    private Duration retryDelay;
+    @Value("${notification.outbox.in-flight-timeout:15m}")
+    private Duration inFlightTimeout;
+
+    @PostConstruct
+    public void registerMetrics() {
+        meterRegistry.gauge("notification.outbox.oldest.age", oldestPendingAgeMillis,
+                age -> age.get() / 1000.0);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-delay:1000}")
+    public void poll() {
+        jobLeaseExecutor.runExclusively(DISPATCH_JOB,
+                Duration.ofMinutes(1), Duration.ZERO, this::dispatch);
+    }
+
+    public void dispatch() {
+        List<OutboxMessage> batch;
+        boolean accepted;
+        do {
+            batch = outboxMessageRepository
+                    .findAllByStatusInAndNextAttemptAtLessThanEqualOrderById(DUE_STATUSES,
+                            NotificationOutbox.now(), PageRequest.of(0, batchSize));
+            accepted = deliver(batch);
+        } while (accepted && batch.size() == batchSize);
+        LocalDateTime oldest =
+                outboxMessageRepository.findOldestCreatedAt(OutboxMessage.Status.PENDING);
+        oldestPendingAgeMillis.set(oldest == null
+                ? 0 : Duration.between(oldest, NotificationOutbox.now()).toMillis());
+    }
+
+    @EventListener
+    public void onDelivered(TelegramMessageDeliveredEvent event) {
+        deliveredIds.add(event.outboxMessageId());
+    }
+
+    @EventListener
+    public void onDropped(TelegramMessageDroppedEvent event) {
+        droppedMessages.add(event);
+    }
+
+    // Not leased: every node applies what its own send queue reported. A node that dies
+    // before that leaves its rows in flight until the lease on them runs out.
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-delay:1000}")
+    public void acknowledge() {
+        List<Long> sentIds = drain(deliveredIds);
+        if (!sentIds.isEmpty()) {
+            outboxMessageRepository.deleteAllByIdInBatch(sentIds);
+            meterRegistry.counter("notification.outbox.sent").increment(sentIds.size());
+        }
+        Map<Long, Boolean> retryableById = new HashMap<>();
+        for (TelegramMessageDroppedEvent dropped : drain(droppedMessages)) {
+            retryableById.put(dropped.outboxMessageId(), dropped.retryable());
+        }
+        if (retryableById.isEmpty()) {
+            return;
+        }
+        List<OutboxMessage> failed = outboxMessageRepository.findAllById(retryableById.keySet());
+        for (OutboxMessage message : failed) {
+            if (retryableById.get(message.getId())) {
+                scheduleRetry(message, null);
+            } else {
+                markFailed(message, null);
+            }
+        }
+        outboxMessageRepository.saveAll(failed);
+    }
+
+    // Rows are leased to the send queue before they are handed over and deleted only once
+    // it reports them sent. Returns false when the queue is full, the rest is released again.
+    private boolean deliver(List<OutboxMessage> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        LocalDateTime now = NotificationOutbox.now();
+        outboxMessageRepository.updateStatus(batch.stream().map(OutboxMessage::getId).toList(),
+                OutboxMessage.Status.IN_FLIGHT, now.plus(inFlightTimeout));
+        List<OutboxMessage> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxMessage message = batch.get(i);
+            try {
+                eventPublisher.publishEvent(TelegramMessageEvent.fromOutbox(message.getId(),
+                        message.getChatId(), message.getMessage(), message.getPriority()));
+                meterRegistry.timer("notification.outbox.lag").record(
+                        Duration.between(message.getCreatedAt(), NotificationOutbox.now()));
+            } catch (ServiceBusyException e) {
+                outboxMessageRepository.updateStatus(batch.subList(i, batch.size()).stream()
+                                .map(OutboxMessage::getId)
+                                .toList(),
+                        OutboxMessage.Status.PENDING, now);
+                saveFailed(failed);
+                return false;
+            } catch (RuntimeException e) {
+                scheduleRetry(message, e);
+                failed.add(message);
+            }
+        }
+        saveFailed(failed);
+        return true;
+    }
+
+    private void saveFailed(List<OutboxMessage> failed) {
+        if (!failed.isEmpty()) {
+            outboxMessageRepository.saveAll(failed);
+        }
+    }
+
+    private void scheduleRetry(OutboxMessage message, RuntimeException cause) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        if (attempts >= maxAttempts) {
+            markFailed(message, cause);
+            return;
+        }
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        message.setStatus(OutboxMessage.Status.PENDING);
+        message.setNextAttemptAt(NotificationOutbox.now()
+                .plus(delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay));
+    }
+
+    private void markFailed(OutboxMessage message, RuntimeException cause) {
+        message.setStatus(OutboxMessage.Status.FAILED);
+        meterRegistry.counter("notification.outbox.failed").increment();
+        log.warn("Giving up on outbox message {} after {} attempts",
+                message.getId(), message.getAttempts(), cause);
+    }
+
+    private static <T> List<T> drain(Queue<T> queue) {
+        List<T> drained = new ArrayList<>();
+        T element;
+        while ((element = queue.poll()) != null) {
+            drained.add(element);
+        }
+        return drained;
+    }
+}
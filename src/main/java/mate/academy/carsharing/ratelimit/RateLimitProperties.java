@@ -0,0 +1,27 @@
+package mate.academy.carsharing.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10m") Duration idleTimeout,
+        @DefaultValue("1000000") long maxBuckets,
+        @DefaultValue Map<String, RouteGroup> groups) {
+
+    public record RouteGroup(
+            List<String> paths,
+            int capacity,
+            Duration period,
+            @DefaultValue("IP") ClientKey key) {
+    }
+
+    public enum ClientKey {
+        IP,
+        USER
+    }
+}
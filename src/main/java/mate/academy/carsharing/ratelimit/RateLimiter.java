@@ -0,0 +1,70 @@
+package mate.academy.carsharing.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+@Component
+public class RateLimiter {
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    // idle buckets are full anyway, dropping them keeps memory bounded by active clients
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimiter(RateLimitProperties properties) {
+        // a broken group would otherwise fail every request it matches
+        properties.groups().forEach(RateLimiter::checkGroup);
+        this.properties = properties;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxBuckets())
+                .expireAfterAccess(properties.idleTimeout())
+                .build();
+    }
+
+    private static void checkGroup(String name, RateLimitProperties.RouteGroup group) {
+        if (group.paths() == null || group.paths().isEmpty()) {
+            throw new IllegalStateException("Rate limit group " + name + " has no paths");
+        }
+        if (group.capacity() <= 0) {
+            throw new IllegalStateException(
+                    "Rate limit group " + name + " needs a positive capacity");
+        }
+        if (group.period() == null || group.period().isZero() || group.period().isNegative()) {
+            throw new IllegalStateException(
+                    "Rate limit group " + name + " needs a positive period");
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled() && !properties.groups().isEmpty();
+    }
+
+    // the most specific matching pattern wins, so catch-all groups can be declared in any order
+    public Optional<String> findGroup(String path) {
+        Comparator<String> specificity = pathMatcher.getPatternComparator(path);
+        return properties.groups().entrySet().stream()
+                .flatMap(group -> group.getValue().paths().stream()
+                        .filter(pattern -> pathMatcher.match(pattern, path))
+                        .map(pattern -> Map.entry(pattern, group.getKey())))
+                .min(Map.Entry.comparingByKey(specificity))
+                .map(Map.Entry::getValue);
+    }
+
+    public RateLimitProperties.ClientKey getClientKey(String group) {
+        return properties.groups().get(group).key();
+    }
+
+    // returns 0 when the request is allowed, otherwise nanos until the client may retry
+    public long tryAcquire(String group, String client) {
+        RateLimitProperties.RouteGroup routeGroup = properties.groups().get(group);
+        long nowNanos = System.nanoTime();
+        return buckets.get(group + ':' + client,
+                        key -> new TokenBucket(routeGroup.capacity(), routeGroup.period(),
+                                nowNanos))
+                .tryConsume(nowNanos);
+    }
+}
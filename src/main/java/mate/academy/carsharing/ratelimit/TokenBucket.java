@@ -0,0 +1,33 @@
+package mate.academy.carsharing.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket kept as a single "theoretical arrival time" (GCRA), so taking a token is one
+// CAS on a long. The bucket starts full and refills capacity tokens per period.
+public class TokenBucket {
+    private final long refillNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalNanos;
+
+    public TokenBucket(int capacity, Duration period, long nowNanos) {
+        this.refillNanos = Math.max(1, period.toNanos() / capacity);
+        this.burstNanos = refillNanos * capacity;
+        this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+    }
+
+    // returns 0 when a token was taken, otherwise nanos until the next token is available
+    public long tryConsume(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrivalNanos.get();
+            long nextArrival = Math.max(arrival, nowNanos) + refillNanos;
+            long waitNanos = nextArrival - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(arrival, nextArrival)) {
+                return 0;
+            }
+        }
+    }
+}
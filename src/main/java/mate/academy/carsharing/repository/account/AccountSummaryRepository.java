@@ -0,0 +1,63 @@
+package mate.academy.carsharing.repository.account;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import mate.academy.carsharing.model.AccountSummary;
+import mate.academy.carsharing.model.Payment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface AccountSummaryRepository extends JpaRepository<AccountSummary, Long> {
+    @Transactional
+    @Modifying
+    @Query("UPDATE AccountSummary s SET s.expiredPayments = s.expiredPayments + :expiredDelta, "
+            + "s.outstandingBalance = s.outstandingBalance + :outstandingDelta, "
+            + "s.activeRentals = s.activeRentals + :activeRentalsDelta "
+            + "WHERE s.userId = :userId")
+    int addToSummary(Long userId, int expiredDelta, BigDecimal outstandingDelta,
+            int activeRentalsDelta);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO account_summaries "
+            + "(user_id, expired_payments, outstanding_balance, active_rentals) "
+            + "SELECT u.id, "
+            + "(SELECT COUNT(*) FROM payments p JOIN rentals r ON r.id = p.rental_id "
+            + "WHERE r.user_id = u.id AND r.deleted = FALSE AND p.deleted = FALSE "
+            + "AND p.status = :expired), "
+            + "COALESCE((SELECT SUM(p.amount_to_pay) FROM payments p "
+            + "JOIN rentals r ON r.id = p.rental_id "
+            + "WHERE r.user_id = u.id AND r.deleted = FALSE AND p.deleted = FALSE "
+            + "AND p.status = :pending), 0), "
+            + "(SELECT COUNT(*) FROM rentals r WHERE r.user_id = u.id AND r.deleted = FALSE "
+            + "AND r.actual_return_date IS NULL) "
+            + "FROM users u WHERE u.id = :userId", nativeQuery = true)
+    int insertIfAbsent(Long userId, String expired, String pending);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE AccountSummary s SET "
+            + "s.expiredPayments = (SELECT COUNT(p) FROM Payment p "
+            + "WHERE p.rental.user.id = s.userId AND p.status = :expired), "
+            + "s.outstandingBalance = COALESCE((SELECT SUM(p.amountToPay) FROM Payment p "
+            + "WHERE p.rental.user.id = s.userId AND p.status = :pending), 0), "
+            + "s.activeRentals = (SELECT COUNT(r) FROM Rental r "
+            + "WHERE r.user.id = s.userId AND r.actualReturnDate IS NULL) "
+            + "WHERE s.userId IN :userIds")
+    int recalculate(Collection<Long> userIds, Payment.Status expired, Payment.Status pending);
+
+    @Query("SELECT s.userId FROM AccountSummary s WHERE s.userId > :lastId AND ("
+            + "s.expiredPayments <> (SELECT COUNT(p) FROM Payment p "
+            + "WHERE p.rental.user.id = s.userId AND p.status = :expired) "
+            + "OR s.outstandingBalance <> COALESCE((SELECT SUM(p.amountToPay) FROM Payment p "
+            + "WHERE p.rental.user.id = s.userId AND p.status = :pending), 0) "
+            + "OR s.activeRentals <> (SELECT COUNT(r) FROM Rental r "
+            + "WHERE r.user.id = s.userId AND r.actualReturnDate IS NULL)) "
+            + "ORDER BY s.userId")
+    List<Long> findDriftedIdsAfter(Long lastId, Payment.Status expired, Payment.Status pending,
+            Pageable pageable);
+}
@@ -0,0 +1,35 @@
+package mate.academy.carsharing.repository.car;
+
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import mate.academy.carsharing.model.CarInventorySlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface CarInventorySlotRepository extends JpaRepository<CarInventorySlot, Long> {
+    @Modifying
+    @Query("UPDATE CarInventorySlot s SET s.inventory = s.inventory - 1 "
+            + "WHERE s.carId = :carId AND s.slot = :slot AND s.inventory > 0")
+    int decrementInventory(Long carId, int slot);
+
+    @Modifying
+    @Query("UPDATE CarInventorySlot s SET s.inventory = s.inventory + 1 "
+            + "WHERE s.carId = :carId AND s.slot = :slot")
+    int incrementInventory(Long carId, int slot);
+
+    int countByCarId(Long carId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<CarInventorySlot> findAllByCarId(Long carId);
+
+    @Modifying
+    @Query("DELETE FROM CarInventorySlot s WHERE s.carId = :carId")
+    void deleteSlotsOfCar(Long carId);
+
+    @Query("SELECT s.carId AS carId, SUM(s.inventory) AS total "
+            + "FROM CarInventorySlot s, Car c WHERE c.id = s.carId "
+            + "GROUP BY s.carId, c.inventory HAVING SUM(s.inventory) <> c.inventory")
+    List<CarInventoryTotal> findTotalsOutOfSync();
+}
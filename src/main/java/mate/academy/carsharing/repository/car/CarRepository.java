@@ -1,9 +1,45 @@
 package mate.academy.carsharing.repository.car;
 
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
 import mate.academy.carsharing.model.Car;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car> {
+    List<CarStock> findAllProjectedBy();
+
+    Optional<CarStock> findProjectedById(Long id);
+
+    // the inventory of a sharded car lives in its slots, the rollup overwrites this column
+    @Modifying
+    @Query("UPDATE Car c SET c.inventory = c.inventory - 1, c.version = c.version + 1 "
+            + "WHERE c.id = :id AND c.inventory > 0 AND NOT EXISTS "
+            + "(SELECT s.id FROM CarInventorySlot s WHERE s.carId = c.id)")
+    int decrementInventory(Long id);
+
+    @Modifying
+    @Query("UPDATE Car c SET c.inventory = c.inventory + 1, c.version = c.version + 1 "
+            + "WHERE c.id = :id AND NOT EXISTS "
+            + "(SELECT s.id FROM CarInventorySlot s WHERE s.carId = c.id)")
+    int incrementInventory(Long id);
+
+    @Modifying
+    @Query("UPDATE Car c SET c.inventory = :inventory, c.version = c.version + 1 "
+            + "WHERE c.id = :id")
+    int updateInventory(Long id, int inventory);
+
+    @Query("SELECT COALESCE((SELECT SUM(s.inventory) FROM CarInventorySlot s "
+            + "WHERE s.carId = c.id), c.inventory) FROM Car c WHERE c.id = :id")
+    int findFreeInventory(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Car c WHERE c.id = :id")
+    Optional<Car> findByIdForUpdate(Long id);
 }
@@ -0,0 +1,7 @@
+package mate.academy.carsharing.repository.car;
+
+public interface CarStock {
+    Long getId();
+
+    Integer getInventory();
+}
@@ -0,0 +1,46 @@
+package mate.academy.carsharing.repository.keyset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import mate.academy.carsharing.exception.PaginationException;
+import org.springframework.data.domain.Sort;
+
+public record KeysetCursor(
+        String property,
+        Sort.Direction direction,
+        String value,
+        Long id) {
+    private static final int VERSION = 1;
+
+    public String encode() {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(property);
+            out.writeUTF(direction.name());
+            out.writeUTF(value);
+            out.writeLong(id);
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't encode cursor", e);
+        }
+    }
+
+    public static KeysetCursor decode(String token) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readByte() != VERSION) {
+                throw new PaginationException("Unsupported cursor: " + token);
+            }
+            return new KeysetCursor(in.readUTF(), Sort.Direction.valueOf(in.readUTF()),
+                    in.readUTF(), in.readLong());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new PaginationException("Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package mate.academy.carsharing.repository.keyset;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
+import mate.academy.carsharing.exception.PaginationException;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Component;
+
+@Component
+public class KeysetScroller {
+    private static final String ID = "id";
+
+    @Value("${spring.data.web.pageable.max-page-size:100}")
+    private int maxPageSize;
+
+    public <T> SliceResponseDto<T> scroll(JpaSpecificationExecutor<T> repository,
+            Specification<T> specification, Pageable pageable, String cursor,
+            Set<String> sortableProperties, String... fetchedAssociations) {
+        KeysetCursor position = cursor == null || cursor.isBlank()
+                ? startPosition(pageable.getSort())
+                : KeysetCursor.decode(cursor);
+        if (!ID.equals(position.property())
+                && !sortableProperties.contains(position.property())) {
+            throw new PaginationException("Can't scroll by property: " + position.property());
+        }
+        int size = pageable.isPaged() ? Math.min(pageable.getPageSize(), maxPageSize) : maxPageSize;
+        Sort sort = Sort.by(position.direction(), position.property());
+        if (!ID.equals(position.property())) {
+            sort = sort.and(Sort.by(position.direction(), ID));
+        }
+        Specification<T> scrollSpecification = position.id() == null
+                ? specification
+                : Specification.where(specification).and(after(position));
+        Sort finalSort = sort;
+        List<T> rows = repository.findBy(scrollSpecification,
+                query -> query.sortBy(finalSort)
+                        .project(fetchedAssociations)
+                        .limit(size + 1)
+                        .all());
+        if (rows.size() <= size) {
+            return new SliceResponseDto<>(rows, false, null);
+        }
+        List<T> content = rows.subList(0, size);
+        BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(content.get(size - 1));
+        KeysetCursor next = new KeysetCursor(position.property(), position.direction(),
+                asString(last.getPropertyValue(position.property())),
+                (Long) last.getPropertyValue(ID));
+        return new SliceResponseDto<>(content, true, next.encode());
+    }
+
+    private KeysetCursor startPosition(Sort sort) {
+        Sort.Order order = sort.stream()
+                .findFirst()
+                .orElse(Sort.Order.asc(ID));
+        return new KeysetCursor(order.getProperty(), order.getDirection(), "", null);
+    }
+
+    private <T> Specification<T> after(KeysetCursor position) {
+        boolean ascending = position.direction().isAscending();
+        return (root, query, criteriaBuilder) -> {
+            Path<Long> idPath = root.get(ID);
+            Predicate idAfter = compare(criteriaBuilder, idPath, position.id(), ascending);
+            if (ID.equals(position.property())) {
+                return idAfter;
+            }
+            Path<Comparable<Object>> path = root.get(position.property());
+            Comparable<Object> value = parse(position.value(), path.getJavaType());
+            return criteriaBuilder.or(
+                    compare(criteriaBuilder, path, value, ascending),
+                    criteriaBuilder.and(criteriaBuilder.equal(path, value), idAfter));
+        };
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate compare(CriteriaBuilder criteriaBuilder,
+            Path<Y> path, Y value, boolean ascending) {
+        return ascending
+                ? criteriaBuilder.greaterThan(path, value)
+                : criteriaBuilder.lessThan(path, value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparable<Object> parse(String value, Class<?> type) {
+        try {
+            if (type == String.class) {
+                return (Comparable) value;
+            }
+            if (type == Long.class) {
+                return (Comparable) Long.valueOf(value);
+            }
+            if (type == Integer.class) {
+                return (Comparable) Integer.valueOf(value);
+            }
+            if (type == BigDecimal.class) {
+                return (Comparable) new BigDecimal(value);
+            }
+            if (type == LocalDate.class) {
+                return (Comparable) LocalDate.parse(value);
+            }
+            if (type.isEnum()) {
+                return (Comparable) Enum.valueOf((Class<? extends Enum>) type, value);
+            }
+        } catch (RuntimeException e) {
+            throw new PaginationException("Invalid cursor value: " + value);
+        }
+        throw new PaginationException("Can't scroll by property of type: " + type.getSimpleName());
+    }
+
+    private String asString(Object value) {
+        if (value == null) {
+            throw new PaginationException("Can't scroll by property with empty values");
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        return value.toString();
+    }
+}
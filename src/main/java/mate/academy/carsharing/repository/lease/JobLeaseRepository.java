@@ -0,0 +1,28 @@
+package mate.academy.carsharing.repository.lease;
+
+import java.time.LocalDateTime;
+import mate.academy.carsharing.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.lockedBy = :owner, l.lockedAt = :now, "
+            + "l.lockedUntil = :lockedUntil WHERE l.name = :name AND l.lockedUntil <= :now")
+    int acquire(String name, String owner, LocalDateTime now, LocalDateTime lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO job_leases (name, locked_by, locked_at, locked_until) "
+            + "VALUES (:name, :owner, :now, :lockedUntil)", nativeQuery = true)
+    int insertIfAbsent(String name, String owner, LocalDateTime now, LocalDateTime lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.lockedUntil = :lockedUntil "
+            + "WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(String name, String owner, LocalDateTime lockedUntil);
+}
@@ -0,0 +1,26 @@
+package mate.academy.carsharing.repository.outbox;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import mate.academy.carsharing.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    List<OutboxMessage> findAllByStatusInAndNextAttemptAtLessThanEqualOrderById(
+            Collection<OutboxMessage.Status> statuses, LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage o SET o.status = :status, o.nextAttemptAt = :nextAttemptAt "
+            + "WHERE o.id IN :ids")
+    int updateStatus(Collection<Long> ids, OutboxMessage.Status status,
+            LocalDateTime nextAttemptAt);
+
+    @Query("SELECT MIN(o.createdAt) FROM OutboxMessage o WHERE o.status = :status")
+    LocalDateTime findOldestCreatedAt(OutboxMessage.Status status);
+}
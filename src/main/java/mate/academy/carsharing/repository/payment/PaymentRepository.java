@@ -1,28 +1,42 @@
 package mate.academy.carsharing.repository.payment;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import mate.academy.carsharing.model.Payment;
-import mate.academy.carsharing.model.Rental;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+public interface PaymentRepository extends JpaRepository<Payment, Long>,
+        JpaSpecificationExecutor<Payment>, PaymentRepositoryCustom {
 
-    Page<Payment> findAll(Specification<Payment> spec, Pageable pageable);
+    @EntityGraph(attributePaths = "rental")
+    Optional<Payment> findBySessionId(String sessionId);
 
-    @Query("SELECT SUM(p.amountToPay) FROM Payment p "
-            + "WHERE p.rental = :rental AND p.status = :paymentStatus")
-    BigDecimal getSumByRentalAndPaymentStatus(Rental rental, Payment.Status paymentStatus);
+    @EntityGraph(attributePaths = {"rental", "rental.car"})
+    Optional<Payment> findWithRentalAndCarById(Long id);
 
-    Optional<Payment> findBySessionId(String sessionId);
+    @Query("SELECT new mate.academy.carsharing.repository.payment.PaymentSession("
+            + "p.id, p.sessionId) FROM Payment p WHERE p.status = :status")
+    List<PaymentSession> findSessionsByStatus(Payment.Status status);
+
+    @Query("SELECT new mate.academy.carsharing.repository.payment.PaymentSession("
+            + "p.id, p.sessionId) FROM Payment p "
+            + "WHERE p.status = :status AND MOD(p.id, :partitions) = :partition")
+    List<PaymentSession> findSessionsByStatusInPartition(Payment.Status status, int partition,
+            int partitions);
 
-    List<Payment> findAllByStatus(Payment.Status status);
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :newStatus "
+            + "WHERE p.id IN :ids AND p.status = :currentStatus")
+    int updateStatus(Collection<Long> ids, Payment.Status currentStatus,
+            Payment.Status newStatus);
 
-    @Query("SELECT p FROM Payment p WHERE p.status = :paymentStatus AND p.rental.user.id = :userId")
-    List<Payment> getAllByUserIdAndPaymentStatus(Long userId, Payment.Status paymentStatus);
+    @Query("SELECT DISTINCT p.rental.id FROM Payment p WHERE p.id IN :ids")
+    List<Long> findRentalIdsByIdIn(Collection<Long> ids);
 }
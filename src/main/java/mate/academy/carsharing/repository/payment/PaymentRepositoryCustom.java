@@ -0,0 +1,10 @@
+package mate.academy.carsharing.repository.payment;
+
+import java.util.List;
+import mate.academy.carsharing.model.Payment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface PaymentRepositoryCustom {
+    List<PaymentView> findAllViews(Specification<Payment> specification, Pageable pageable);
+}
@@ -0,0 +1,30 @@
+package mate.academy.carsharing.repository.payment;
+
+import jakarta.persistence.criteria.Selection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.model.Payment;
+import mate.academy.carsharing.repository.SpecificationProjector;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+@RequiredArgsConstructor
+public class PaymentRepositoryCustomImpl implements PaymentRepositoryCustom {
+    private final SpecificationProjector specificationProjector;
+
+    @Override
+    public List<PaymentView> findAllViews(Specification<Payment> specification,
+            Pageable pageable) {
+        return specificationProjector.findAll(Payment.class, PaymentView.class,
+                root -> new Selection<?>[] {
+                        root.get("id"),
+                        root.get("rental").get("id"),
+                        root.get("rental").get("user").get("id"),
+                        root.get("status"),
+                        root.get("type"),
+                        root.get("sessionUrl"),
+                        root.get("sessionId"),
+                        root.get("amountToPay")},
+                specification, pageable);
+    }
+}
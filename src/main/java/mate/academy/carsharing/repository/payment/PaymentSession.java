@@ -0,0 +1,6 @@
+package mate.academy.carsharing.repository.payment;
+
+public record PaymentSession(
+        Long paymentId,
+        String sessionId) {
+}
@@ -0,0 +1,16 @@
+package mate.academy.carsharing.repository.payment;
+
+import java.math.BigDecimal;
+import java.net.URL;
+import mate.academy.carsharing.model.Payment;
+
+public record PaymentView(
+        Long id,
+        Long rentalId,
+        Long userId,
+        Payment.Status status,
+        Payment.Type type,
+        URL sessionUrl,
+        String sessionId,
+        BigDecimal amountToPay) {
+}
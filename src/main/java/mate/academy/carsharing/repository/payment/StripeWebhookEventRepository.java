@@ -0,0 +1,7 @@
+package mate.academy.carsharing.repository.payment;
+
+import mate.academy.carsharing.model.StripeWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StripeWebhookEventRepository extends JpaRepository<StripeWebhookEvent, String> {
+}
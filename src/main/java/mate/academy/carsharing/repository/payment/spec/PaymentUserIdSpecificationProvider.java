@@ -3,6 +3,7 @@ package mate.academy.carsharing.repository.payment.spec;
 import jakarta.persistence.criteria.Path;
 import java.util.Arrays;
 import mate.academy.carsharing.model.Payment;
+import mate.academy.carsharing.model.Rental;
 import mate.academy.carsharing.model.User;
 import mate.academy.carsharing.repository.SpecificationProvider;
 import org.springframework.data.jpa.domain.Specification;
@@ -17,7 +18,8 @@ public class PaymentUserIdSpecificationProvider implements SpecificationProvider
 
     public Specification<Payment> getSpecification(String[] params) {
         return (root, query, criteriaBuilder) -> {
-            Path<User> userPath = root.get("user");
+            Path<Rental> rentalPath = root.get("rental");
+            Path<User> userPath = rentalPath.get("user");
             Path<Long> idPath = userPath.get("id");
             return idPath.in(Arrays.stream(params).toArray());
         };
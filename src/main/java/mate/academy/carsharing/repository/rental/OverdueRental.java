@@ -0,0 +1,11 @@
+package mate.academy.carsharing.repository.rental;
+
+import java.time.LocalDate;
+
+public record OverdueRental(
+        Long id,
+        Long carId,
+        Long userId,
+        LocalDate rentalDate,
+        LocalDate returnDate) {
+}
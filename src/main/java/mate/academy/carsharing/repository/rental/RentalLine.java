@@ -0,0 +1,12 @@
+package mate.academy.carsharing.repository.rental;
+
+import java.time.LocalDate;
+
+public record RentalLine(
+        Long id,
+        String carBrand,
+        String carModel,
+        LocalDate rentalDate,
+        LocalDate returnDate,
+        LocalDate actualReturnDate) {
+}
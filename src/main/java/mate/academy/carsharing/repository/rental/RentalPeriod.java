@@ -0,0 +1,13 @@
+package mate.academy.carsharing.repository.rental;
+
+import java.time.LocalDate;
+
+public interface RentalPeriod {
+    Long getCarId();
+
+    LocalDate getRentalDate();
+
+    LocalDate getReturnDate();
+
+    boolean isInventoryReserved();
+}
@@ -1,18 +1,99 @@
 package mate.academy.carsharing.repository.rental;
 
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import mate.academy.carsharing.model.Payment;
 import mate.academy.carsharing.model.Rental;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface RentalRepository extends JpaRepository<Rental, Long> {
+public interface RentalRepository extends JpaRepository<Rental, Long>,
+        JpaSpecificationExecutor<Rental>, RentalRepositoryCustom {
     Optional<Rental> findByIdAndUserId(Long rentalId, Long userId);
 
-    Page<Rental> findAll(Specification<Rental> spec, Pageable pageable);
+    @EntityGraph(attributePaths = "car")
+    Optional<Rental> findWithCarById(Long id);
 
-    List<Rental> findAllByReturnDateBeforeAndActualReturnDateIsNull(LocalDate date);
+    @Query("SELECT new mate.academy.carsharing.repository.rental.OverdueRental("
+            + "r.id, r.car.id, r.user.id, r.rentalDate, r.returnDate) FROM Rental r "
+            + "WHERE r.actualReturnDate IS NULL AND r.returnDate < :date "
+            + "AND (r.user.id > :lastUserId OR (r.user.id = :lastUserId AND r.id > :lastId)) "
+            + "ORDER BY r.user.id, r.id")
+    List<OverdueRental> findOverdueRentalsAfter(LocalDate date, Long lastUserId, Long lastId,
+            Pageable pageable);
+
+    @Query("SELECT new mate.academy.carsharing.repository.rental.RentalLine(r.id, c.brand, "
+            + "c.model, r.rentalDate, r.returnDate, r.actualReturnDate) "
+            + "FROM Rental r LEFT JOIN r.car c "
+            + "WHERE r.user.id = :userId AND r.id < :id ORDER BY r.id DESC")
+    List<RentalLine> findLinesByUserIdBefore(Long userId, Long id, Pageable pageable);
+
+    @Query("SELECT new mate.academy.carsharing.repository.rental.RentalLine(r.id, c.brand, "
+            + "c.model, r.rentalDate, r.returnDate, r.actualReturnDate) "
+            + "FROM Rental r LEFT JOIN r.car c "
+            + "WHERE r.user.id = :userId AND r.id > :id ORDER BY r.id")
+    List<RentalLine> findLinesByUserIdAfter(Long userId, Long id, Pageable pageable);
+
+    @Query("SELECT r.car.id AS carId, r.rentalDate AS rentalDate, r.returnDate AS returnDate, "
+            + "r.inventoryReserved AS inventoryReserved "
+            + "FROM Rental r WHERE r.actualReturnDate IS NULL")
+    List<RentalPeriod> findActiveRentalPeriods();
+
+    @Query("SELECT r.car.id AS carId, r.rentalDate AS rentalDate, r.returnDate AS returnDate, "
+            + "r.inventoryReserved AS inventoryReserved "
+            + "FROM Rental r WHERE r.actualReturnDate IS NULL AND r.car.id = :carId")
+    List<RentalPeriod> findActiveRentalPeriodsByCarId(Long carId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Rental r WHERE r.id = :id")
+    Optional<Rental> findByIdForUpdate(Long id);
+
+    @Query("SELECT new mate.academy.carsharing.repository.rental.StartedRental(r.id, r.car.id) "
+            + "FROM Rental r WHERE r.inventoryReserved = false AND r.rentalDate <= :date "
+            + "AND r.actualReturnDate IS NULL AND r.id > :lastId ORDER BY r.id")
+    List<StartedRental> findUnreservedStartedRentalsAfter(LocalDate date, Long lastId,
+            Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Rental r SET r.inventoryReserved = true "
+            + "WHERE r.id = :id AND r.inventoryReserved = false AND r.actualReturnDate IS NULL")
+    int markInventoryReserved(Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Rental r SET r.paidTotal = r.paidTotal + :paidDelta, "
+            + "r.outstandingTotal = r.outstandingTotal + :outstandingDelta WHERE r.id = :id")
+    int addToTotals(Long id, BigDecimal paidDelta, BigDecimal outstandingDelta);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Rental r SET "
+            + "r.paidTotal = COALESCE((SELECT SUM(p.amountToPay) FROM Payment p "
+            + "WHERE p.rental.id = r.id AND p.status = :paid), 0), "
+            + "r.outstandingTotal = COALESCE((SELECT SUM(p.amountToPay) FROM Payment p "
+            + "WHERE p.rental.id = r.id AND p.status = :pending), 0) "
+            + "WHERE r.id IN :ids")
+    int recalculateTotals(Collection<Long> ids, Payment.Status paid, Payment.Status pending);
+
+    @Query("SELECT DISTINCT r.user.id FROM Rental r WHERE r.id IN :ids")
+    List<Long> findUserIdsByIdIn(Collection<Long> ids);
+
+    @Query("SELECT r.id FROM Rental r WHERE r.id > :lastId AND ("
+            + "r.paidTotal <> COALESCE((SELECT SUM(p.amountToPay) FROM Payment p "
+            + "WHERE p.rental.id = r.id AND p.status = :paid), 0) "
+            + "OR r.outstandingTotal <> COALESCE((SELECT SUM(p.amountToPay) FROM Payment p "
+            + "WHERE p.rental.id = r.id AND p.status = :pending), 0)) "
+            + "ORDER BY r.id")
+    List<Long> findDriftedIdsAfter(Long lastId, Payment.Status paid, Payment.Status pending,
+            Pageable pageable);
 }
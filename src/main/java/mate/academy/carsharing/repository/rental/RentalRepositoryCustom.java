@@ -0,0 +1,12 @@
+package mate.academy.carsharing.repository.rental;
+
+import java.util.List;
+import mate.academy.carsharing.dto.rental.RentalResponseDto;
+import mate.academy.carsharing.model.Rental;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface RentalRepositoryCustom {
+    List<RentalResponseDto> findAllResponseDtos(Specification<Rental> specification,
+            Pageable pageable);
+}
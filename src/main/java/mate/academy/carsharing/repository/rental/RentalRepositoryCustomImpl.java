@@ -0,0 +1,29 @@
+package mate.academy.carsharing.repository.rental;
+
+import jakarta.persistence.criteria.Selection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.dto.rental.RentalResponseDto;
+import mate.academy.carsharing.model.Rental;
+import mate.academy.carsharing.repository.SpecificationProjector;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+@RequiredArgsConstructor
+public class RentalRepositoryCustomImpl implements RentalRepositoryCustom {
+    private final SpecificationProjector specificationProjector;
+
+    @Override
+    public List<RentalResponseDto> findAllResponseDtos(Specification<Rental> specification,
+            Pageable pageable) {
+        return specificationProjector.findAll(Rental.class, RentalResponseDto.class,
+                root -> new Selection<?>[] {
+                        root.get("id"),
+                        root.get("rentalDate"),
+                        root.get("returnDate"),
+                        root.get("actualReturnDate"),
+                        root.get("car").get("id"),
+                        root.get("user").get("id")},
+                specification, pageable);
+    }
+}
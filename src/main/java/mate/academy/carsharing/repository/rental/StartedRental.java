@@ -0,0 +1,6 @@
+package mate.academy.carsharing.repository.rental;
+
+public record StartedRental(
+        Long id,
+        Long carId) {
+}
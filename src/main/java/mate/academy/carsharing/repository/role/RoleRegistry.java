@@ -0,0 +1,55 @@
+package mate.academy.carsharing.repository.role;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.model.Role;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class RoleRegistry {
+    private final RoleRepository roleRepository;
+    private Map<Role.RoleName, Role> rolesByName = Map.of();
+    private Map<Long, Role> rolesById = Map.of();
+
+    // roles are fixed rows, read them once instead of on every lookup
+    @PostConstruct
+    public void load() {
+        Map<Role.RoleName, Role> byName = new EnumMap<>(Role.RoleName.class);
+        Map<Long, Role> byId = new HashMap<>();
+        for (Role role : roleRepository.findAll()) {
+            byName.put(role.getName(), role);
+            byId.put(role.getId(), role);
+        }
+        for (Role.RoleName roleName : Role.RoleName.values()) {
+            if (!byName.containsKey(roleName)) {
+                throw new IllegalStateException("Role is missing in roles table: " + roleName);
+            }
+        }
+        rolesByName = Collections.unmodifiableMap(byName);
+        rolesById = Map.copyOf(byId);
+    }
+
+    public Optional<Role> findByName(Role.RoleName roleName) {
+        return Optional.ofNullable(rolesByName.get(roleName));
+    }
+
+    public Optional<Role> findById(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(rolesById.get(id));
+    }
+
+    public Set<Role> toRoles(int roleMask) {
+        Set<Role> roles = new LinkedHashSet<>();
+        for (Role.RoleName roleName : Role.RoleName.fromMask(roleMask)) {
+            roles.add(rolesByName.get(roleName));
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,7 @@
+package mate.academy.carsharing.repository.telegram;
+
+public interface TelegramChat {
+    Long getUserId();
+
+    Long getChatId();
+}
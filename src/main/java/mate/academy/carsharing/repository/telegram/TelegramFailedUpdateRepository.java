@@ -0,0 +1,8 @@
+package mate.academy.carsharing.repository.telegram;
+
+import mate.academy.carsharing.model.TelegramFailedUpdate;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TelegramFailedUpdateRepository
+        extends JpaRepository<TelegramFailedUpdate, Long> {
+}
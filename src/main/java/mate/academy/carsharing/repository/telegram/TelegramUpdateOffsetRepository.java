@@ -0,0 +1,22 @@
+package mate.academy.carsharing.repository.telegram;
+
+import mate.academy.carsharing.model.TelegramUpdateOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface TelegramUpdateOffsetRepository
+        extends JpaRepository<TelegramUpdateOffset, String> {
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO telegram_update_offsets (bot, last_update_id) "
+            + "VALUES (:bot, 0)", nativeQuery = true)
+    int insertIfAbsent(String bot);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE TelegramUpdateOffset o SET o.lastUpdateId = :updateId "
+            + "WHERE o.bot = :bot AND o.lastUpdateId < :updateId")
+    int advance(String bot, Integer updateId);
+}
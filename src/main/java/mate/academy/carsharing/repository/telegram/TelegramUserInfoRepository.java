@@ -1,11 +1,23 @@
 package mate.academy.carsharing.repository.telegram;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import mate.academy.carsharing.model.TelegramUserInfo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface TelegramUserInfoRepository extends JpaRepository<TelegramUserInfo, Long> {
     Optional<TelegramUserInfo> findByChatId(Long chatId);
 
     Optional<TelegramUserInfo> findByUserId(Long userId);
+
+    @Query("SELECT t.user.id AS userId, t.chatId AS chatId FROM TelegramUserInfo t "
+            + "WHERE t.user.id IN :userIds")
+    List<TelegramChat> findChatsByUserIds(Collection<Long> userIds);
+
+    @Query("SELECT DISTINCT t.chatId FROM TelegramUserInfo t WHERE t.chatId > :lastChatId "
+            + "ORDER BY t.chatId")
+    List<Long> findChatIdsAfter(Long lastChatId, Pageable pageable);
 }
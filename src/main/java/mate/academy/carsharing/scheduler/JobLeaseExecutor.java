@@ -0,0 +1,49 @@
+package mate.academy.carsharing.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.repository.lease.JobLeaseRepository;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class JobLeaseExecutor {
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName()
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private final JobLeaseRepository jobLeaseRepository;
+
+    // lockAtMostFor bounds how long a dead node keeps the job, lockAtLeastFor stops
+    // nodes with a slightly late clock from running the same tick once more
+    public boolean runExclusively(String jobName, Duration lockAtMostFor,
+            Duration lockAtLeastFor, Runnable job) {
+        LocalDateTime startedAt = now();
+        if (!acquire(jobName, startedAt, startedAt.plus(lockAtMostFor))) {
+            log.debug("Job {} is leased by another node, skipping", jobName);
+            return false;
+        }
+        try {
+            job.run();
+        } finally {
+            LocalDateTime finishedAt = now();
+            LocalDateTime minimalLease = startedAt.plus(lockAtLeastFor);
+            jobLeaseRepository.release(jobName, owner,
+                    finishedAt.isAfter(minimalLease) ? finishedAt : minimalLease);
+        }
+        return true;
+    }
+
+    private boolean acquire(String jobName, LocalDateTime now, LocalDateTime lockedUntil) {
+        return jobLeaseRepository.acquire(jobName, owner, now, lockedUntil) == 1
+                || jobLeaseRepository.insertIfAbsent(jobName, owner, now, lockedUntil) == 1;
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,70 @@
+package mate.academy.carsharing.scheduler;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.inventory.CarInventorySharding;
+import mate.academy.carsharing.inventory.StartedRentalReserver;
+import mate.academy.carsharing.ledger.RentalBalanceVerifier;
+import mate.academy.carsharing.service.PaymentService;
+import mate.academy.carsharing.service.RentalService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@RequiredArgsConstructor
+@Component
+public class ScheduledJobs {
+    private static final String OVERDUE_RENTALS_JOB = "checkOverdueRentals";
+    private static final String EXPIRED_SESSIONS_JOB = "checkExpiredStripeSessions-";
+    private static final String RENTAL_BALANCES_JOB = "verifyRentalBalances";
+    private static final String INVENTORY_ROLLUP_JOB = "rollUpInventoryTotals";
+    private static final String STARTED_RENTALS_JOB = "reserveStartedRentals";
+
+    private final JobLeaseExecutor jobLeaseExecutor;
+    private final RentalService rentalService;
+    private final PaymentService paymentService;
+    private final RentalBalanceVerifier rentalBalanceVerifier;
+    private final CarInventorySharding carInventorySharding;
+    private final StartedRentalReserver startedRentalReserver;
+    @Value("${payment.expired-sessions.partitions:1}")
+    private int expiredSessionsPartitions;
+
+    @Scheduled(cron = "0 0 10 * * *")
+    public void checkOverdueRentals() {
+        jobLeaseExecutor.runExclusively(OVERDUE_RENTALS_JOB,
+                Duration.ofHours(1), Duration.ofMinutes(5), rentalService::checkOverdueRentals);
+    }
+
+    // Stripe webhooks update payments, this scan is only a safety net for lost events
+    @Scheduled(cron = "${payment.expired-sessions.cron:0 */30 * * * *}")
+    public void checkExpiredStripeSessions() {
+        // every partition has its own lease, so busy nodes leave the rest to others
+        int partitions = Math.max(1, expiredSessionsPartitions);
+        int first = ThreadLocalRandom.current().nextInt(partitions);
+        for (int i = 0; i < partitions; i++) {
+            int partition = (first + i) % partitions;
+            jobLeaseExecutor.runExclusively(EXPIRED_SESSIONS_JOB + partition,
+                    Duration.ofMinutes(5), Duration.ofSeconds(30),
+                    () -> paymentService.checkExpiredStripeSessions(partition, partitions));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.sharding.rollup-delay:5000}")
+    public void rollUpInventoryTotals() {
+        jobLeaseExecutor.runExclusively(INVENTORY_ROLLUP_JOB, Duration.ofMinutes(1),
+                Duration.ofSeconds(1), carInventorySharding::rollUpTotals);
+    }
+
+    @Scheduled(fixedDelayString = "${rental.inventory.reserve-delay:60000}")
+    public void reserveStartedRentals() {
+        jobLeaseExecutor.runExclusively(STARTED_RENTALS_JOB, Duration.ofMinutes(5),
+                Duration.ofSeconds(10), startedRentalReserver::reserveStartedRentals);
+    }
+
+    @Scheduled(cron = "${rental.balance.verify.cron:0 30 3 * * *}")
+    public void verifyRentalBalances() {
+        jobLeaseExecutor.runExclusively(RENTAL_BALANCES_JOB,
+                Duration.ofHours(1), Duration.ofMinutes(1), rentalBalanceVerifier::verify);
+    }
+}
@@ -0,0 +1,36 @@
+package mate.academy.carsharing.security;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Set;
+import mate.academy.carsharing.model.Role;
+import mate.academy.carsharing.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+public record AuthenticatedUser(
+        Long id,
+        String email,
+        Set<Role.RoleName> roles,
+        int tokenVersion) implements Principal {
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(),
+                Set.copyOf(user.getRoleNames()),
+                user.getTokenVersion());
+    }
+
+    public boolean hasRole(Role.RoleName role) {
+        return roles.contains(role);
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return roles.stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority(role.name()))
+                .toList();
+    }
+}
@@ -3,6 +3,7 @@ package mate.academy.carsharing.security;
 import lombok.RequiredArgsConstructor;
 import mate.academy.carsharing.dto.user.UserLoginRequestDto;
 import mate.academy.carsharing.dto.user.UserLoginResponseDto;
+import mate.academy.carsharing.model.User;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -19,7 +20,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(requestDto.email(), requestDto.password())
         );
-        String token = jwtUtil.generateToken(authentication.getName());
+        String token = jwtUtil.generateToken((User) authentication.getPrincipal());
         return new UserLoginResponseDto(token);
     }
 }
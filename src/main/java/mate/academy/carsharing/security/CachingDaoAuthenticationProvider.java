@@ -0,0 +1,98 @@
+package mate.academy.carsharing.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+// Remembers successful BCrypt verifications for a short time, so HTTP Basic clients don't
+// pay a full hash on every request. Entries hold an HMAC of the presented password and the
+// stored hash under a per-process random key, never the password itself.
+@Component
+public class CachingDaoAuthenticationProvider extends DaoAuthenticationProvider {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final double NANOS_IN_SECOND = 1_000_000_000.0;
+
+    private final SecretKeySpec fingerprintKey;
+    private final Cache<String, String> verifiedCredentials;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong lastVerificationNanos = new AtomicLong();
+
+    public CachingDaoAuthenticationProvider(UserDetailsService userDetailsService,
+            UserDetailsPasswordService userDetailsPasswordService,
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${security.credential-cache.ttl:60s}") Duration credentialCacheTtl) {
+        setUserDetailsService(userDetailsService);
+        setUserDetailsPasswordService(userDetailsPasswordService);
+        setPasswordEncoder(passwordEncoder);
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.fingerprintKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.meterRegistry = meterRegistry;
+        this.verifiedCredentials = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(10_000)
+                        .expireAfterWrite(credentialCacheTtl)
+                        .recordStats()
+                        .<String, String>build(),
+                "verifiedCredentials");
+    }
+
+    public void evict(String username) {
+        verifiedCredentials.invalidate(username);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+            UsernamePasswordAuthenticationToken authentication) {
+        if (authentication.getCredentials() == null) {
+            super.additionalAuthenticationChecks(userDetails, authentication);
+            return;
+        }
+        String fingerprint = fingerprint(authentication.getCredentials().toString(),
+                userDetails.getPassword());
+        if (fingerprint.equals(verifiedCredentials.getIfPresent(userDetails.getUsername()))) {
+            meterRegistry.counter("security.credential-cache.cpu.saved")
+                    .increment(lastVerificationNanos.get() / NANOS_IN_SECOND);
+            return;
+        }
+        long startNanos = System.nanoTime();
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        lastVerificationNanos.set(elapsedNanos);
+        meterRegistry.timer("security.password.verification")
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        verifiedCredentials.put(userDetails.getUsername(), fingerprint);
+    }
+
+    private String fingerprint(String presentedPassword, String storedPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(fingerprintKey);
+            mac.update(presentedPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(
+                    mac.doFinal(storedPassword.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Can't compute credential fingerprint", e);
+        }
+    }
+}
@@ -1,15 +1,17 @@
 package mate.academy.carsharing.security;
 
 import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.model.User;
 import mate.academy.carsharing.repository.user.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
     @Override
@@ -18,4 +20,14 @@ public class CustomUserDetailsService implements UserDetailsService {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Can't find user by email"));
     }
+
+    // called after a successful login when the stored hash uses a weaker BCrypt strength
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.updatePassword(userDetails.getUsername(), newPassword);
+        if (userDetails instanceof User user) {
+            user.setPassword(newPassword);
+        }
+        return userDetails;
+    }
 }
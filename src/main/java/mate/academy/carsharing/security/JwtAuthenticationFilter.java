@@ -1,11 +1,15 @@
 package mate.academy.carsharing.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,6 +24,9 @@ import org.springframework.web.filter.OncePerRequestFilter;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(
@@ -28,17 +35,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
         String token = getToken(request);
-        if (token != null && jwtUtil.isValidToken(token)) {
-            String username = jwtUtil.getUsername(token);
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, userDetails.getAuthorities()
-            );
+        if (token != null) {
+            Claims claims = jwtUtil.parseClaims(token);
+            Optional<AuthenticatedUser> authenticatedUser = stateless
+                    ? jwtUtil.getAuthenticatedUser(claims) : Optional.empty();
+            Authentication authentication = authenticatedUser.isPresent()
+                    ? authenticateFromClaims(authenticatedUser.get())
+                    : authenticateFromDatabase(claims.getSubject());
             SecurityContextHolder.getContext().setAuthentication(authentication);
         }
         filterChain.doFilter(request, response);
     }
 
+    private Authentication authenticateFromClaims(AuthenticatedUser user) {
+        if (!tokenVersionRegistry.isCurrent(user.id(), user.tokenVersion())) {
+            throw new JwtException("Expired or invalid JWT token");
+        }
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    private Authentication authenticateFromDatabase(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities()
+        );
+    }
+
     private String getToken(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
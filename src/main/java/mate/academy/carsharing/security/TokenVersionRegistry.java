@@ -0,0 +1,36 @@
+package mate.academy.carsharing.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import mate.academy.carsharing.repository.user.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Caches the current token version of users for a short time, so stateless tokens are
+// revoked on every node at most one TTL after UserServiceImpl bumps the version.
+@Component
+public class TokenVersionRegistry {
+    private static final int DELETED_USER = -1;
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> tokenVersions;
+
+    public TokenVersionRegistry(UserRepository userRepository,
+            @Value("${jwt.token-version-ttl:30s}") Duration tokenVersionTtl) {
+        this.userRepository = userRepository;
+        this.tokenVersions = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(tokenVersionTtl)
+                .build();
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersions.get(userId, id -> userRepository.findTokenVersionById(id)
+                .orElse(DELETED_USER)) == tokenVersion;
+    }
+
+    public void evict(Long userId) {
+        tokenVersions.invalidate(userId);
+    }
+}
@@ -1,8 +1,12 @@
 package mate.academy.carsharing.service;
 
+import java.time.LocalDate;
 import java.util.List;
+import mate.academy.carsharing.dto.car.CarAvailabilityResponseDto;
 import mate.academy.carsharing.dto.car.CarResponseDto;
 import mate.academy.carsharing.dto.car.CreateCarRequestDto;
+import mate.academy.carsharing.dto.car.ShardCarInventoryRequestDto;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
 import org.springframework.data.domain.Pageable;
 
 public interface CarService {
@@ -15,4 +19,10 @@ public interface CarService {
     CarResponseDto getById(Long id);
 
     List<CarResponseDto> getAll(Pageable pageable);
+
+    SliceResponseDto<CarResponseDto> scroll(Pageable pageable, String cursor);
+
+    CarResponseDto shardInventory(Long id, ShardCarInventoryRequestDto requestDto);
+
+    List<CarAvailabilityResponseDto> findAvailable(LocalDate from, LocalDate to);
 }
@@ -1,7 +1,13 @@
 package mate.academy.carsharing.service;
 
+import java.util.Map;
+
 public interface NotificationService {
     void sendNotification(Long id, String message);
 
+    void sendFailureNotification(Long id, String message);
+
     void sendGlobalNotification(String message);
+
+    void sendNotifications(Map<Long, String> messagesByUserId);
 }
@@ -1,21 +1,35 @@
 package mate.academy.carsharing.service;
 
 import java.util.List;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
 import mate.academy.carsharing.dto.payment.CreatePaymentRequestDto;
 import mate.academy.carsharing.dto.payment.PaymentResponseDto;
 import mate.academy.carsharing.dto.payment.PaymentSearchParametersDto;
+import mate.academy.carsharing.security.AuthenticatedUser;
 import org.springframework.data.domain.Pageable;
 
 public interface PaymentService {
 
     PaymentResponseDto save(CreatePaymentRequestDto requestDto);
 
-    List<PaymentResponseDto> search(String email, PaymentSearchParametersDto searchParameters,
-            Pageable pageable);
+    List<PaymentResponseDto> search(AuthenticatedUser user,
+            PaymentSearchParametersDto searchParameters, Pageable pageable);
+
+    SliceResponseDto<PaymentResponseDto> scroll(AuthenticatedUser user,
+            PaymentSearchParametersDto searchParameters, Pageable pageable, String cursor);
 
     PaymentResponseDto processSuccessfulPayment(String sessionId);
 
     PaymentResponseDto processCanceledPayment(String sessionId);
 
-    PaymentResponseDto renewPaymentSession(Long paymentId, String email);
+    // both return false when no payment has this session
+    boolean markSessionPaid(String sessionId);
+
+    boolean markSessionExpired(String sessionId);
+
+    PaymentResponseDto renewPaymentSession(Long paymentId, AuthenticatedUser user);
+
+    void checkExpiredStripeSessions();
+
+    void checkExpiredStripeSessions(int partition, int partitions);
 }
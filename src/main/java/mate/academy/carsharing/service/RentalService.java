@@ -1,9 +1,12 @@
 package mate.academy.carsharing.service;
 
 import java.util.List;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
 import mate.academy.carsharing.dto.rental.CreateRentalRequestDto;
 import mate.academy.carsharing.dto.rental.RentalResponseDto;
 import mate.academy.carsharing.dto.rental.RentalSearchParametersDto;
+import mate.academy.carsharing.repository.rental.RentalLine;
+import mate.academy.carsharing.security.AuthenticatedUser;
 import org.springframework.data.domain.Pageable;
 
 public interface RentalService {
@@ -12,7 +15,16 @@ public interface RentalService {
     List<RentalResponseDto> searchRentals(
             RentalSearchParametersDto searchParameters, Pageable pageable);
 
-    RentalResponseDto getRentalByIdAndUserEmail(Long id, String email);
+    SliceResponseDto<RentalResponseDto> scrollRentals(
+            RentalSearchParametersDto searchParameters, Pageable pageable, String cursor);
+
+    List<RentalLine> getRentalsBefore(Long userId, Long rentalId, int limit);
+
+    List<RentalLine> getRentalsAfter(Long userId, Long rentalId, int limit);
+
+    RentalResponseDto getRentalByIdAndUser(Long id, AuthenticatedUser user);
 
     RentalResponseDto returnRental(Long id);
+
+    void checkOverdueRentals();
 }
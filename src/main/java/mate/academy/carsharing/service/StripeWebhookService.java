@@ -0,0 +1,5 @@
+package mate.academy.carsharing.service;
+
+public interface StripeWebhookService {
+    void handleEvent(String payload, String signature);
+}
@@ -5,6 +5,7 @@ import mate.academy.carsharing.dto.user.UserResponseDto;
 import mate.academy.carsharing.dto.user.UserResponseDtoWithRoles;
 import mate.academy.carsharing.dto.user.UserUpdateInfoRequestDto;
 import mate.academy.carsharing.dto.user.UserUpdateRoleRequestDto;
+import mate.academy.carsharing.security.AuthenticatedUser;
 
 public interface UserService {
     UserResponseDto register(UserRegistrationRequestDto requestDto);
@@ -12,7 +13,7 @@ public interface UserService {
     UserResponseDtoWithRoles updateUserRole(Long id,
             UserUpdateRoleRequestDto userUpdateRoleRequestDto);
 
-    UserResponseDto updateUserInfo(String email, UserUpdateInfoRequestDto requestDto);
+    UserResponseDto updateUserInfo(AuthenticatedUser user, UserUpdateInfoRequestDto requestDto);
 
-    UserResponseDtoWithRoles getUserInfo(String email);
+    UserResponseDtoWithRoles getUserInfo(AuthenticatedUser user);
 }
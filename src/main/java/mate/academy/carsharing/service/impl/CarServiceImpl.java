@@ -1,43 +1,81 @@
 package mate.academy.carsharing.service.impl;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.config.CacheConfig;
+import mate.academy.carsharing.dto.car.CarAvailabilityResponseDto;
 import mate.academy.carsharing.dto.car.CarResponseDto;
 import mate.academy.carsharing.dto.car.CreateCarRequestDto;
+import mate.academy.carsharing.dto.car.ShardCarInventoryRequestDto;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
+import mate.academy.carsharing.event.CarInventoryChangedEvent;
 import mate.academy.carsharing.exception.EntityNotFoundException;
+import mate.academy.carsharing.exception.RentalException;
+import mate.academy.carsharing.inventory.CarAvailabilityIndex;
+import mate.academy.carsharing.inventory.CarInventorySharding;
 import mate.academy.carsharing.mapper.CarMapper;
 import mate.academy.carsharing.model.Car;
 import mate.academy.carsharing.repository.car.CarRepository;
+import mate.academy.carsharing.repository.keyset.KeysetScroller;
 import mate.academy.carsharing.service.CarService;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
 public class CarServiceImpl implements CarService {
+    private static final Set<String> SCROLLABLE_PROPERTIES =
+            Set.of("brand", "model", "type", "inventory", "dailyFee");
     private final CarRepository carRepository;
     private final CarMapper carMapper;
+    private final KeysetScroller keysetScroller;
+    private final CarInventorySharding carInventorySharding;
+    private final CarAvailabilityIndex carAvailabilityIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.CAR_PAGES_CACHE, allEntries = true)
     public CarResponseDto save(CreateCarRequestDto requestDto) {
-        Car car = carMapper.toModel(requestDto);
-        return carMapper.toDto(carRepository.save(car));
+        Car savedCar = carRepository.save(carMapper.toModel(requestDto));
+        eventPublisher.publishEvent(new CarInventoryChangedEvent(savedCar.getId()));
+        return carMapper.toDto(savedCar);
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CAR_PAGES_CACHE, allEntries = true)
+    })
     public void deleteById(Long id) {
         carRepository.deleteById(id);
+        eventPublisher.publishEvent(new CarInventoryChangedEvent(id));
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CARS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.CAR_PAGES_CACHE, allEntries = true)
+    })
     public CarResponseDto updateById(Long id, CreateCarRequestDto requestDto) {
-        getById(id);
-        Car car = carMapper.toModel(requestDto);
-        car.setId(id);
-        return carMapper.toDto(carRepository.save(car));
+        Car car = carRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Can't find car by id: " + id));
+        carMapper.updateModel(requestDto, car);
+        Car savedCar = carRepository.save(car);
+        // reads the slots with a lock instead of trusting the cached slot count
+        carInventorySharding.resetInventory(id, savedCar.getInventory());
+        eventPublisher.publishEvent(new CarInventoryChangedEvent(id));
+        return carMapper.toDto(savedCar);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CARS_CACHE, key = "#id", sync = true)
     public CarResponseDto getById(Long id) {
         Car car = carRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Can't find car by id: " + id));
@@ -45,9 +83,31 @@ public class CarServiceImpl implements CarService {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CAR_PAGES_CACHE, key = "#pageable", sync = true)
     public List<CarResponseDto> getAll(Pageable pageable) {
         return carRepository.findAll(pageable).stream()
                 .map(carMapper::toDto)
                 .toList();
     }
+
+    @Override
+    public SliceResponseDto<CarResponseDto> scroll(Pageable pageable, String cursor) {
+        return keysetScroller.scroll(carRepository, Specification.where(null), pageable, cursor,
+                        SCROLLABLE_PROPERTIES)
+                .map(carMapper::toDto);
+    }
+
+    @Override
+    public CarResponseDto shardInventory(Long id, ShardCarInventoryRequestDto requestDto) {
+        carInventorySharding.shard(id, requestDto.slots());
+        return getById(id);
+    }
+
+    @Override
+    public List<CarAvailabilityResponseDto> findAvailable(LocalDate from, LocalDate to) {
+        if (!to.isAfter(from)) {
+            throw new RentalException("Return date must be after rental date.");
+        }
+        return carAvailabilityIndex.findAvailable(from, to);
+    }
 }
@@ -2,69 +2,118 @@ package mate.academy.carsharing.service.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
 import mate.academy.carsharing.dto.rental.CreateRentalRequestDto;
 import mate.academy.carsharing.dto.rental.RentalResponseDto;
 import mate.academy.carsharing.dto.rental.RentalSearchParametersDto;
+import mate.academy.carsharing.event.CarInventoryChangedEvent;
+import mate.academy.carsharing.event.RentalsChangedEvent;
 import mate.academy.carsharing.exception.EntityNotFoundException;
 import mate.academy.carsharing.exception.RentalException;
+import mate.academy.carsharing.inventory.CarAvailability;
+import mate.academy.carsharing.inventory.InventoryReservationManager;
+import mate.academy.carsharing.ledger.AccountSummaryLedger;
 import mate.academy.carsharing.mapper.RentalMapper;
 import mate.academy.carsharing.model.Car;
-import mate.academy.carsharing.model.Payment;
 import mate.academy.carsharing.model.Rental;
 import mate.academy.carsharing.model.User;
 import mate.academy.carsharing.repository.car.CarRepository;
-import mate.academy.carsharing.repository.payment.PaymentRepository;
+import mate.academy.carsharing.repository.keyset.KeysetScroller;
+import mate.academy.carsharing.repository.rental.OverdueRental;
+import mate.academy.carsharing.repository.rental.RentalLine;
 import mate.academy.carsharing.repository.rental.RentalRepository;
 import mate.academy.carsharing.repository.rental.RentalSpecificationBuilder;
 import mate.academy.carsharing.repository.user.UserRepository;
+import mate.academy.carsharing.security.AuthenticatedUser;
 import mate.academy.carsharing.service.NotificationService;
 import mate.academy.carsharing.service.RentalService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class RentalServiceImpl implements RentalService {
-    private static final Integer MIN_REQUIRED_CAR_AVAILABLE = 1;
     private static final String THERE_IS_NO_CAR_AVAILABLE_WITH_ID =
             "There is no car available with id: ";
+    private static final Set<String> SCROLLABLE_PROPERTIES = Set.of("rentalDate", "returnDate");
     private final RentalRepository rentalRepository;
     private final UserRepository userRepository;
     private final CarRepository carRepository;
-    private final PaymentRepository paymentRepository;
+    private final AccountSummaryLedger accountSummaryLedger;
     private final RentalMapper rentalMapper;
     private final RentalSpecificationBuilder rentalSpecificationBuilder;
     private final NotificationService notificationService;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KeysetScroller keysetScroller;
+    private final InventoryReservationManager inventoryReservationManager;
+    private final MeterRegistry meterRegistry;
+    @Value("${rental.overdue.chunk-size:500}")
+    private int overdueChunkSize;
 
+    // Read committed, so the checks under the car lock see bookings committed while waiting.
     @Override
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public RentalResponseDto save(CreateRentalRequestDto requestDto) {
-        if (!isAllowedToRentCar(requestDto.userId())) {
+        if (!accountSummaryLedger.isAllowedToRent(requestDto.userId())) {
             throw new RentalException("User can't rent a car. There are expired payments.");
         }
-        Car car = getCarById(requestDto.carId());
-        checkIsCarAvailable(requestDto, car);
-        car.setInventory(car.getInventory() - 1);
+        if (!requestDto.returnDate().isAfter(requestDto.rentalDate())) {
+            throw new RentalException("Return date must be after rental date.");
+        }
+        LocalDate today = LocalDate.now();
+        // a booking for later takes its unit when it starts, see StartedRentalReserver
+        boolean reserved = !requestDto.rentalDate().isAfter(today);
+        // reserve before locking the car, the optimistic strategy updates it in its own transaction
+        if (reserved && !inventoryReservationManager.reserve(requestDto.carId())) {
+            rejectRental(requestDto);
+        }
+        // serializes bookings of the car, the periods below include every booking committed so far
+        Car car = carRepository.findByIdForUpdate(requestDto.carId())
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Can't find car by id: " + requestDto.carId()));
+        int freeUnits = carRepository.findFreeInventory(car.getId()) + (reserved ? 1 : 0);
+        CarAvailability availability = CarAvailability.of(freeUnits,
+                rentalRepository.findActiveRentalPeriodsByCarId(car.getId()));
+        if (availability.availableUnits(requestDto.rentalDate(), requestDto.returnDate(),
+                today) == 0) {
+            rejectRental(requestDto);
+        }
         Rental newRental = rentalMapper.toModel(requestDto);
         newRental.setCar(car);
         newRental.setUser(getUserById(requestDto.userId()));
+        newRental.setInventoryReserved(reserved);
         Rental savedRental = rentalRepository.save(newRental);
+        accountSummaryLedger.rentalOpened(requestDto.userId());
+        eventPublisher.publishEvent(new CarInventoryChangedEvent(car.getId()));
+        eventPublisher.publishEvent(new RentalsChangedEvent(requestDto.userId()));
         RentalResponseDto savedRentalDto = rentalMapper.toDto(savedRental);
         notifyUserWithRentalInfo("Your rental created!\\n", savedRentalDto);
         return savedRentalDto;
     }
 
     @Override
-    public RentalResponseDto getRentalByIdAndUserEmail(Long id, String email) {
-        Rental rental = getRentalByIdAndUserId(id, getUserByEmail(email).getId());
+    public RentalResponseDto getRentalByIdAndUser(Long id, AuthenticatedUser user) {
+        Rental rental = getRentalByIdAndUserId(id, user.id());
         return rentalMapper.toDto(rental);
     }
 
@@ -73,56 +122,107 @@ public class RentalServiceImpl implements RentalService {
             RentalSearchParametersDto searchParameters, Pageable pageable) {
         Specification<Rental> rentalSpecification =
                 rentalSpecificationBuilder.build(searchParameters);
-        return rentalRepository.findAll(rentalSpecification, pageable)
-                .stream()
-                .map(rentalMapper::toDto)
-                .toList();
+        return rentalRepository.findAllResponseDtos(rentalSpecification, pageable);
+    }
+
+    @Override
+    public SliceResponseDto<RentalResponseDto> scrollRentals(
+            RentalSearchParametersDto searchParameters, Pageable pageable, String cursor) {
+        Specification<Rental> rentalSpecification =
+                rentalSpecificationBuilder.build(searchParameters);
+        return keysetScroller.scroll(rentalRepository, rentalSpecification, pageable, cursor,
+                        SCROLLABLE_PROPERTIES)
+                .map(rentalMapper::toDto);
+    }
+
+    @Override
+    public List<RentalLine> getRentalsBefore(Long userId, Long rentalId, int limit) {
+        return rentalRepository.findLinesByUserIdBefore(userId, rentalId,
+                PageRequest.of(0, limit));
+    }
+
+    @Override
+    public List<RentalLine> getRentalsAfter(Long userId, Long rentalId, int limit) {
+        return rentalRepository.findLinesByUserIdAfter(userId, rentalId,
+                PageRequest.of(0, limit));
     }
 
     @Override
     @Transactional
     public RentalResponseDto returnRental(Long id) {
-        Rental rental = getRentalById(id);
+        // locked, so StartedRentalReserver can't take a unit for it while it is being returned
+        Rental rental = rentalRepository.findByIdForUpdate(id).orElseThrow(
+                () -> new EntityNotFoundException("Can't find rental with id: " + id));
         if (Objects.nonNull(rental.getActualReturnDate())) {
             throw new RentalException("Rental with id: " + id + " already returned.");
         }
         Car car = rental.getCar();
-        car.setInventory(car.getInventory() + 1);
+        if (rental.isInventoryReserved()) {
+            inventoryReservationManager.release(car.getId());
+        }
         rental.setActualReturnDate(LocalDate.now());
         Rental savedRental = rentalRepository.save(rental);
+        accountSummaryLedger.rentalReturned(rental.getUser().getId());
+        eventPublisher.publishEvent(new CarInventoryChangedEvent(car.getId()));
+        eventPublisher.publishEvent(new RentalsChangedEvent(rental.getUser().getId()));
         RentalResponseDto savedRentalDto = rentalMapper.toDto(savedRental);
         notifyUserWithRentalInfo("you have just returned the rental!\\n", savedRentalDto);
         return savedRentalDto;
     }
 
-    @Scheduled(cron = "0 0 10 * * *")
+    @Override
     public void checkOverdueRentals() {
+        long startNanos = System.nanoTime();
         LocalDate today = LocalDate.now();
-        List<Rental> overdueRentals =
-                rentalRepository.findAllByReturnDateBeforeAndActualReturnDateIsNull(today);
-        if (overdueRentals.isEmpty()) {
+        Pageable chunk = PageRequest.of(0, overdueChunkSize);
+        List<OverdueRental> pending = new ArrayList<>();
+        Long lastUserId = 0L;
+        Long lastId = 0L;
+        int processed = 0;
+        List<OverdueRental> overdueRentals;
+        do {
+            overdueRentals =
+                    rentalRepository.findOverdueRentalsAfter(today, lastUserId, lastId, chunk);
+            processed += overdueRentals.size();
+            pending.addAll(overdueRentals);
+            if (overdueRentals.size() == overdueChunkSize) {
+                OverdueRental last = overdueRentals.get(overdueRentals.size() - 1);
+                lastUserId = last.userId();
+                lastId = last.id();
+                // rentals of the last user may continue in the next chunk, keep them for later
+                int firstOfLastUser = pending.size() - 1;
+                while (firstOfLastUser > 0
+                        && pending.get(firstOfLastUser - 1).userId().equals(lastUserId)) {
+                    firstOfLastUser--;
+                }
+                notifyAboutOverdueRentals(pending.subList(0, firstOfLastUser));
+                pending = new ArrayList<>(pending.subList(firstOfLastUser, pending.size()));
+            }
+        } while (overdueRentals.size() == overdueChunkSize);
+        notifyAboutOverdueRentals(pending);
+        if (processed == 0) {
             notificationService.sendGlobalNotification("No rentals overdue today!");
-            return;
-        }
-        for (Rental rental : overdueRentals) {
-            String message = createOverdueRentalMessage(rental);
-            notificationService.sendNotification(rental.getUser().getId(), message);
         }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        meterRegistry.counter("rentals.overdue.processed").increment(processed);
+        meterRegistry.timer("rentals.overdue.job").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("Overdue rentals job processed {} rentals in {} ms",
+                processed, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
     }
 
-    private void checkIsCarAvailable(CreateRentalRequestDto requestDto, Car car) {
-        if (car.getInventory() < MIN_REQUIRED_CAR_AVAILABLE) {
-            notificationService.sendNotification(requestDto.userId(),
-                    THERE_IS_NO_CAR_AVAILABLE_WITH_ID + requestDto.carId());
-            throw new RentalException(THERE_IS_NO_CAR_AVAILABLE_WITH_ID + requestDto.carId());
-        }
+    private void notifyAboutOverdueRentals(List<OverdueRental> overdueRentals) {
+        Map<Long, String> messagesByUserId = overdueRentals.stream()
+                .collect(Collectors.groupingBy(OverdueRental::userId, LinkedHashMap::new,
+                        Collectors.mapping(this::createOverdueRentalMessage,
+                                Collectors.joining("\n"))));
+        notificationService.sendNotifications(messagesByUserId);
     }
 
-    private String createOverdueRentalMessage(Rental rental) {
-        return "Overdue rental alert! Rental ID: " + rental.getId()
-                + ", User ID: " + rental.getUser().getId()
-                + ", Car ID: " + rental.getCar().getId()
-                + ", Return Date: " + rental.getReturnDate();
+    private String createOverdueRentalMessage(OverdueRental rental) {
+        return "Overdue rental alert! Rental ID: " + rental.id()
+                + ", User ID: " + rental.userId()
+                + ", Car ID: " + rental.carId()
+                + ", Return Date: " + rental.returnDate();
     }
 
     private void notifyUserWithRentalInfo(String message, RentalResponseDto savedRentalDto) {
@@ -137,12 +237,6 @@ public class RentalServiceImpl implements RentalService {
                 message + stringWithRentalDto);
     }
 
-    private User getUserByEmail(String email) {
-        return userRepository.findByEmail(email).orElseThrow(
-                () -> new EntityNotFoundException("Can't find user with email: " + email)
-        );
-    }
-
     private User getUserById(Long userId) {
         return userRepository.findById(userId).orElseThrow(
                 () -> new EntityNotFoundException("Can't find user by id: " + userId)
@@ -156,21 +250,9 @@ public class RentalServiceImpl implements RentalService {
                 );
     }
 
-    private Rental getRentalById(Long rentalId) {
-        return rentalRepository
-                .findById(rentalId).orElseThrow(
-                        () -> new EntityNotFoundException("Can't find rental with id: " + rentalId)
-                );
-    }
-
-    private Car getCarById(Long id) {
-        return carRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Can't find car by id: " + id));
-    }
-
-    private boolean isAllowedToRentCar(Long userId) {
-        List<Payment> expiredPayments = paymentRepository.getAllByUserIdAndPaymentStatus(userId,
-                Payment.Status.EXPIRED);
-        return expiredPayments.isEmpty();
+    private void rejectRental(CreateRentalRequestDto requestDto) {
+        notificationService.sendFailureNotification(requestDto.userId(),
+                THERE_IS_NO_CAR_AVAILABLE_WITH_ID + requestDto.carId());
+        throw new RentalException(THERE_IS_NO_CAR_AVAILABLE_WITH_ID + requestDto.carId());
     }
 }
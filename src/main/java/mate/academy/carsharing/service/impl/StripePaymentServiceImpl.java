@@ -9,45 +9,54 @@ import java.net.URL;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
 import mate.academy.carsharing.dto.payment.CreatePaymentRequestDto;
 import mate.academy.carsharing.dto.payment.PaymentResponseDto;
 import mate.academy.carsharing.dto.payment.PaymentSearchParametersDto;
 import mate.academy.carsharing.exception.EntityNotFoundException;
 import mate.academy.carsharing.exception.PaymentException;
+import mate.academy.carsharing.ledger.RentalBalanceLedger;
 import mate.academy.carsharing.mapper.PaymentMapper;
 import mate.academy.carsharing.model.Payment;
 import mate.academy.carsharing.model.Rental;
 import mate.academy.carsharing.model.Role;
 import mate.academy.carsharing.model.User;
+import mate.academy.carsharing.repository.keyset.KeysetScroller;
 import mate.academy.carsharing.repository.payment.PaymentRepository;
+import mate.academy.carsharing.repository.payment.PaymentSession;
 import mate.academy.carsharing.repository.payment.PaymentSpecificationBuilder;
 import mate.academy.carsharing.repository.rental.RentalRepository;
-import mate.academy.carsharing.repository.role.RoleRepository;
-import mate.academy.carsharing.repository.user.UserRepository;
+import mate.academy.carsharing.security.AuthenticatedUser;
 import mate.academy.carsharing.service.NotificationService;
 import mate.academy.carsharing.service.PaymentService;
 import mate.academy.carsharing.stripe.StripeSessionProvider;
+import mate.academy.carsharing.stripe.StripeSessionReconciler;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @RequiredArgsConstructor
 @Service
 public class StripePaymentServiceImpl implements PaymentService {
     private static final BigDecimal CONVERT_TO_CENT = BigDecimal.valueOf(100L);
     private static final BigDecimal FINE_MULTIPLIER = BigDecimal.valueOf(1.50);
+    private static final Set<String> SCROLLABLE_PROPERTIES =
+            Set.of("amountToPay", "status", "type");
+    private static final int STATUS_UPDATE_BATCH_SIZE = 500;
 
     private final PaymentRepository paymentRepository;
     private final PaymentMapper paymentMapper;
     private final RentalRepository rentalRepository;
-    private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
     private final NotificationService notificationService;
     private final PaymentSpecificationBuilder paymentSpecificationBuilder;
     private final StripeSessionProvider stripeSessionProvider;
+    private final KeysetScroller keysetScroller;
+    private final StripeSessionReconciler stripeSessionReconciler;
+    private final RentalBalanceLedger rentalBalanceLedger;
 
     @Override
     public PaymentResponseDto save(CreatePaymentRequestDto requestDto) {
@@ -65,29 +74,30 @@ public class StripePaymentServiceImpl implements PaymentService {
         } catch (StripeException | MalformedURLException e) {
             throw new RuntimeException(e);
         }
-        return paymentMapper.toDto(paymentRepository.save(payment));
+        return paymentMapper.toDto(rentalBalanceLedger.open(payment));
     }
 
     @Override
-    public List<PaymentResponseDto> search(String email,
+    public List<PaymentResponseDto> search(AuthenticatedUser user,
             PaymentSearchParametersDto searchParameters, Pageable pageable) {
-        User user = getUserByEmail(email);
-        Role roleManager = getRoleByName(Role.RoleName.ROLE_MANAGER);
-        PaymentSearchParametersDto checkedSearchParameters;
-        if (user.getRoles().contains(roleManager)) {
-            checkedSearchParameters = searchParameters;
-        } else {
-            String[] userIdsArray = {user.getId().toString()};
-            checkedSearchParameters = new PaymentSearchParametersDto(userIdsArray);
-        }
         Specification<Payment> paymentSpecification =
-                paymentSpecificationBuilder.build(checkedSearchParameters);
-        return paymentRepository.findAll(paymentSpecification, pageable)
+                buildSearchSpecification(user, searchParameters);
+        return paymentRepository.findAllViews(paymentSpecification, pageable)
                 .stream()
                 .map(paymentMapper::toDto)
                 .toList();
     }
 
+    @Override
+    public SliceResponseDto<PaymentResponseDto> scroll(AuthenticatedUser user,
+            PaymentSearchParametersDto searchParameters, Pageable pageable, String cursor) {
+        Specification<Payment> paymentSpecification =
+                buildSearchSpecification(user, searchParameters);
+        return keysetScroller.scroll(paymentRepository, paymentSpecification, pageable, cursor,
+                        SCROLLABLE_PROPERTIES, "rental")
+                .map(paymentMapper::toDto);
+    }
+
     @Override
     public PaymentResponseDto processSuccessfulPayment(String sessionId) {
         Payment payment = getPaymentBySessionId(sessionId);
@@ -98,50 +108,64 @@ public class StripePaymentServiceImpl implements PaymentService {
             throw new RuntimeException(e);
         }
         if ("paid".equalsIgnoreCase(session.getPaymentStatus())) {
-            payment.setStatus(Payment.Status.PAID);
-            String message = String.format("Payment with id: %d for the amount: %s successful!",
-                    payment.getId(),
-                    payment.getAmountToPay().divide(CONVERT_TO_CENT, RoundingMode.HALF_UP));
-            notificationService.sendNotification(payment.getRental().getUser().getId(), message);
+            markPaid(payment);
+        }
+        return paymentMapper.toDto(payment);
+    }
+
+    @Override
+    public boolean markSessionPaid(String sessionId) {
+        Optional<Payment> payment = paymentRepository.findBySessionId(sessionId);
+        payment.ifPresent(this::markPaid);
+        return payment.isPresent();
+    }
+
+    @Override
+    public boolean markSessionExpired(String sessionId) {
+        Optional<Payment> payment = paymentRepository.findBySessionId(sessionId);
+        if (payment.isPresent() && payment.get().getStatus() == Payment.Status.PENDING) {
+            rentalBalanceLedger.transition(payment.get(), Payment.Status.EXPIRED);
         }
-        return paymentMapper.toDto(paymentRepository.save(payment));
+        return payment.isPresent();
     }
 
     @Override
     public PaymentResponseDto processCanceledPayment(String sessionId) {
         Payment payment = getPaymentBySessionId(sessionId);
-        payment.setStatus(Payment.Status.CANCEL);
+        rentalBalanceLedger.transition(payment, Payment.Status.CANCEL);
         notificationService.sendNotification(payment.getRental().getUser().getId(),
                 "Payment failure! The payment can be made later within 24 hours!");
-        return paymentMapper.toDto(paymentRepository.save(payment));
+        return paymentMapper.toDto(payment);
     }
 
-    @Scheduled(cron = "0 * * * * *")
+    @Override
     public void checkExpiredStripeSessions() {
-        List<Payment> payments = paymentRepository.findAllByStatus(Payment.Status.PENDING);
-        for (Payment payment : payments) {
-            try {
-                Session session = stripeSessionProvider.retrieveSession(payment.getSessionId());
-                if ("expired".equals(session.getStatus())) {
-                    payment.setStatus(Payment.Status.EXPIRED);
-                    paymentRepository.save(payment);
-                }
-            } catch (StripeException e) {
-                throw new RuntimeException("Can't retrieve session for payment:" + payment, e);
-            }
+        checkExpiredStripeSessions(0, 1);
+    }
+
+    @Override
+    public void checkExpiredStripeSessions(int partition, int partitions) {
+        List<PaymentSession> sessions = partitions == 1
+                ? paymentRepository.findSessionsByStatus(Payment.Status.PENDING)
+                : paymentRepository.findSessionsByStatusInPartition(
+                        Payment.Status.PENDING, partition, partitions);
+        List<Long> expiredPaymentIds = stripeSessionReconciler.findExpiredPaymentIds(sessions);
+        for (int from = 0; from < expiredPaymentIds.size(); from += STATUS_UPDATE_BATCH_SIZE) {
+            rentalBalanceLedger.transitionAll(expiredPaymentIds.subList(from,
+                            Math.min(from + STATUS_UPDATE_BATCH_SIZE, expiredPaymentIds.size())),
+                    Payment.Status.PENDING, Payment.Status.EXPIRED);
         }
     }
 
+    // one transaction, a failed Stripe call rolls the claimed status back
     @Override
-    public PaymentResponseDto renewPaymentSession(Long paymentId, String email) {
-        Payment payment = paymentRepository.findById(paymentId).orElseThrow(
+    @Transactional
+    public PaymentResponseDto renewPaymentSession(Long paymentId, AuthenticatedUser user) {
+        Payment payment = paymentRepository.findWithRentalAndCarById(paymentId).orElseThrow(
                 () -> new EntityNotFoundException("Can't find payment with id: " + paymentId));
         Rental rental = payment.getRental();
-        User userByAuthentication = getUserByEmail(email);
-        User userByRental = rental.getUser();
-        Role roleManager = getRoleByName(Role.RoleName.ROLE_MANAGER);
-        if (!userByAuthentication.getRoles().contains(roleManager)) {
-            if (!userByRental.getEmail().equals(email)) {
+        if (!user.hasRole(Role.RoleName.ROLE_MANAGER)) {
+            if (!rental.getUser().getId().equals(user.id())) {
                 throw new PaymentException("You do not have permission to renew this session");
             }
         }
@@ -151,38 +175,55 @@ public class StripePaymentServiceImpl implements PaymentService {
         if (payment.getStatus().equals(Payment.Status.PENDING)) {
             throw new PaymentException("No need to renew. The session is active");
         }
+        BigDecimal totalSum = calculateTotalSum(rental);
+        // the outstanding total grows by the amount the new session charges
+        payment.setAmountToPay(totalSum);
+        // claimed before Stripe is called, so concurrent renewals can't both open a session
+        if (!rentalBalanceLedger.transition(payment, Payment.Status.PENDING)) {
+            throw new PaymentException("This payment session cannot be renewed");
+        }
         try {
-            Session newSession = stripeSessionProvider
-                    .createStripeSession(calculateTotalSum(rental), "Rental repayment");
-            payment.setStatus(Payment.Status.PENDING);
+            Session newSession =
+                    stripeSessionProvider.createStripeSession(totalSum, "Rental repayment");
             payment.setSessionId(newSession.getId());
             payment.setSessionUrl(new URL(newSession.getUrl()));
             paymentRepository.save(payment);
-            return paymentMapper.toDto(payment);
         } catch (StripeException | MalformedURLException e) {
             throw new RuntimeException(e);
         }
+        return paymentMapper.toDto(payment);
     }
 
-    private Payment getPaymentBySessionId(String sessionId) {
-        return paymentRepository.findBySessionId(sessionId).orElseThrow(
-                () -> new EntityNotFoundException("Can't find payment with session id: "
-                        + sessionId));
+    private Specification<Payment> buildSearchSpecification(AuthenticatedUser user,
+            PaymentSearchParametersDto searchParameters) {
+        PaymentSearchParametersDto checkedSearchParameters;
+        if (user.hasRole(Role.RoleName.ROLE_MANAGER)) {
+            checkedSearchParameters = searchParameters;
+        } else {
+            String[] userIdsArray = {user.id().toString()};
+            checkedSearchParameters = new PaymentSearchParametersDto(userIdsArray);
+        }
+        return paymentSpecificationBuilder.build(checkedSearchParameters);
     }
 
-    private User getUserByEmail(String email) {
-        return userRepository.findByEmail(email).orElseThrow(
-                () -> new EntityNotFoundException("Can't find user with email: " + email));
+    private void markPaid(Payment payment) {
+        if (!rentalBalanceLedger.transition(payment, Payment.Status.PAID)) {
+            return;
+        }
+        String message = String.format("Payment with id: %d for the amount: %s successful!",
+                payment.getId(),
+                payment.getAmountToPay().divide(CONVERT_TO_CENT, RoundingMode.HALF_UP));
+        notificationService.sendNotification(payment.getRental().getUser().getId(), message);
     }
 
-    private Role getRoleByName(Role.RoleName roleName) {
-        return roleRepository.findByName(roleName).orElseThrow(
-                () -> new EntityNotFoundException("Can't find role with name: " + roleName.name())
-        );
+    private Payment getPaymentBySessionId(String sessionId) {
+        return paymentRepository.findBySessionId(sessionId).orElseThrow(
+                () -> new EntityNotFoundException("Can't find payment with session id: "
+                        + sessionId));
     }
 
     private Rental getRentalById(Long rentalId) {
-        return rentalRepository.findById(rentalId).orElseThrow(
+        return rentalRepository.findWithCarById(rentalId).orElseThrow(
                 () -> new EntityNotFoundException("Can't find rental with id: " + rentalId));
     }
 
@@ -205,11 +246,7 @@ public class StripePaymentServiceImpl implements PaymentService {
     }
 
     private BigDecimal calculateTotalSum(Rental rental) {
-        BigDecimal alreadyPaid =
-                paymentRepository.getSumByRentalAndPaymentStatus(rental, Payment.Status.PAID);
-        if (Objects.isNull(alreadyPaid)) {
-            alreadyPaid = BigDecimal.ZERO;
-        }
+        BigDecimal alreadyPaid = rental.getPaidTotal();
         BigDecimal baseSum = rental.getCar().getDailyFee().multiply(CONVERT_TO_CENT)
                 .multiply(BigDecimal.valueOf(ChronoUnit.DAYS.between(
                         rental.getRentalDate(), rental.getReturnDate())));
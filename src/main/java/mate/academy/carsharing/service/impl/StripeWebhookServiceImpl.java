@@ -0,0 +1,102 @@
+package mate.academy.carsharing.service.impl;
+
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.Webhook;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.exception.PaymentException;
+import mate.academy.carsharing.model.StripeWebhookEvent;
+import mate.academy.carsharing.repository.payment.StripeWebhookEventRepository;
+import mate.academy.carsharing.service.PaymentService;
+import mate.academy.carsharing.service.StripeWebhookService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class StripeWebhookServiceImpl implements StripeWebhookService {
+    private static final String SESSION_COMPLETED = "checkout.session.completed";
+    private static final String SESSION_ASYNC_PAYMENT_SUCCEEDED =
+            "checkout.session.async_payment_succeeded";
+    private static final String SESSION_EXPIRED = "checkout.session.expired";
+    private static final String PAID_STATUS = "paid";
+
+    private final StripeWebhookEventRepository stripeWebhookEventRepository;
+    private final PaymentService paymentService;
+    @Value("${STRIPE_WEBHOOK_SECRET:}")
+    private String webhookSecret;
+
+    @Override
+    @Transactional
+    public void handleEvent(String payload, String signature) {
+        Event event = constructEvent(payload, signature);
+        if (stripeWebhookEventRepository.existsById(event.getId())) {
+            log.debug("Stripe event {} was already handled", event.getId());
+            return;
+        }
+        switch (event.getType()) {
+            case SESSION_COMPLETED, SESSION_ASYNC_PAYMENT_SUCCEEDED -> {
+                Session session = getSession(event);
+                if (PAID_STATUS.equalsIgnoreCase(session.getPaymentStatus())
+                        && !paymentService.markSessionPaid(session.getId())) {
+                    logUnknownSession(event, session);
+                }
+            }
+            case SESSION_EXPIRED -> {
+                Session session = getSession(event);
+                if (!paymentService.markSessionExpired(session.getId())) {
+                    logUnknownSession(event, session);
+                }
+            }
+            default -> log.debug("Ignoring Stripe event {} of type {}",
+                    event.getId(), event.getType());
+        }
+        stripeWebhookEventRepository.save(createWebhookEvent(event));
+    }
+
+    // A session replaced by a renewal or created by another environment on the same account.
+    // A retry can't find it either, so the event is acknowledged instead of failing for days.
+    private void logUnknownSession(Event event, Session session) {
+        log.warn("Stripe event {} of type {} refers to unknown session {}, acknowledging it",
+                event.getId(), event.getType(), session.getId());
+    }
+
+    private Event constructEvent(String payload, String signature) {
+        if (webhookSecret.isBlank()) {
+            throw new PaymentException("Stripe webhook secret is not configured");
+        }
+        try {
+            return Webhook.constructEvent(payload, signature, webhookSecret);
+        } catch (SignatureVerificationException e) {
+            throw new PaymentException("Invalid Stripe signature");
+        }
+    }
+
+    private Session getSession(Event event) {
+        EventDataObjectDeserializer deserializer = event.getDataObjectDeserializer();
+        Optional<StripeObject> object = deserializer.getObject();
+        try {
+            // the object is empty when the event API version differs from the library one
+            return (Session) (object.isPresent() ? object.get() : deserializer.deserializeUnsafe());
+        } catch (EventDataObjectDeserializationException e) {
+            throw new PaymentException("Can't read session from Stripe event: " + event.getId());
+        }
+    }
+
+    private StripeWebhookEvent createWebhookEvent(Event event) {
+        StripeWebhookEvent webhookEvent = new StripeWebhookEvent();
+        webhookEvent.setEventId(event.getId());
+        webhookEvent.setType(event.getType());
+        webhookEvent.setReceivedAt(LocalDateTime.now());
+        return webhookEvent;
+    }
+}
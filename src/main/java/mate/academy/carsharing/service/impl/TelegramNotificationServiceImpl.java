@@ -1,38 +1,71 @@
 package mate.academy.carsharing.service.impl;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import mate.academy.carsharing.model.TelegramUserInfo;
+import mate.academy.carsharing.outbox.NotificationOutbox;
+import mate.academy.carsharing.repository.telegram.TelegramChat;
 import mate.academy.carsharing.repository.telegram.TelegramUserInfoRepository;
 import mate.academy.carsharing.service.NotificationService;
 import mate.academy.carsharing.telegram.TelegramMessageEvent;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 @RequiredArgsConstructor
 @Service
 public class TelegramNotificationServiceImpl implements NotificationService {
-    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationOutbox notificationOutbox;
     private final TelegramUserInfoRepository telegramUserInfoRepository;
+    @Value("${notification.broadcast.chunk-size:500}")
+    private int broadcastChunkSize;
 
     @Override
     public void sendNotification(Long id, String message) {
         Optional<TelegramUserInfo> byUserId = telegramUserInfoRepository.findByUserId(id);
         if (byUserId.isPresent()) {
             TelegramUserInfo userInfo = byUserId.get();
-            eventPublisher.publishEvent(
-                    new TelegramMessageEvent(userInfo.getChatId(), message));
+            notificationOutbox.enqueue(userInfo.getChatId(), message);
         }
     }
 
+    // the caller is about to roll back, so the message doesn't join its transaction
+    @Override
+    public void sendFailureNotification(Long id, String message) {
+        telegramUserInfoRepository.findByUserId(id).ifPresent(userInfo ->
+                notificationOutbox.enqueueInNewTransaction(userInfo.getChatId(), message));
+    }
+
     @Override
     public void sendGlobalNotification(String message) {
-        List<TelegramUserInfo> listOfUserInfo = telegramUserInfoRepository.findAll();
-        if (!listOfUserInfo.isEmpty()) {
-            listOfUserInfo.stream()
-                    .map(userInfo -> new TelegramMessageEvent(userInfo.getChatId(), message))
-                    .forEach(eventPublisher::publishEvent);
+        // only chat ids are read, one chunk at a time, so the heap doesn't grow with
+        // the number of subscribers
+        Pageable chunk = PageRequest.of(0, broadcastChunkSize);
+        Long lastChatId = Long.MIN_VALUE;
+        List<Long> chatIds;
+        do {
+            chatIds = telegramUserInfoRepository.findChatIdsAfter(lastChatId, chunk);
+            if (!chatIds.isEmpty()) {
+                notificationOutbox.enqueue(chatIds, message,
+                        TelegramMessageEvent.Priority.BROADCAST);
+                lastChatId = chatIds.get(chatIds.size() - 1);
+            }
+        } while (chatIds.size() == broadcastChunkSize);
+    }
+
+    @Override
+    public void sendNotifications(Map<Long, String> messagesByUserId) {
+        if (messagesByUserId.isEmpty()) {
+            return;
         }
+        notificationOutbox.enqueue(telegramUserInfoRepository
+                .findChatsByUserIds(messagesByUserId.keySet()).stream()
+                .collect(Collectors.toMap(TelegramChat::getChatId,
+                        chat -> messagesByUserId.get(chat.getUserId()),
+                        (first, second) -> first + "\n" + second)));
     }
 }
@@ -1,7 +1,5 @@
 package mate.academy.carsharing.service.impl;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Pattern;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +9,7 @@ import mate.academy.carsharing.repository.user.UserRepository;
 import mate.academy.carsharing.service.TelegramUserService;
 import mate.academy.carsharing.telegram.TelegramMessageEvent;
 import mate.academy.carsharing.telegram.TelegramUserState;
+import mate.academy.carsharing.telegram.TelegramUserStateStore;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
@@ -24,7 +23,7 @@ public class TelegramUserServiceImpl implements TelegramUserService {
     private final TelegramUserInfoRepository telegramUserInfoRepository;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final Map<Long, TelegramUserState> userStates = new HashMap<>();
+    private final TelegramUserStateStore telegramUserStateStore;
 
     @Override
     public void registerNewUser(Long chatId, String username) {
@@ -37,12 +36,12 @@ public class TelegramUserServiceImpl implements TelegramUserService {
                 telegramUserInfoRepository.findByChatId(chatId);
         if (optionalWithTelegramUserInfo.isPresent()) {
             String userFirstName = optionalWithTelegramUserInfo.get().getUser().getFirstName();
-            userStates.put(chatId, new TelegramUserState(chatId, username, false));
+            telegramUserStateStore.put(chatId, new TelegramUserState(chatId, username, false));
             eventPublisher.publishEvent(new TelegramMessageEvent(chatId,
                     "Hi, " + userFirstName + ". I know next commands: '/checkRentals'"));
             return;
         }
-        userStates.put(chatId, new TelegramUserState(chatId, username, false));
+        telegramUserStateStore.put(chatId, new TelegramUserState(chatId, username, false));
         TelegramUserInfo telegramUserInfo = new TelegramUserInfo();
         telegramUserInfo.setChatId(chatId);
         telegramUserInfo.setUser(userRepository.findByEmail(username).get());
@@ -52,12 +51,12 @@ public class TelegramUserServiceImpl implements TelegramUserService {
 
     @Override
     public TelegramUserState getUserState(Long chatId) {
-        return userStates.get(chatId);
+        return telegramUserStateStore.get(chatId);
     }
 
     @Override
     public void addUserState(Long chatId, TelegramUserState state) {
-        userStates.put(chatId, state);
+        telegramUserStateStore.put(chatId, state);
     }
 
     private boolean isEmail(String email) {
@@ -1,6 +1,5 @@
 package mate.academy.carsharing.service.impl;
 
-import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import mate.academy.carsharing.dto.user.UserRegistrationRequestDto;
 import mate.academy.carsharing.dto.user.UserResponseDto;
@@ -12,8 +11,11 @@ import mate.academy.carsharing.exception.RegistrationException;
 import mate.academy.carsharing.mapper.UserMapper;
 import mate.academy.carsharing.model.Role;
 import mate.academy.carsharing.model.User;
-import mate.academy.carsharing.repository.role.RoleRepository;
+import mate.academy.carsharing.repository.role.RoleRegistry;
 import mate.academy.carsharing.repository.user.UserRepository;
+import mate.academy.carsharing.security.AuthenticatedUser;
+import mate.academy.carsharing.security.CachingDaoAuthenticationProvider;
+import mate.academy.carsharing.security.TokenVersionRegistry;
 import mate.academy.carsharing.service.UserService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -24,7 +26,9 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final CachingDaoAuthenticationProvider authenticationProvider;
 
     @Override
     public UserResponseDto register(UserRegistrationRequestDto requestDto) {
@@ -33,9 +37,7 @@ public class UserServiceImpl implements UserService {
         }
         User newUser = userMapper.toModel(requestDto);
         newUser.setPassword(passwordEncoder.encode(requestDto.password()));
-        newUser.setRoles(Set.of(roleRepository.findByName(Role.RoleName.ROLE_CUSTOMER)
-                .orElseThrow(() -> new EntityNotFoundException("Can't find role by name: "
-                        + Role.RoleName.ROLE_CUSTOMER))));
+        newUser.addRole(Role.RoleName.ROLE_CUSTOMER);
         User savedUser = userRepository.save(newUser);
         return userMapper.toDto(savedUser);
     }
@@ -45,15 +47,19 @@ public class UserServiceImpl implements UserService {
             UserUpdateRoleRequestDto userUpdateRoleRequestDto) {
         User user = getUserById(id);
         Role roleToAdd = getRoleByRoleName(userUpdateRoleRequestDto.role().getName());
-        if (user.getRoles().add(roleToAdd)) {
+        if (user.addRole(roleToAdd.getName())) {
+            // tokens issued before the change carry the old roles
+            user.setTokenVersion(user.getTokenVersion() + 1);
             user = userRepository.save(user);
+            tokenVersionRegistry.evict(id);
         }
         return userMapper.toDtoWithRoles(user);
     }
 
     @Override
-    public UserResponseDto updateUserInfo(String email, UserUpdateInfoRequestDto requestDto) {
-        User user = getUserByEmail(email);
+    public UserResponseDto updateUserInfo(AuthenticatedUser authenticatedUser,
+            UserUpdateInfoRequestDto requestDto) {
+        User user = getUserById(authenticatedUser.id());
         String newFirstName = requestDto.firstName();
         if (newFirstName != null && !newFirstName.isBlank()) {
             user.setFirstName(newFirstName);
@@ -66,17 +72,16 @@ public class UserServiceImpl implements UserService {
         if (newPassword != null && !newPassword.isBlank()) {
             user.setPassword(passwordEncoder.encode(newPassword));
         }
-        return userMapper.toDto(userRepository.save(user));
+        UserResponseDto updatedUser = userMapper.toDto(userRepository.save(user));
+        if (newPassword != null && !newPassword.isBlank()) {
+            authenticationProvider.evict(authenticatedUser.email());
+        }
+        return updatedUser;
     }
 
     @Override
-    public UserResponseDtoWithRoles getUserInfo(String email) {
-        return userMapper.toDtoWithRoles(getUserByEmail(email));
-    }
-
-    private User getUserByEmail(String email) {
-        return userRepository.findByEmail(email).orElseThrow(
-                () -> new EntityNotFoundException("Can't find user by email: " + email));
+    public UserResponseDtoWithRoles getUserInfo(AuthenticatedUser user) {
+        return userMapper.toDtoWithRoles(getUserById(user.id()));
     }
 
     private User getUserById(Long id) {
@@ -85,7 +90,7 @@ public class UserServiceImpl implements UserService {
     }
 
     private Role getRoleByRoleName(Role.RoleName roleName) {
-        return roleRepository.findByName(roleName).orElseThrow(
+        return roleRegistry.findByName(roleName).orElseThrow(
                 () -> new EntityNotFoundException("Can't find role with name=" + roleName));
     }
 }
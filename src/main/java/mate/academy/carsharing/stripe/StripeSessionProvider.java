@@ -2,9 +2,11 @@ package mate.academy.carsharing.stripe;
 
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.checkout.SessionCreateParams;
 import com.stripe.param.checkout.SessionCreateParams.LineItem.PriceData;
 import java.math.BigDecimal;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -15,6 +17,8 @@ public class StripeSessionProvider {
     private String successUrl;
     @Value("${STRIPE_CANCEL_LINK}")
     private String cancelUrl;
+    @Value("${stripe.request-timeout:10s}")
+    private Duration requestTimeout;
 
     public Session createStripeSession(
             BigDecimal moneyToPay,
@@ -39,6 +43,10 @@ public class StripeSessionProvider {
     }
 
     public Session retrieveSession(String sessionId) throws StripeException {
-        return Session.retrieve(sessionId);
+        int timeoutMillis = (int) requestTimeout.toMillis();
+        return Session.retrieve(sessionId, RequestOptions.builder()
+                .setConnectTimeout(timeoutMillis)
+                .setReadTimeout(timeoutMillis)
+                .build());
     }
 }
@@ -0,0 +1,95 @@
+package mate.academy.carsharing.stripe;
+
+import com.stripe.exception.StripeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.repository.payment.PaymentSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class StripeSessionReconciler {
+    private static final String EXPIRED_STATUS = "expired";
+
+    private final StripeSessionProvider stripeSessionProvider;
+    private final MeterRegistry meterRegistry;
+    @Value("${payment.reconciliation.concurrency:16}")
+    private int concurrency;
+    @Value("${payment.reconciliation.run-timeout:50s}")
+    private Duration runTimeout;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, task -> {
+            Thread thread = new Thread(task,
+                    "stripe-reconciler-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public List<Long> findExpiredPaymentIds(List<PaymentSession> sessions) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long deadline = System.nanoTime() + runTimeout.toNanos();
+        List<Future<Boolean>> checks = sessions.stream()
+                .map(session -> executor.submit(() -> isExpired(session.sessionId())))
+                .toList();
+        List<Long> expiredPaymentIds = new ArrayList<>();
+        int failures = 0;
+        for (int i = 0; i < checks.size(); i++) {
+            Future<Boolean> check = checks.get(i);
+            try {
+                if (check.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    expiredPaymentIds.add(sessions.get(i).paymentId());
+                }
+            } catch (ExecutionException e) {
+                failures++;
+                log.warn("Can't retrieve session for payment: {}",
+                        sessions.get(i).paymentId(), e.getCause());
+            } catch (TimeoutException e) {
+                // whatever is still queued is left for the next run
+                check.cancel(true);
+                failures++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                checks.forEach(remaining -> remaining.cancel(true));
+                break;
+            }
+        }
+        long elapsedNanos = sample.stop(Timer.builder("payments.reconciliation.run")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        meterRegistry.counter("payments.reconciliation.failures").increment(failures);
+        log.info("Reconciled {} Stripe sessions in {} ms: {} expired, {} failed",
+                sessions.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                expiredPaymentIds.size(), failures);
+        return expiredPaymentIds;
+    }
+
+    private boolean isExpired(String sessionId) throws StripeException {
+        return EXPIRED_STATUS.equals(stripeSessionProvider.retrieveSession(sessionId).getStatus());
+    }
+}
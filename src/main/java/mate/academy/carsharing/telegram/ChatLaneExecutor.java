@@ -0,0 +1,133 @@
+package mate.academy.carsharing.telegram;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Runs the tasks of one chat strictly one after another while different chats run in
+// parallel. A lane gives its worker back after every task, so a chat with a long backlog
+// can't starve the others.
+@Slf4j
+@Component
+public class ChatLaneExecutor {
+    private static final String BUSY_MESSAGE = "Too many pending updates for this chat";
+
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final int maxBacklog;
+    private final Duration shutdownTimeout;
+
+    public ChatLaneExecutor(MeterRegistry meterRegistry,
+            @Value("${telegram.updates.threads:0}") int threads,
+            @Value("${telegram.updates.max-backlog-per-chat:20}") int maxBacklog,
+            @Value("${telegram.updates.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors() * 4;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // holds at most one entry per chat, the backlog itself is bounded per lane
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task,
+                            "telegram-updates-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.meterRegistry = meterRegistry;
+        this.maxBacklog = maxBacklog;
+        this.shutdownTimeout = shutdownTimeout;
+        meterRegistry.gauge("telegram.updates.lanes", lanes, Map::size);
+        meterRegistry.gauge("telegram.updates.active", executor,
+                ThreadPoolExecutor::getActiveCount);
+    }
+
+    public void execute(Long chatId, Runnable task) {
+        long submittedNanos = System.nanoTime();
+        Runnable timedTask = () -> {
+            meterRegistry.timer("telegram.updates.wait").record(
+                    System.nanoTime() - submittedNanos, TimeUnit.NANOSECONDS);
+            task.run();
+        };
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(chatId, Lane::new);
+            synchronized (lane) {
+                if (lane.closed) {
+                    // its worker has just removed it, the next computeIfAbsent creates a new one
+                    continue;
+                }
+                if (lane.tasks.size() >= maxBacklog) {
+                    meterRegistry.counter("telegram.updates.rejected").increment();
+                    throw new ServiceBusyException(BUSY_MESSAGE);
+                }
+                lane.tasks.add(timedTask);
+                if (lane.scheduled) {
+                    return;
+                }
+                lane.scheduled = true;
+            }
+            executor.execute(lane);
+            return;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // let accepted updates finish, they were already acknowledged to Telegram
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Telegram updates of {} chats were not processed before shutdown",
+                    lanes.size());
+            executor.shutdownNow();
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final Long chatId;
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+
+        private Lane(Long chatId) {
+            this.chatId = chatId;
+        }
+
+        @Override
+        public void run() {
+            Runnable task;
+            synchronized (this) {
+                task = tasks.poll();
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                meterRegistry.counter("telegram.updates.failed").increment();
+                log.error("Can't process Telegram update of chatId: {}", chatId, e);
+            }
+            synchronized (this) {
+                if (tasks.isEmpty()) {
+                    closed = true;
+                    lanes.remove(chatId, this);
+                    return;
+                }
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // shutting down, finish the backlog on this worker
+                run();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package mate.academy.carsharing.telegram;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import mate.academy.carsharing.event.RentalsChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+// Rendered /checkRentals pages of each chat. Users flip back and forth through the same few
+// pages, so they are kept for a short while and dropped as soon as a rental of the chat's
+// user is created or returned.
+@Component
+public class RentalPageCache {
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache<Long, Map<String, RentalPage>> pagesByChatId;
+    private final Cache<Long, UserChats> chatsByUserId;
+
+    public RentalPageCache(@Value("${telegram.rental-pages.ttl:1m}") Duration ttl,
+            @Value("${telegram.rental-pages.max-chats:10000}") int maxChats) {
+        this.pagesByChatId = Caffeine.newBuilder()
+                .maximumSize(maxChats)
+                .expireAfterWrite(ttl)
+                .build();
+        // refreshed on every put, so it outlives the pages it points to
+        this.chatsByUserId = Caffeine.newBuilder()
+                .maximumSize(maxChats)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public RentalPage get(Long chatId, String key) {
+        Map<String, RentalPage> pages = pagesByChatId.getIfPresent(chatId);
+        return pages == null ? null : pages.get(key);
+    }
+
+    // read before querying the rentals, put() drops the page if they changed meanwhile
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public void put(Long chatId, Long userId, long renderedAt, String key, RentalPage page) {
+        // runs under the user's entry lock, so it can't slip in after the eviction
+        chatsByUserId.asMap().compute(userId, (id, chats) -> {
+            if (chats != null && chats.changedAt() > renderedAt) {
+                return chats;
+            }
+            UserChats updated = chats == null
+                    ? new UserChats(ConcurrentHashMap.newKeySet(), 0)
+                    : chats;
+            updated.chatIds().add(chatId);
+            pagesByChatId.get(chatId, chat -> new ConcurrentHashMap<>()).put(key, page);
+            return updated;
+        });
+    }
+
+    // Evict only after commit, otherwise the chat could render the old rentals again.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRentalsChanged(RentalsChangedEvent event) {
+        chatsByUserId.asMap().compute(event.userId(), (id, chats) -> {
+            if (chats != null) {
+                pagesByChatId.invalidateAll(chats.chatIds());
+            }
+            return new UserChats(ConcurrentHashMap.newKeySet(), generation.incrementAndGet());
+        });
+    }
+
+    public record RentalPage(String text, InlineKeyboardMarkup keyboard) {
+    }
+
+    // a user can open the bot from several chats, all of them are dropped together
+    private record UserChats(Set<Long> chatIds, long changedAt) {
+    }
+}
@@ -0,0 +1,4 @@
+package mate.academy.carsharing.telegram;
+
+public record TelegramMessageDeliveredEvent(Long outboxMessageId) {
+}
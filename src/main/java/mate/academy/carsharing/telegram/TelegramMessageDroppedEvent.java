@@ -0,0 +1,5 @@
+package mate.academy.carsharing.telegram;
+
+// retryable is false when Telegram refused the message for good, e.g. the bot was blocked
+public record TelegramMessageDroppedEvent(Long outboxMessageId, boolean retryable) {
+}
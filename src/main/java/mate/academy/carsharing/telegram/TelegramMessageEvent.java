@@ -1,4 +1,40 @@
 package mate.academy.carsharing.telegram;
 
-public record TelegramMessageEvent(Long chatId, String message) {
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+// With a callback query the message the pressed button belongs to is edited in place.
+// Messages from the notification outbox carry their row id, the send queue reports back
+// whether they went out.
+public record TelegramMessageEvent(
+        Long chatId,
+        String message,
+        Priority priority,
+        InlineKeyboardMarkup keyboard,
+        CallbackQuery callbackQuery,
+        Long outboxMessageId) {
+    public TelegramMessageEvent(Long chatId, String message) {
+        this(chatId, message, Priority.INTERACTIVE);
+    }
+
+    public TelegramMessageEvent(Long chatId, String message, Priority priority) {
+        this(chatId, message, priority, null, null);
+    }
+
+    public TelegramMessageEvent(Long chatId, String message, Priority priority,
+            InlineKeyboardMarkup keyboard, CallbackQuery callbackQuery) {
+        this(chatId, message, priority, keyboard, callbackQuery, null);
+    }
+
+    public static TelegramMessageEvent fromOutbox(Long outboxMessageId, Long chatId,
+            String message, Priority priority) {
+        return new TelegramMessageEvent(chatId, message, priority, null, null, outboxMessageId);
+    }
+
+    // declaration order is send order, replies to the user go ahead of everything else
+    public enum Priority {
+        INTERACTIVE,
+        NOTIFICATION,
+        BROADCAST
+    }
 }
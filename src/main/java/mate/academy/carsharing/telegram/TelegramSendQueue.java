@@ -0,0 +1,261 @@
+package mate.academy.carsharing.telegram;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.exception.ServiceBusyException;
+import mate.academy.carsharing.ratelimit.TokenBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+// Sends bot messages from one thread paced by a global token bucket and one bucket per chat,
+// Telegram answers 429 above roughly 30 messages a second overall and one a second per chat.
+// Publishers only wait for a slot in the bounded buffer, where lower priorities leave room
+// for replies to users.
+@Slf4j
+@Component
+public class TelegramSendQueue {
+    private static final String BUSY_MESSAGE = "Telegram send queue is full";
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final AbsSender sender;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TokenBucket globalBucket;
+    private final Duration chatPeriod;
+    // idle buckets are full anyway, dropping them keeps memory bounded by active chats
+    private final Cache<Long, TokenBucket> chatBuckets;
+    private final PriorityBlockingQueue<QueuedMessage> ready = new PriorityBlockingQueue<>(64,
+            Comparator.comparing((QueuedMessage message) -> message.event.priority())
+                    .thenComparingLong(message -> message.sequence));
+    private final DelayQueue<QueuedMessage> delayed = new DelayQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final int capacity;
+    private final int interactiveReserve;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Thread senderThread;
+    private volatile long pausedUntilNanos;
+
+    public TelegramSendQueue(AbsSender sender,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${telegram.send.global-rate:30}") int globalRate,
+            @Value("${telegram.send.chat-period:1s}") Duration chatPeriod,
+            @Value("${telegram.send.capacity:10000}") int capacity,
+            @Value("${telegram.send.interactive-reserve:1000}") int interactiveReserve,
+            @Value("${telegram.send.max-attempts:5}") int maxAttempts,
+            @Value("${telegram.send.retry-delay:1s}") Duration retryDelay) {
+        this.sender = sender;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.globalBucket = new TokenBucket(globalRate, Duration.ofSeconds(1), System.nanoTime());
+        this.chatPeriod = chatPeriod;
+        this.chatBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(chatPeriod.multipliedBy(10))
+                .build();
+        this.capacity = capacity;
+        this.interactiveReserve = interactiveReserve;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.senderThread = new Thread(this::run, "telegram-sender");
+        this.senderThread.setDaemon(true);
+        meterRegistry.gauge("telegram.send.queue.depth", depth);
+    }
+
+    @PostConstruct
+    public void start() {
+        senderThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senderThread.interrupt();
+    }
+
+    @EventListener(TelegramMessageEvent.class)
+    public void submit(TelegramMessageEvent event) {
+        int limit = event.priority() == TelegramMessageEvent.Priority.INTERACTIVE
+                ? capacity : capacity - interactiveReserve;
+        if (depth.incrementAndGet() > limit) {
+            depth.decrementAndGet();
+            meterRegistry.counter("telegram.send.rejected",
+                    "priority", event.priority().name()).increment();
+            throw new ServiceBusyException(BUSY_MESSAGE);
+        }
+        ready.add(new QueuedMessage(event, sequence.incrementAndGet(), System.nanoTime()));
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                delayed.drainTo(ready);
+                QueuedMessage message = ready.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (message != null) {
+                    send(message);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in the Telegram sender", e);
+            }
+        }
+    }
+
+    private void send(QueuedMessage message) throws InterruptedException {
+        Long chatId = message.event.chatId();
+        long nowNanos = System.nanoTime();
+        long chatWaitNanos = chatBuckets.get(chatId,
+                id -> new TokenBucket(1, chatPeriod, nowNanos)).tryConsume(nowNanos);
+        if (chatWaitNanos > 0) {
+            delay(message, chatWaitNanos);
+            return;
+        }
+        awaitGlobalToken();
+        try {
+            execute(message.event);
+            depth.decrementAndGet();
+            if (message.event.outboxMessageId() != null) {
+                eventPublisher.publishEvent(
+                        new TelegramMessageDeliveredEvent(message.event.outboxMessageId()));
+            }
+            meterRegistry.counter("telegram.send.sent").increment();
+            meterRegistry.timer("telegram.send.latency", "priority",
+                    message.event.priority().name()).record(
+                    System.nanoTime() - message.enqueuedNanos, TimeUnit.NANOSECONDS);
+        } catch (TelegramApiRequestException e) {
+            Integer retryAfter = e.getParameters() == null
+                    ? null : e.getParameters().getRetryAfter();
+            if (e.getErrorCode() != null && e.getErrorCode() == TOO_MANY_REQUESTS
+                    && retryAfter != null) {
+                // the limit is shared by the whole bot, so nothing else may go out meanwhile
+                long retryAfterNanos = TimeUnit.SECONDS.toNanos(retryAfter);
+                pausedUntilNanos = System.nanoTime() + retryAfterNanos;
+                meterRegistry.counter("telegram.send.throttled").increment();
+                retry(message, retryAfterNanos, e);
+            } else if (e.getErrorCode() == null || e.getErrorCode() >= 500) {
+                retry(message, backoffNanos(message), e);
+            } else {
+                drop(message, e, false);
+            }
+        } catch (TelegramApiException e) {
+            retry(message, backoffNanos(message), e);
+        }
+    }
+
+    private void execute(TelegramMessageEvent event) throws TelegramApiException {
+        CallbackQuery callbackQuery = event.callbackQuery();
+        if (callbackQuery == null) {
+            sender.execute(SendMessage.builder()
+                    .chatId(event.chatId())
+                    .text(event.message())
+                    .replyMarkup(event.keyboard())
+                    .build());
+            return;
+        }
+        sender.execute(EditMessageText.builder()
+                .chatId(event.chatId())
+                .messageId(callbackQuery.getMessage().getMessageId())
+                .text(event.message())
+                .replyMarkup(event.keyboard())
+                .build());
+        try {
+            sender.execute(AnswerCallbackQuery.builder()
+                    .callbackQueryId(callbackQuery.getId())
+                    .build());
+        } catch (TelegramApiException e) {
+            // the message is already edited, the button spinner times out by itself
+            log.debug("Can't answer the callback query of chatId: {}", event.chatId(), e);
+        }
+    }
+
+    private void awaitGlobalToken() throws InterruptedException {
+        long pauseNanos = pausedUntilNanos - System.nanoTime();
+        if (pauseNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+        }
+        long waitNanos;
+        while ((waitNanos = globalBucket.tryConsume(System.nanoTime())) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private long backoffNanos(QueuedMessage message) {
+        return retryDelay.toNanos() << Math.min(message.attempts, 10);
+    }
+
+    private void retry(QueuedMessage message, long delayNanos, TelegramApiException cause) {
+        message.attempts++;
+        if (message.attempts >= maxAttempts) {
+            drop(message, cause, true);
+            return;
+        }
+        delay(message, delayNanos);
+    }
+
+    private void delay(QueuedMessage message, long delayNanos) {
+        message.notBeforeNanos = System.nanoTime() + delayNanos;
+        delayed.add(message);
+    }
+
+    // outbox messages go back to the outbox, which retries them later or marks them failed
+    private void drop(QueuedMessage message, TelegramApiException cause, boolean retryable) {
+        depth.decrementAndGet();
+        meterRegistry.counter("telegram.send.failed").increment();
+        log.warn("Can't send the message to chatId: {} after {} attempts",
+                message.event.chatId(), message.attempts, cause);
+        if (message.event.outboxMessageId() != null) {
+            eventPublisher.publishEvent(new TelegramMessageDroppedEvent(
+                    message.event.outboxMessageId(), retryable));
+        }
+    }
+
+    private static final class QueuedMessage implements Delayed {
+        private final TelegramMessageEvent event;
+        private final long sequence;
+        private final long enqueuedNanos;
+        private int attempts;
+        private long notBeforeNanos;
+
+        private QueuedMessage(TelegramMessageEvent event, long sequence, long enqueuedNanos) {
+            this.event = event;
+            this.sequence = sequence;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(notBeforeNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        // messages of one chat become ready again in the order they were submitted
+        @Override
+        public int compareTo(Delayed other) {
+            QueuedMessage message = (QueuedMessage) other;
+            int byTime = Long.compare(notBeforeNanos, message.notBeforeNanos);
+            return byTime != 0 ? byTime : Long.compare(sequence, message.sequence);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package mate.academy.carsharing.telegram;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.exception.ServiceBusyException;
+import mate.academy.carsharing.model.TelegramFailedUpdate;
+import mate.academy.carsharing.model.TelegramUpdateOffset;
+import mate.academy.carsharing.repository.telegram.TelegramFailedUpdateRepository;
+import mate.academy.carsharing.repository.telegram.TelegramUpdateOffsetRepository;
+import mate.academy.carsharing.service.TelegramUserService;
+import mate.academy.carsharing.telegram.dispatcher.CommandDispatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+// Handles updates of both the long polling and the webhook bot. Telegram delivers an update
+// again until it is acknowledged, so updates up to the offset persisted before the restart
+// and the ones already seen by this instance are skipped. Commands run on the chat's lane,
+// in order for one chat and in parallel across chats.
+// Lanes finish out of order, so the persisted offset is a low-water mark: it only moves past
+// an update once every update accepted before it has finished too. A command that throws is
+// not retried, the update is stored in telegram_failed_updates and the offset moves on.
+// Only the webhook gets an update again when its chat lane is full. The polling library has
+// already moved past it, so there the update is stored like a failed command instead.
+@Slf4j
+@Component
+public class TelegramUpdateHandler {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final TelegramUserService telegramUserService;
+    private final CommandDispatcher commandDispatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TelegramUpdateOffsetRepository telegramUpdateOffsetRepository;
+    private final TelegramFailedUpdateRepository telegramFailedUpdateRepository;
+    private final ObjectMapper objectMapper;
+    private final ChatLaneExecutor chatLaneExecutor;
+    private final MeterRegistry meterRegistry;
+    private final String botUsername;
+    private final Cache<Integer, Boolean> seenUpdates = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+    // accepted updates that have not finished yet, guarded by this
+    private final NavigableSet<Integer> pendingUpdates = new TreeSet<>();
+    private int highestFinished;
+    private int persistedOffset;
+    private volatile int startupOffset;
+
+    public TelegramUpdateHandler(TelegramUserService telegramUserService,
+            CommandDispatcher commandDispatcher,
+            ApplicationEventPublisher eventPublisher,
+            TelegramUpdateOffsetRepository telegramUpdateOffsetRepository,
+            TelegramFailedUpdateRepository telegramFailedUpdateRepository,
+            ObjectMapper objectMapper,
+            ChatLaneExecutor chatLaneExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${TELEGRAM_BOT_USERNAME}") String botUsername) {
+        this.telegramUserService = telegramUserService;
+        this.commandDispatcher = commandDispatcher;
+        this.eventPublisher = eventPublisher;
+        this.telegramUpdateOffsetRepository = telegramUpdateOffsetRepository;
+        this.telegramFailedUpdateRepository = telegramFailedUpdateRepository;
+        this.objectMapper = objectMapper;
+        this.chatLaneExecutor = chatLaneExecutor;
+        this.meterRegistry = meterRegistry;
+        this.botUsername = botUsername;
+    }
+
+    @PostConstruct
+    public void loadOffset() {
+        telegramUpdateOffsetRepository.insertIfAbsent(botUsername);
+        startupOffset = telegramUpdateOffsetRepository.findById(botUsername)
+                .map(TelegramUpdateOffset::getLastUpdateId)
+                .orElse(0);
+        synchronized (this) {
+            highestFinished = startupOffset;
+            persistedOffset = startupOffset;
+        }
+    }
+
+    public void handle(Update update) {
+        handle(update, false);
+    }
+
+    // for the webhook, the rejection fails the request and Telegram delivers the update again
+    public void handleOrReject(Update update) {
+        handle(update, true);
+    }
+
+    private void handle(Update update, boolean rejectWhenBusy) {
+        Integer updateId = update.getUpdateId();
+        if (updateId <= startupOffset
+                || seenUpdates.asMap().putIfAbsent(updateId, Boolean.TRUE) != null) {
+            meterRegistry.counter("telegram.updates.duplicate").increment();
+            return;
+        }
+        Long chatId = getChatId(update);
+        accept(updateId);
+        if (chatId == null) {
+            finish(updateId);
+            return;
+        }
+        try {
+            chatLaneExecutor.execute(chatId, () -> {
+                try {
+                    process(chatId, update);
+                } catch (RuntimeException e) {
+                    // if this throws too the update stays pending and holds the offset back
+                    recordFailure(chatId, update, e);
+                }
+                finish(updateId);
+            });
+        } catch (ServiceBusyException e) {
+            if (!rejectWhenBusy) {
+                recordFailure(chatId, update, e);
+                finish(updateId);
+                return;
+            }
+            // let the redelivered update through
+            synchronized (this) {
+                pendingUpdates.remove(updateId);
+            }
+            seenUpdates.invalidate(updateId);
+            throw e;
+        }
+    }
+
+    private synchronized void accept(Integer updateId) {
+        pendingUpdates.add(updateId);
+    }
+
+    private void finish(Integer updateId) {
+        int lowWaterMark;
+        synchronized (this) {
+            pendingUpdates.remove(updateId);
+            highestFinished = Math.max(highestFinished, updateId);
+            lowWaterMark = pendingUpdates.isEmpty()
+                    ? highestFinished
+                    : Math.min(highestFinished, pendingUpdates.first() - 1);
+            if (lowWaterMark <= persistedOffset) {
+                return;
+            }
+            persistedOffset = lowWaterMark;
+        }
+        telegramUpdateOffsetRepository.advance(botUsername, lowWaterMark);
+    }
+
+    private void recordFailure(Long chatId, Update update, RuntimeException cause) {
+        log.error("Can't process Telegram update {} of chatId: {}",
+                update.getUpdateId(), chatId, cause);
+        TelegramFailedUpdate failedUpdate = new TelegramFailedUpdate();
+        failedUpdate.setBot(botUsername);
+        failedUpdate.setUpdateId(update.getUpdateId());
+        failedUpdate.setChatId(chatId);
+        failedUpdate.setPayload(toJson(update));
+        String error = String.valueOf(cause.getMessage());
+        failedUpdate.setError(error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH)
+                : error);
+        failedUpdate.setFailedAt(LocalDateTime.now());
+        telegramFailedUpdateRepository.save(failedUpdate);
+        // counted by the lane instead when the update could not be stored
+        meterRegistry.counter("telegram.updates.failed").increment();
+    }
+
+    private String toJson(Update update) {
+        try {
+            return objectMapper.writeValueAsString(update);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(update);
+        }
+    }
+
+    private Long getChatId(Update update) {
+        if (update.hasMessage() && update.getMessage().hasText()) {
+            return update.getMessage().getChatId();
+        }
+        if (update.hasCallbackQuery() && update.getCallbackQuery().getData() != null
+                && update.getCallbackQuery().getMessage() != null) {
+            return update.getCallbackQuery().getMessage().getChatId();
+        }
+        return null;
+    }
+
+    private void process(Long chatId, Update update) {
+        if (update.hasCallbackQuery()) {
+            processCallback(chatId, update.getCallbackQuery());
+            return;
+        }
+        String messageText = update.getMessage().getText();
+        if (isAuthorized(chatId, messageText)) {
+            String[] parts = messageText.split("\\s+");
+            String command = parts[0];
+            String[] args = Arrays.copyOfRange(parts, 1, parts.length);
+            commandDispatcher.dispatch(chatId, command, args);
+        }
+    }
+
+    private void processCallback(Long chatId, CallbackQuery callbackQuery) {
+        TelegramUserState state = telegramUserService.getUserState(chatId);
+        // buttons are only sent to registered chats, anything else is stale
+        if (state == null || state.awaitingEmail()) {
+            return;
+        }
+        String[] parts = callbackQuery.getData().split("\\s+");
+        String command = parts[0];
+        String[] args = Arrays.copyOfRange(parts, 1, parts.length);
+        commandDispatcher.dispatchCallback(chatId, callbackQuery, command, args);
+    }
+
+    private boolean isAuthorized(Long chatId, String messageText) {
+        TelegramUserState state = telegramUserService.getUserState(chatId);
+        if (state == null) {
+            telegramUserService.addUserState(chatId, new TelegramUserState(chatId,
+                    "no email yet", true));
+            eventPublisher.publishEvent(
+                    new TelegramMessageEvent(chatId, "Enter your email to verify"));
+            return false;
+        }
+        if (state.awaitingEmail()) {
+            telegramUserService.registerNewUser(chatId, messageText);
+            return false;
+        }
+        return true;
+    }
+}
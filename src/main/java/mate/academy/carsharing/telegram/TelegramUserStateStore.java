@@ -0,0 +1,46 @@
+package mate.academy.carsharing.telegram;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import mate.academy.carsharing.repository.telegram.TelegramUserInfoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Bounded conversation state of bot chats. Registered chats that were evicted or lost on
+// restart are restored from telegram_user_info instead of asking for the email again.
+@Component
+public class TelegramUserStateStore {
+    private final TelegramUserInfoRepository telegramUserInfoRepository;
+    private final Cache<Long, TelegramUserState> userStates;
+
+    public TelegramUserStateStore(TelegramUserInfoRepository telegramUserInfoRepository,
+            MeterRegistry meterRegistry,
+            @Value("${telegram.user-state.max-size:100000}") long maxSize,
+            @Value("${telegram.user-state.idle-timeout:24h}") Duration idleTimeout) {
+        this.telegramUserInfoRepository = telegramUserInfoRepository;
+        this.userStates = CaffeineCacheMetrics.monitor(meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterAccess(idleTimeout)
+                        .recordStats()
+                        .<Long, TelegramUserState>build(),
+                "telegramUserStates");
+    }
+
+    public TelegramUserState get(Long chatId) {
+        return userStates.get(chatId, this::loadRegisteredState);
+    }
+
+    public void put(Long chatId, TelegramUserState state) {
+        userStates.put(chatId, state);
+    }
+
+    private TelegramUserState loadRegisteredState(Long chatId) {
+        return telegramUserInfoRepository.findByChatId(chatId)
+                .map(info -> new TelegramUserState(chatId, info.getUser().getEmail(), false))
+                .orElse(null);
+    }
+}
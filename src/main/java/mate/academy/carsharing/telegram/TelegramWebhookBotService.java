@@ -0,0 +1,44 @@
+package mate.academy.carsharing.telegram;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.bots.TelegramWebhookBot;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+@Profile("telegram_webhook")
+@RequiredArgsConstructor
+@Service
+public class TelegramWebhookBotService extends TelegramWebhookBot {
+    @Value("${TELEGRAM_BOT_TOKEN}")
+    private String botToken;
+    @Value("${TELEGRAM_BOT_USERNAME}")
+    private String botUsername;
+    @Value("${telegram.webhook.path:/api/telegram/webhook}")
+    private String botPath;
+    private final TelegramUpdateHandler telegramUpdateHandler;
+
+    @Override
+    public String getBotToken() {
+        return botToken;
+    }
+
+    // replies go through TelegramSendQueue, so nothing is answered in the webhook response
+    @Override
+    public BotApiMethod<?> onWebhookUpdateReceived(Update update) {
+        telegramUpdateHandler.handleOrReject(update);
+        return null;
+    }
+
+    @Override
+    public String getBotPath() {
+        return botPath;
+    }
+
+    @Override
+    public String getBotUsername() {
+        return botUsername;
+    }
+}
@@ -1,22 +1,43 @@
 package mate.academy.carsharing.telegram.dispatcher;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import mate.academy.carsharing.telegram.dispatcher.handlers.DefaultCommandHandler;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 
 @Component
 public class CommandDispatcher {
+    // anything users type that isn't a known command is tagged the same way
+    private static final String UNKNOWN_COMMAND = "unknown";
+
     private final Map<String, CommandHandler> commandHandlers;
+    private final MeterRegistry meterRegistry;
 
-    public CommandDispatcher(List<CommandHandler> handlers) {
+    public CommandDispatcher(List<CommandHandler> handlers, MeterRegistry meterRegistry) {
         this.commandHandlers = new HashMap<>();
         handlers.forEach(handler -> commandHandlers.put(handler.getCommand(), handler));
+        this.meterRegistry = meterRegistry;
     }
 
     public void dispatch(Long chatId, String command, String[] args) {
-        CommandHandler handler = commandHandlers.getOrDefault(command, new DefaultCommandHandler());
-        handler.handleCommand(chatId, command, args);
+        CommandHandler handler = commandHandlers.get(command);
+        String commandTag = handler != null ? command : UNKNOWN_COMMAND;
+        CommandHandler commandHandler = handler != null ? handler : new DefaultCommandHandler();
+        meterRegistry.timer("telegram.command.latency", "command", commandTag)
+                .record(() -> commandHandler.handleCommand(chatId, command, args));
+    }
+
+    public void dispatchCallback(Long chatId, CallbackQuery callbackQuery, String command,
+            String[] args) {
+        CommandHandler handler = commandHandlers.get(command);
+        if (handler == null) {
+            // a button of a command that no longer exists, nothing to answer with
+            return;
+        }
+        meterRegistry.timer("telegram.command.latency", "command", command)
+                .record(() -> handler.handleCallback(chatId, callbackQuery, args));
     }
 }
@@ -1,7 +1,13 @@
 package mate.academy.carsharing.telegram.dispatcher;
 
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+
 public interface CommandHandler {
     void handleCommand(Long chatId, String command, String[] args);
 
+    // only commands that reply with inline buttons get their presses back
+    default void handleCallback(Long chatId, CallbackQuery callbackQuery, String[] args) {
+    }
+
     String getCommand();
 }
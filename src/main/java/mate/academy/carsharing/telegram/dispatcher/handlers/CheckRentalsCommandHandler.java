@@ -1,75 +1,149 @@
 package mate.academy.carsharing.telegram.dispatcher.handlers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
-import mate.academy.carsharing.dto.rental.RentalResponseDto;
-import mate.academy.carsharing.dto.rental.RentalSearchParametersDto;
 import mate.academy.carsharing.model.TelegramUserInfo;
-import mate.academy.carsharing.model.User;
+import mate.academy.carsharing.repository.rental.RentalLine;
 import mate.academy.carsharing.repository.telegram.TelegramUserInfoRepository;
 import mate.academy.carsharing.service.RentalService;
+import mate.academy.carsharing.telegram.RentalPageCache;
+import mate.academy.carsharing.telegram.RentalPageCache.RentalPage;
 import mate.academy.carsharing.telegram.TelegramMessageEvent;
 import mate.academy.carsharing.telegram.dispatcher.CommandHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 
 @RequiredArgsConstructor
 @Component
 public class CheckRentalsCommandHandler implements CommandHandler {
     private static final String COMMAND = "/checkRentals";
     private static final String CAN_T_FIND_YOR_ACCOUNT = "Can't find yor account in DB :(";
+    private static final String NO_RENTALS = "You don't have rentals";
+    private static final String FIRST_PAGE = "";
+    private static final String NEWER = "newer";
+    private static final String OLDER = "older";
+    private static final String RENTAL_ID = "\\d{1,18}";
     private final RentalService rentalService;
     private final TelegramUserInfoRepository telegramUserInfoRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final ObjectMapper objectMapper;
+    private final RentalPageCache rentalPageCache;
+    @Value("${telegram.rental-pages.size:5}")
+    private int pageSize;
 
     @Override
     public void handleCommand(Long chatId, String command, String[] args) {
-        Optional<TelegramUserInfo> optionalWithTelegramUserInfo =
-                telegramUserInfoRepository.findByChatId(chatId);
-        if (optionalWithTelegramUserInfo.isEmpty()) {
-            eventPublisher.publishEvent(
-                    new TelegramMessageEvent(chatId, CAN_T_FIND_YOR_ACCOUNT));
-            return;
-        }
-        TelegramUserInfo telegramUserInfo = optionalWithTelegramUserInfo.get();
-        User user = telegramUserInfo.getUser();
-
-        String[] userIds = new String[]{user.getId().toString()};
-        String[] isActive = new String[]{""};
-        RentalSearchParametersDto rentalSearchParametersDto =
-                new RentalSearchParametersDto(userIds, isActive);
-        Pageable pageable = PageRequest.of(0, 20);
-        List<RentalResponseDto> allRentals =
-                rentalService.searchRentals(rentalSearchParametersDto, pageable);
+        showPage(chatId, FIRST_PAGE, null);
+    }
 
-        if (allRentals.isEmpty()) {
-            eventPublisher.publishEvent(
-                    new TelegramMessageEvent(chatId, "You don't have rentals"));
+    // buttons carry "newer <first id>" or "older <last id>" of the page they were sent with
+    @Override
+    public void handleCallback(Long chatId, CallbackQuery callbackQuery, String[] args) {
+        if (args.length != 2 || !(NEWER.equals(args[0]) || OLDER.equals(args[0]))
+                || !args[1].matches(RENTAL_ID)) {
             return;
         }
-        List<String> resultList = allRentals.stream()
-                .map(dto -> {
-                    try {
-                        return objectMapper.writerWithDefaultPrettyPrinter()
-                                .writeValueAsString(dto);
-                    } catch (JsonProcessingException e) {
-                        throw new RuntimeException(e);
-                    }
-                })
-                .toList();
-
-        eventPublisher.publishEvent(
-                new TelegramMessageEvent(chatId, resultList.toString()));
+        showPage(chatId, args[0] + " " + args[1], callbackQuery);
     }
 
     @Override
     public String getCommand() {
         return COMMAND;
     }
+
+    private void showPage(Long chatId, String position, CallbackQuery callbackQuery) {
+        RentalPage page = rentalPageCache.get(chatId, position);
+        if (page == null) {
+            Optional<TelegramUserInfo> optionalWithTelegramUserInfo =
+                    telegramUserInfoRepository.findByChatId(chatId);
+            if (optionalWithTelegramUserInfo.isEmpty()) {
+                eventPublisher.publishEvent(
+                        new TelegramMessageEvent(chatId, CAN_T_FIND_YOR_ACCOUNT));
+                return;
+            }
+            Long userId = optionalWithTelegramUserInfo.get().getUser().getId();
+            long generation = rentalPageCache.currentGeneration();
+            page = loadPage(userId, position);
+            if (page == null) {
+                eventPublisher.publishEvent(new TelegramMessageEvent(chatId, NO_RENTALS));
+                return;
+            }
+            rentalPageCache.put(chatId, userId, generation, position, page);
+        }
+        eventPublisher.publishEvent(new TelegramMessageEvent(chatId, page.text(),
+                TelegramMessageEvent.Priority.INTERACTIVE, page.keyboard(), callbackQuery));
+    }
+
+    private RentalPage loadPage(Long userId, String position) {
+        List<RentalLine> rentals;
+        boolean hasNewer;
+        boolean hasOlder;
+        if (position.startsWith(NEWER)) {
+            Long firstId = Long.valueOf(position.substring(NEWER.length() + 1));
+            rentals = new ArrayList<>(
+                    rentalService.getRentalsAfter(userId, firstId, pageSize + 1));
+            hasNewer = rentals.size() > pageSize;
+            hasOlder = true;
+            rentals = new ArrayList<>(rentals.subList(0, Math.min(rentals.size(), pageSize)));
+            Collections.reverse(rentals);
+        } else {
+            Long lastId = position.startsWith(OLDER)
+                    ? Long.valueOf(position.substring(OLDER.length() + 1))
+                    : Long.MAX_VALUE;
+            rentals = rentalService.getRentalsBefore(userId, lastId, pageSize + 1);
+            hasNewer = !FIRST_PAGE.equals(position);
+            hasOlder = rentals.size() > pageSize;
+            rentals = rentals.subList(0, Math.min(rentals.size(), pageSize));
+        }
+        if (rentals.isEmpty()) {
+            return null;
+        }
+        return new RentalPage(render(rentals), createKeyboard(rentals, hasNewer, hasOlder));
+    }
+
+    private String render(List<RentalLine> rentals) {
+        StringBuilder text = new StringBuilder("Your rentals:");
+        for (RentalLine rental : rentals) {
+            text.append("\n\n#").append(rental.id()).append(' ');
+            if (rental.carBrand() == null) {
+                text.append("Removed car");
+            } else {
+                text.append(rental.carBrand()).append(' ').append(rental.carModel());
+            }
+            text.append('\n').append(rental.rentalDate()).append(" - ").append(rental.returnDate());
+            if (rental.actualReturnDate() == null) {
+                text.append(", active");
+            } else {
+                text.append(", returned ").append(rental.actualReturnDate());
+            }
+        }
+        return text.toString();
+    }
+
+    private InlineKeyboardMarkup createKeyboard(List<RentalLine> rentals, boolean hasNewer,
+            boolean hasOlder) {
+        List<InlineKeyboardButton> buttons = new ArrayList<>();
+        if (hasNewer) {
+            buttons.add(createButton("< Newer", NEWER, rentals.get(0).id()));
+        }
+        if (hasOlder) {
+            buttons.add(createButton("Older >", OLDER, rentals.get(rentals.size() - 1).id()));
+        }
+        return buttons.isEmpty() ? null : InlineKeyboardMarkup.builder()
+                .keyboardRow(buttons)
+                .build();
+    }
+
+    private InlineKeyboardButton createButton(String text, String direction, Long rentalId) {
+        return InlineKeyboardButton.builder()
+                .text(text)
+                .callbackData(COMMAND + " " + direction + " " + rentalId)
+                .build();
+    }
 }
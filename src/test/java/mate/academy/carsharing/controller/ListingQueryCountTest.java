@@ -0,0 +1,103 @@
+package mate.academy.carsharing.controller;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Set;
+import mate.academy.carsharing.model.Role;
+import mate.academy.carsharing.security.AuthenticatedUser;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+// statistics are global, keep background pollers quiet while statements are counted
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "notification.outbox.poll-delay=3600000",
+        "inventory.sharding.rollup-delay=3600000"})
+@Sql(scripts = "classpath:sql/controller/rentals/add-rentals-and-payments.sql",
+        executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "classpath:sql/controller/rentals/remove-rentals-and-payments.sql",
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ListingQueryCountTest {
+    private static final long MANAGER_ID = 1L;
+    private static final long CUSTOMER_ID = 2L;
+
+    private static MockMvc mockMvc;
+    private Statistics statistics;
+
+    @BeforeAll
+    static void beforeAll(@Autowired WebApplicationContext applicationContext) {
+        mockMvc = MockMvcBuilders.webAppContextSetup(applicationContext)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @BeforeEach
+    void setUp(@Autowired EntityManagerFactory entityManagerFactory) {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Rental search reads one page with a single statement")
+    void searchRentals_ManyRentals_OneStatement() throws Exception {
+        assertSingleStatement(get("/api/rentals/search")
+                .with(authenticatedAs(MANAGER_ID, Role.RoleName.ROLE_MANAGER)));
+    }
+
+    @Test
+    @DisplayName("Rental scroll reads one slice with a single statement")
+    void scrollRentals_ManyRentals_OneStatement() throws Exception {
+        assertSingleStatement(get("/api/rentals/search/scroll")
+                .param("size", "2")
+                .with(authenticatedAs(MANAGER_ID, Role.RoleName.ROLE_MANAGER)));
+    }
+
+    @Test
+    @DisplayName("Payment search reads one page with a single statement")
+    void searchPayments_ManyPayments_OneStatement() throws Exception {
+        assertSingleStatement(get("/api/payments/search")
+                .with(authenticatedAs(MANAGER_ID, Role.RoleName.ROLE_MANAGER)));
+        assertSingleStatement(get("/api/payments/search")
+                .with(authenticatedAs(CUSTOMER_ID, Role.RoleName.ROLE_CUSTOMER)));
+    }
+
+    @Test
+    @DisplayName("Payment scroll reads one slice with a single statement")
+    void scrollPayments_ManyPayments_OneStatement() throws Exception {
+        assertSingleStatement(get("/api/payments/search/scroll")
+                .param("size", "2")
+                .with(authenticatedAs(MANAGER_ID, Role.RoleName.ROLE_MANAGER)));
+    }
+
+    private void assertSingleStatement(MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request)
+                .andExpect(status().isOk());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private static RequestPostProcessor authenticatedAs(long userId, Role.RoleName role) {
+        AuthenticatedUser user =
+                new AuthenticatedUser(userId, "user" + userId + "@mail.com", Set.of(role), 0);
+        return authentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
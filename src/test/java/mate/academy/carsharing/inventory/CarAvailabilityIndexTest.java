@@ -0,0 +1,87 @@
+package mate.academy.carsharing.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import mate.academy.carsharing.dto.car.CarAvailabilityResponseDto;
+import mate.academy.carsharing.event.CarInventoryChangedEvent;
+import mate.academy.carsharing.repository.car.CarRepository;
+import mate.academy.carsharing.repository.car.CarStock;
+import mate.academy.carsharing.repository.rental.RentalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CarAvailabilityIndexTest {
+    private static final LocalDate FROM = LocalDate.now();
+    private static final LocalDate TO = FROM.plusDays(3);
+
+    @Mock
+    private CarRepository carRepository;
+    @Mock
+    private RentalRepository rentalRepository;
+    private CarAvailabilityIndex carAvailabilityIndex;
+
+    @BeforeEach
+    void setUp() {
+        carAvailabilityIndex = new CarAvailabilityIndex(carRepository, rentalRepository);
+    }
+
+    @Test
+    @DisplayName("rebuild() keeps a car reloaded after its snapshot was read")
+    void rebuild_CarChangedWhileReading_KeepsNewerEntry() {
+        when(rentalRepository.findActiveRentalPeriods()).thenAnswer(invocation -> {
+            // a rental of car 1 is returned and car 2 is created while the snapshot is read
+            carAvailabilityIndex.onCarInventoryChanged(new CarInventoryChangedEvent(1L));
+            carAvailabilityIndex.onCarInventoryChanged(new CarInventoryChangedEvent(2L));
+            return List.of();
+        });
+        when(carRepository.findProjectedById(1L)).thenReturn(Optional.of(stock(1L, 3)));
+        when(carRepository.findProjectedById(2L)).thenReturn(Optional.of(stock(2L, 1)));
+        when(rentalRepository.findActiveRentalPeriodsByCarId(1L)).thenReturn(List.of());
+        when(rentalRepository.findActiveRentalPeriodsByCarId(2L)).thenReturn(List.of());
+        when(carRepository.findAllProjectedBy()).thenReturn(List.of(stock(1L, 2)));
+
+        carAvailabilityIndex.rebuild();
+
+        assertEquals(List.of(new CarAvailabilityResponseDto(1L, 3),
+                        new CarAvailabilityResponseDto(2L, 1)),
+                carAvailabilityIndex.findAvailable(FROM, TO));
+    }
+
+    @Test
+    @DisplayName("rebuild() does not bring back a car removed while its snapshot was read")
+    void rebuild_CarRemovedWhileReading_StaysRemoved() {
+        when(rentalRepository.findActiveRentalPeriods()).thenAnswer(invocation -> {
+            carAvailabilityIndex.onCarInventoryChanged(new CarInventoryChangedEvent(1L));
+            return List.of();
+        });
+        when(carRepository.findProjectedById(1L)).thenReturn(Optional.empty());
+        when(carRepository.findAllProjectedBy()).thenReturn(List.of(stock(1L, 2)));
+
+        carAvailabilityIndex.rebuild();
+
+        assertEquals(List.of(), carAvailabilityIndex.findAvailable(FROM, TO));
+    }
+
+    private CarStock stock(Long id, int inventory) {
+        return new CarStock() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getInventory() {
+                return inventory;
+            }
+        };
+    }
+}
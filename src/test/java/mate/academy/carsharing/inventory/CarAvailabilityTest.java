@@ -0,0 +1,85 @@
+package mate.academy.carsharing.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.List;
+import mate.academy.carsharing.repository.rental.RentalPeriod;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CarAvailabilityTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Test
+    @DisplayName("availableUnits() counts only rentals overlapping the period")
+    void availableUnits_WithOverlappingRentals_ReturnFreeUnits() {
+        CarAvailability availability = CarAvailability.of(1, List.of(
+                period(TODAY, TODAY.plusDays(3)),
+                period(TODAY.plusDays(5), TODAY.plusDays(7))));
+
+        assertEquals(2, availability.availableUnits(TODAY, TODAY.plusDays(3)));
+        assertEquals(3, availability.availableUnits(TODAY.plusDays(3), TODAY.plusDays(5)));
+        assertEquals(2, availability.availableUnits(TODAY.plusDays(4), TODAY.plusDays(6)));
+        assertEquals(3, availability.availableUnits(TODAY.plusDays(7), TODAY.plusDays(9)));
+    }
+
+    @Test
+    @DisplayName("availableUnits() keeps overdue rental busy until it is returned")
+    void availableUnits_WithOverdueRental_KeepsUnitBusy() {
+        CarAvailability availability = CarAvailability.of(0, List.of(
+                period(TODAY.minusDays(5), TODAY.minusDays(1))));
+
+        assertEquals(0, availability.availableUnits(TODAY.plusDays(30), TODAY.plusDays(31)));
+    }
+
+    @Test
+    @DisplayName("availableUnits() decides overdue rentals on the date it is asked")
+    void availableUnits_WithRentalDueAfterSnapshot_KeepsUnitBusyOnceOverdue() {
+        CarAvailability availability = CarAvailability.of(0, List.of(
+                period(TODAY, TODAY.plusDays(2))));
+
+        assertEquals(1, availability.availableUnits(TODAY.plusDays(5), TODAY.plusDays(6), TODAY));
+        assertEquals(0, availability.availableUnits(TODAY.plusDays(5), TODAY.plusDays(6),
+                TODAY.plusDays(3)));
+    }
+
+    @Test
+    @DisplayName("availableUnits() counts bookings that didn't take a unit yet")
+    void availableUnits_WithFutureBooking_LeavesCounterUnitForEarlierPeriod() {
+        CarAvailability availability = CarAvailability.of(1, List.of(
+                period(TODAY.plusDays(30), TODAY.plusDays(35), false)));
+
+        assertEquals(1, availability.availableUnits(TODAY, TODAY.plusDays(5), TODAY));
+        assertEquals(0, availability.availableUnits(TODAY, TODAY.plusDays(31), TODAY));
+    }
+
+    private RentalPeriod period(LocalDate rentalDate, LocalDate returnDate) {
+        return period(rentalDate, returnDate, true);
+    }
+
+    private RentalPeriod period(LocalDate rentalDate, LocalDate returnDate,
+            boolean inventoryReserved) {
+        return new RentalPeriod() {
+            @Override
+            public Long getCarId() {
+                return 1L;
+            }
+
+            @Override
+            public LocalDate getRentalDate() {
+                return rentalDate;
+            }
+
+            @Override
+            public LocalDate getReturnDate() {
+                return returnDate;
+            }
+
+            @Override
+            public boolean isInventoryReserved() {
+                return inventoryReserved;
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package mate.academy.carsharing.inventory;
+
+import static mate.academy.carsharing.util.TestUtils.createValidCar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import mate.academy.carsharing.model.Car;
+import mate.academy.carsharing.model.CarInventorySlot;
+import mate.academy.carsharing.repository.car.CarInventorySlotRepository;
+import mate.academy.carsharing.repository.car.CarRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Run with: mvn test -Dtest=InventoryReservationBenchmarkTest -Dinventory.benchmark=true
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "inventory.benchmark", matches = "true")
+class InventoryReservationBenchmarkTest {
+    private static final int THREADS = 32;
+    private static final int STRESS_THREADS = 64;
+    private static final int RENTALS_PER_THREAD = 50;
+    private static final int INITIAL_INVENTORY = 1000;
+    private static final int SLOTS = 16;
+
+    @Autowired
+    private InventoryReservationManager inventoryReservationManager;
+    @Autowired
+    private CarInventorySharding carInventorySharding;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private CarInventorySlotRepository carInventorySlotRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"atomic", "optimistic", "pessimistic"})
+    @DisplayName("Reservation strategy never oversells a hot car")
+    void reserve_HotCarUnderContention_KeepsInventoryConsistent(String strategyKey)
+            throws Exception {
+        Long carId = createCar();
+
+        Result result = run(inventoryReservationManager.getStrategy(strategyKey), carId, THREADS);
+
+        log.info(result.describe(strategyKey));
+        int inventoryLeft = carRepository.findById(carId).orElseThrow().getInventory();
+        assertTrue(inventoryLeft >= 0);
+        assertEquals(INITIAL_INVENTORY - result.reserved(), inventoryLeft);
+        carRepository.deleteById(carId);
+    }
+
+    @Test
+    @DisplayName("Sharded inventory never oversells a hot car under 64 concurrent renters")
+    void reserve_ShardedHotCarUnderContention_KeepsInventoryConsistent() throws Exception {
+        Long singleRowCarId = createCar();
+        Long shardedCarId = createCar();
+        carInventorySharding.shard(shardedCarId, SLOTS);
+
+        Result singleRow = run(inventoryReservationManager.getStrategy("atomic"),
+                singleRowCarId, STRESS_THREADS);
+        Result sharded = run(inventoryReservationManager.getStrategy("sharded"),
+                shardedCarId, STRESS_THREADS);
+
+        log.info(singleRow.describe("single-row"));
+        log.info(sharded.describe("sharded/" + SLOTS));
+        int slotsLeft = carInventorySlotRepository.findAll().stream()
+                .filter(slot -> slot.getCarId().equals(shardedCarId))
+                .mapToInt(CarInventorySlot::getInventory)
+                .sum();
+        assertEquals(INITIAL_INVENTORY - sharded.reserved(), slotsLeft);
+        carInventorySharding.rollUpTotals();
+        assertEquals(slotsLeft,
+                carRepository.findById(shardedCarId).orElseThrow().getInventory());
+        carRepository.deleteById(singleRowCarId);
+        carRepository.deleteById(shardedCarId);
+    }
+
+    private Long createCar() {
+        Car car = createValidCar();
+        car.setId(null);
+        car.setInventory(INITIAL_INVENTORY);
+        return carRepository.save(car).getId();
+    }
+
+    private Result run(InventoryReservationStrategy strategy, Long carId, int threads)
+            throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> renters = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            renters.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < RENTALS_PER_THREAD; j++) {
+                    try {
+                        Boolean result = transactionTemplate.execute(
+                                status -> strategy.reserve(carId));
+                        (Boolean.TRUE.equals(result) ? reserved : soldOut).incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> renter : renters) {
+            renter.get();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        executor.shutdown();
+        return new Result(reserved.get(), soldOut.get(), failed.get(),
+                threads * RENTALS_PER_THREAD, seconds);
+    }
+
+    private record Result(int reserved, int soldOut, int failed, int attempts, double seconds) {
+        String describe(String name) {
+            return String.format("%-12s %8.1f rentals/s, reserved %d, sold out %d, "
+                    + "failed %d (%.1f%%)", name, reserved / seconds, reserved, soldOut,
+                    failed, 100.0 * failed / attempts);
+        }
+    }
+}
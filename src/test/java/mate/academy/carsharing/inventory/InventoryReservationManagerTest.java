@@ -0,0 +1,72 @@
+package mate.academy.carsharing.inventory;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import mate.academy.carsharing.inventory.strategy.ShardedReservationStrategy;
+import mate.academy.carsharing.repository.car.CarRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryReservationManagerTest {
+    private static final Long CAR_ID = 1L;
+
+    @Mock
+    private InventoryReservationStrategy atomicStrategy;
+    @Mock
+    private CarRepository carRepository;
+    @Mock
+    private CarInventorySharding carInventorySharding;
+    @Mock
+    private ShardedReservationStrategy shardedReservationStrategy;
+    private InventoryReservationManager inventoryReservationManager;
+
+    @BeforeEach
+    void setUp() {
+        when(atomicStrategy.getKey()).thenReturn("atomic");
+        inventoryReservationManager = new InventoryReservationManager(List.of(atomicStrategy),
+                carRepository, carInventorySharding, shardedReservationStrategy, "atomic");
+    }
+
+    @Test
+    @DisplayName("reserve() uses the slots when the cached slot count predates a sharding")
+    void reserve_StaleSlotCount_ReservesFromSlots() {
+        when(carInventorySharding.isSharded(CAR_ID)).thenReturn(false);
+        when(atomicStrategy.reserve(CAR_ID)).thenReturn(false);
+        when(carInventorySharding.refreshSlotCount(CAR_ID)).thenReturn(4);
+        when(shardedReservationStrategy.reserve(CAR_ID)).thenReturn(true);
+
+        Assertions.assertTrue(inventoryReservationManager.reserve(CAR_ID));
+    }
+
+    @Test
+    @DisplayName("reserve() reports a sold out car that has no slots")
+    void reserve_SoldOutCar_ReturnsFalse() {
+        when(carInventorySharding.isSharded(CAR_ID)).thenReturn(false);
+        when(atomicStrategy.reserve(CAR_ID)).thenReturn(false);
+        when(carInventorySharding.refreshSlotCount(CAR_ID)).thenReturn(0);
+
+        Assertions.assertFalse(inventoryReservationManager.reserve(CAR_ID));
+        verify(shardedReservationStrategy, never()).reserve(CAR_ID);
+    }
+
+    @Test
+    @DisplayName("release() returns the unit to a slot when the car row refuses it")
+    void release_StaleSlotCount_ReleasesToSlots() {
+        when(carInventorySharding.isSharded(CAR_ID)).thenReturn(false);
+        when(carRepository.incrementInventory(CAR_ID)).thenReturn(0);
+        when(shardedReservationStrategy.release(CAR_ID)).thenReturn(true);
+
+        inventoryReservationManager.release(CAR_ID);
+
+        verify(shardedReservationStrategy).release(CAR_ID);
+    }
+}
@@ -0,0 +1,86 @@
+package mate.academy.carsharing.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import mate.academy.carsharing.event.CarInventoryChangedEvent;
+import mate.academy.carsharing.repository.car.CarRepository;
+import mate.academy.carsharing.repository.rental.RentalRepository;
+import mate.academy.carsharing.repository.rental.StartedRental;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+class StartedRentalReserverTest {
+    private static final Long RENTAL_ID = 7L;
+    private static final Long CAR_ID = 1L;
+
+    @Mock
+    private RentalRepository rentalRepository;
+    @Mock
+    private CarRepository carRepository;
+    @Mock
+    private InventoryReservationManager inventoryReservationManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TransactionStatus transactionStatus;
+    private StartedRentalReserver startedRentalReserver;
+
+    @BeforeEach
+    void setUp() {
+        startedRentalReserver = new StartedRentalReserver(rentalRepository, carRepository,
+                inventoryReservationManager, eventPublisher, transactionManager, 500);
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(rentalRepository.findUnreservedStartedRentalsAfter(
+                any(LocalDate.class), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(new StartedRental(RENTAL_ID, CAR_ID)));
+    }
+
+    @Test
+    @DisplayName("reserveStartedRentals() takes a unit for a booking that has started")
+    void reserveStartedRentals_WithFreeUnit_MarksRentalReserved() {
+        when(inventoryReservationManager.reserve(CAR_ID)).thenReturn(true);
+        when(rentalRepository.markInventoryReserved(RENTAL_ID)).thenReturn(1);
+
+        assertEquals(1, startedRentalReserver.reserveStartedRentals());
+        verify(carRepository).findByIdForUpdate(CAR_ID);
+        verify(eventPublisher).publishEvent(new CarInventoryChangedEvent(CAR_ID));
+    }
+
+    @Test
+    @DisplayName("reserveStartedRentals() leaves the booking waiting while no unit is free")
+    void reserveStartedRentals_WithoutFreeUnit_LeavesRentalUnreserved() {
+        when(inventoryReservationManager.reserve(CAR_ID)).thenReturn(false);
+
+        assertEquals(0, startedRentalReserver.reserveStartedRentals());
+        verify(rentalRepository, never()).markInventoryReserved(anyLong());
+    }
+
+    @Test
+    @DisplayName("reserveStartedRentals() rolls the unit back when the rental was returned")
+    void reserveStartedRentals_WithReturnedRental_RollsBack() {
+        when(inventoryReservationManager.reserve(CAR_ID)).thenReturn(true);
+        when(rentalRepository.markInventoryReserved(RENTAL_ID)).thenReturn(0);
+
+        assertEquals(0, startedRentalReserver.reserveStartedRentals());
+        verify(transactionStatus).setRollbackOnly();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+}
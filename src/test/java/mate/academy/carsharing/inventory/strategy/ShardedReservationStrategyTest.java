@@ -0,0 +1,49 @@
+package mate.academy.carsharing.inventory.strategy;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import mate.academy.carsharing.inventory.CarInventorySharding;
+import mate.academy.carsharing.repository.car.CarInventorySlotRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedReservationStrategyTest {
+    private static final Long CAR_ID = 1L;
+
+    @Mock
+    private CarInventorySlotRepository carInventorySlotRepository;
+    @Mock
+    private CarInventorySharding carInventorySharding;
+    @InjectMocks
+    private ShardedReservationStrategy shardedReservationStrategy;
+
+    @Test
+    @DisplayName("release() falls back to slot 0 when the chosen slot no longer exists")
+    void release_SlotRemovedByReshard_ReleasesToFirstSlot() {
+        when(carInventorySharding.getSlotCount(CAR_ID)).thenReturn(8);
+        when(carInventorySlotRepository.incrementInventory(eq(CAR_ID), anyInt())).thenReturn(0, 1);
+        when(carInventorySharding.refreshSlotCount(CAR_ID)).thenReturn(2);
+
+        Assertions.assertTrue(shardedReservationStrategy.release(CAR_ID));
+        verify(carInventorySlotRepository, atLeastOnce()).incrementInventory(CAR_ID, 0);
+    }
+
+    @Test
+    @DisplayName("reserve() refuses a car whose slots have just been removed")
+    void reserve_NoSlots_ReturnsFalse() {
+        when(carInventorySharding.getSlotCount(CAR_ID)).thenReturn(0);
+        when(carInventorySharding.refreshSlotCount(CAR_ID)).thenReturn(0);
+
+        Assertions.assertFalse(shardedReservationStrategy.reserve(CAR_ID));
+    }
+}
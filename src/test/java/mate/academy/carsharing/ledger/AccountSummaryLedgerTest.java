@@ -0,0 +1,105 @@
+package mate.academy.carsharing.ledger;
+
+import static mate.academy.carsharing.util.TestUtils.VALID_ID;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import mate.academy.carsharing.model.AccountSummary;
+import mate.academy.carsharing.model.Payment;
+import mate.academy.carsharing.repository.account.AccountSummaryRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountSummaryLedgerTest {
+    @Mock
+    private AccountSummaryRepository accountSummaryRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TransactionStatus transactionStatus;
+    private AccountSummaryLedger accountSummaryLedger;
+
+    @BeforeEach
+    void setUp() {
+        accountSummaryLedger = new AccountSummaryLedger(accountSummaryRepository,
+                transactionManager, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("isAllowedToRent() reads the summary row once and caches it")
+    void isAllowedToRent_RepeatedChecks_LoadsSummaryOnce() {
+        AccountSummary summary = new AccountSummary(VALID_ID);
+        summary.setExpiredPayments(1);
+        when(accountSummaryRepository.findById(VALID_ID)).thenReturn(Optional.of(summary));
+
+        Assertions.assertFalse(accountSummaryLedger.isAllowedToRent(VALID_ID));
+        Assertions.assertFalse(accountSummaryLedger.isAllowedToRent(VALID_ID));
+
+        verify(accountSummaryRepository, times(1)).findById(VALID_ID);
+        verify(accountSummaryRepository, never()).insertIfAbsent(anyLong(), anyString(),
+                anyString());
+    }
+
+    @Test
+    @DisplayName("isAllowedToRent() builds a missing summary row from payments and rentals")
+    void isAllowedToRent_MissingSummary_InsertsSummary() {
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(accountSummaryRepository.findById(VALID_ID))
+                .thenReturn(Optional.empty(), Optional.of(new AccountSummary(VALID_ID)));
+
+        Assertions.assertTrue(accountSummaryLedger.isAllowedToRent(VALID_ID));
+
+        verify(accountSummaryRepository).insertIfAbsent(VALID_ID,
+                Payment.Status.EXPIRED.name(), Payment.Status.PENDING.name());
+        verify(transactionManager).commit(transactionStatus);
+    }
+
+    @Test
+    @DisplayName("apply() evicts the cached summary")
+    void apply_CachedSummary_ReloadsOnNextCheck() {
+        AccountSummary summary = new AccountSummary(VALID_ID);
+        when(accountSummaryRepository.findById(VALID_ID)).thenReturn(Optional.of(summary));
+        accountSummaryLedger.isAllowedToRent(VALID_ID);
+
+        accountSummaryLedger.apply(VALID_ID, 1, BigDecimal.ZERO, 0);
+        accountSummaryLedger.isAllowedToRent(VALID_ID);
+
+        verify(accountSummaryRepository).addToSummary(VALID_ID, 1, BigDecimal.ZERO, 0);
+        verify(accountSummaryRepository, times(2)).findById(VALID_ID);
+    }
+
+    @Test
+    @DisplayName("isAllowedToRent() doesn't cache a row read before a change committed")
+    void isAllowedToRent_ChangedWhileLoading_DoesNotCacheOldRow() {
+        AccountSummary summary = new AccountSummary(VALID_ID);
+        when(accountSummaryRepository.findById(VALID_ID))
+                .thenAnswer(invocation -> {
+                    // the change commits and evicts while the old row is being read
+                    accountSummaryLedger.apply(VALID_ID, 1, BigDecimal.ZERO, 0);
+                    return Optional.of(summary);
+                })
+                .thenReturn(Optional.of(summary));
+
+        accountSummaryLedger.isAllowedToRent(VALID_ID);
+        accountSummaryLedger.isAllowedToRent(VALID_ID);
+        accountSummaryLedger.isAllowedToRent(VALID_ID);
+
+        verify(accountSummaryRepository, times(2)).findById(VALID_ID);
+    }
+}
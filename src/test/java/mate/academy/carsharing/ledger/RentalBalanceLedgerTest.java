@@ -0,0 +1,109 @@
+package mate.academy.carsharing.ledger;
+
+import static mate.academy.carsharing.util.TestUtils.VALID_ID;
+import static mate.academy.carsharing.util.TestUtils.createValidPayment;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.net.MalformedURLException;
+import java.util.List;
+import mate.academy.carsharing.model.Payment;
+import mate.academy.carsharing.repository.payment.PaymentRepository;
+import mate.academy.carsharing.repository.rental.RentalRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class RentalBalanceLedgerTest {
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private RentalRepository rentalRepository;
+    @Mock
+    private AccountSummaryLedger accountSummaryLedger;
+    @InjectMocks
+    private RentalBalanceLedger rentalBalanceLedger;
+
+    @Test
+    @DisplayName("open() adds a pending payment to the outstanding total")
+    void open_PendingPayment_AddsToOutstandingTotal() throws MalformedURLException {
+        Payment payment = createValidPayment();
+        when(paymentRepository.save(payment)).thenReturn(payment);
+
+        Payment actual = rentalBalanceLedger.open(payment);
+
+        Assertions.assertSame(payment, actual);
+        verify(rentalRepository).addToTotals(VALID_ID, BigDecimal.ZERO, BigDecimal.TEN);
+        verify(accountSummaryLedger).apply(VALID_ID, 0, BigDecimal.TEN, 0);
+    }
+
+    @Test
+    @DisplayName("transition() moves the amount from outstanding to paid")
+    void transition_PendingToPaid_MovesAmountToPaidTotal() throws MalformedURLException {
+        Payment payment = createValidPayment();
+        when(paymentRepository.updateStatus(List.of(VALID_ID),
+                Payment.Status.PENDING, Payment.Status.PAID)).thenReturn(1);
+
+        boolean actual = rentalBalanceLedger.transition(payment, Payment.Status.PAID);
+
+        Assertions.assertTrue(actual);
+        Assertions.assertEquals(Payment.Status.PAID, payment.getStatus());
+        verify(rentalRepository).addToTotals(VALID_ID, BigDecimal.TEN, BigDecimal.TEN.negate());
+    }
+
+    @Test
+    @DisplayName("transition() leaves totals alone when the status was already moved")
+    void transition_StatusChangedConcurrently_ReturnsFalse() throws MalformedURLException {
+        Payment payment = createValidPayment();
+        when(paymentRepository.updateStatus(List.of(VALID_ID),
+                Payment.Status.PENDING, Payment.Status.PAID)).thenReturn(0);
+
+        boolean actual = rentalBalanceLedger.transition(payment, Payment.Status.PAID);
+
+        Assertions.assertFalse(actual);
+        Assertions.assertEquals(Payment.Status.PENDING, payment.getStatus());
+        verify(rentalRepository, never()).addToTotals(any(), any(), any());
+        verify(accountSummaryLedger, never()).apply(any(), anyInt(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("transition() counts an expired payment on the account summary")
+    void transition_PendingToExpired_CountsExpiredPayment() throws MalformedURLException {
+        Payment payment = createValidPayment();
+        when(paymentRepository.updateStatus(List.of(VALID_ID),
+                Payment.Status.PENDING, Payment.Status.EXPIRED)).thenReturn(1);
+
+        rentalBalanceLedger.transition(payment, Payment.Status.EXPIRED);
+
+        verify(rentalRepository).addToTotals(VALID_ID, BigDecimal.ZERO, BigDecimal.TEN.negate());
+        verify(accountSummaryLedger).apply(VALID_ID, 1, BigDecimal.TEN.negate(), 0);
+    }
+
+    @Test
+    @DisplayName("transitionAll() recalculates the affected rentals")
+    void transitionAll_UpdatedPayments_RecalculatesRentals() {
+        when(paymentRepository.findRentalIdsByIdIn(List.of(VALID_ID)))
+                .thenReturn(List.of(VALID_ID));
+        when(paymentRepository.updateStatus(List.of(VALID_ID),
+                Payment.Status.PENDING, Payment.Status.EXPIRED)).thenReturn(1);
+        when(rentalRepository.findUserIdsByIdIn(List.of(VALID_ID)))
+                .thenReturn(List.of(VALID_ID));
+
+        int actual = rentalBalanceLedger.transitionAll(List.of(VALID_ID),
+                Payment.Status.PENDING, Payment.Status.EXPIRED);
+
+        Assertions.assertEquals(1, actual);
+        verify(rentalRepository).recalculateTotals(List.of(VALID_ID),
+                Payment.Status.PAID, Payment.Status.PENDING);
+        verify(accountSummaryLedger).recalculate(List.of(VALID_ID));
+    }
+}
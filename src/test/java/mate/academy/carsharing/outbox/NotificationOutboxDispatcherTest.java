@@ -0,0 +1,181 @@
+package mate.academy.carsharing.outbox;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import mate.academy.carsharing.exception.ServiceBusyException;
+import mate.academy.carsharing.model.OutboxMessage;
+import mate.academy.carsharing.repository.outbox.OutboxMessageRepository;
+import mate.academy.carsharing.scheduler.JobLeaseExecutor;
+import mate.academy.carsharing.telegram.TelegramMessageDeliveredEvent;
+import mate.academy.carsharing.telegram.TelegramMessageDroppedEvent;
+import mate.academy.carsharing.telegram.TelegramMessageEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationOutboxDispatcherTest {
+    private static final List<OutboxMessage.Status> DUE_STATUSES =
+            List.of(OutboxMessage.Status.PENDING, OutboxMessage.Status.IN_FLIGHT);
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private JobLeaseExecutor jobLeaseExecutor;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @InjectMocks
+    private NotificationOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "retryDelay", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(dispatcher, "inFlightTimeout", Duration.ofMinutes(15));
+    }
+
+    @Test
+    @DisplayName("dispatch() method hands due messages to the send queue and keeps them in flight")
+    void dispatch_WithDueMessages_KeepsMessagesInFlight() {
+        OutboxMessage message = createMessage(1L, 0);
+        when(outboxMessageRepository.findAllByStatusInAndNextAttemptAtLessThanEqualOrderById(
+                eq(DUE_STATUSES), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(message));
+
+        dispatcher.dispatch();
+
+        verify(eventPublisher).publishEvent(TelegramMessageEvent.fromOutbox(1L, 123L, "Message",
+                TelegramMessageEvent.Priority.NOTIFICATION));
+        verify(outboxMessageRepository).updateStatus(eq(List.of(1L)),
+                eq(OutboxMessage.Status.IN_FLIGHT), any(LocalDateTime.class));
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(any());
+        verify(outboxMessageRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("acknowledge() method deletes the messages the send queue reported sent")
+    void acknowledge_DeliveredMessages_DeletesThem() {
+        dispatcher.onDelivered(new TelegramMessageDeliveredEvent(1L));
+        dispatcher.onDelivered(new TelegramMessageDeliveredEvent(2L));
+
+        dispatcher.acknowledge();
+
+        verify(outboxMessageRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        Assertions.assertEquals(2,
+                meterRegistry.counter("notification.outbox.sent").count());
+    }
+
+    @Test
+    @DisplayName("acknowledge() method retries dropped messages and fails refused ones")
+    void acknowledge_DroppedMessages_SchedulesRetryOrMarksFailed() {
+        OutboxMessage retryable = createMessage(1L, 0);
+        retryable.setStatus(OutboxMessage.Status.IN_FLIGHT);
+        OutboxMessage refused = createMessage(2L, 0);
+        refused.setStatus(OutboxMessage.Status.IN_FLIGHT);
+        when(outboxMessageRepository.findAllById(Set.of(1L, 2L)))
+                .thenReturn(List.of(retryable, refused));
+        dispatcher.onDropped(new TelegramMessageDroppedEvent(1L, true));
+        dispatcher.onDropped(new TelegramMessageDroppedEvent(2L, false));
+
+        dispatcher.acknowledge();
+
+        Assertions.assertEquals(OutboxMessage.Status.PENDING, retryable.getStatus());
+        Assertions.assertEquals(1, retryable.getAttempts());
+        Assertions.assertTrue(retryable.getNextAttemptAt().isAfter(NotificationOutbox.now()));
+        Assertions.assertEquals(OutboxMessage.Status.FAILED, refused.getStatus());
+        verify(outboxMessageRepository).saveAll(List.of(retryable, refused));
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    @DisplayName("dispatch() method postpones failed message with backoff")
+    void dispatch_SendingFails_SchedulesRetry() {
+        OutboxMessage message = createMessage(1L, 1);
+        when(outboxMessageRepository.findAllByStatusInAndNextAttemptAtLessThanEqualOrderById(
+                eq(DUE_STATUSES), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(message));
+        doThrow(new RuntimeException("Telegram is down"))
+                .when(eventPublisher).publishEvent(any(TelegramMessageEvent.class));
+
+        dispatcher.dispatch();
+
+        Assertions.assertEquals(2, message.getAttempts());
+        Assertions.assertEquals(OutboxMessage.Status.PENDING, message.getStatus());
+        Assertions.assertTrue(message.getNextAttemptAt().isAfter(NotificationOutbox.now()));
+        verify(outboxMessageRepository).saveAll(List.of(message));
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    @DisplayName("dispatch() method gives up after the last attempt")
+    void dispatch_LastAttemptFails_MarksMessageFailed() {
+        OutboxMessage message = createMessage(1L, 2);
+        when(outboxMessageRepository.findAllByStatusInAndNextAttemptAtLessThanEqualOrderById(
+                eq(DUE_STATUSES), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(message));
+        doThrow(new RuntimeException("Telegram is down"))
+                .when(eventPublisher).publishEvent(any(TelegramMessageEvent.class));
+
+        dispatcher.dispatch();
+
+        Assertions.assertEquals(OutboxMessage.Status.FAILED, message.getStatus());
+        verify(outboxMessageRepository).saveAll(List.of(message));
+    }
+
+    @Test
+    @DisplayName("dispatch() method leaves messages pending while the send queue is full")
+    void dispatch_SendQueueFull_StopsWithoutCountingAttempts() {
+        OutboxMessage first = createMessage(1L, 0);
+        OutboxMessage second = createMessage(2L, 0);
+        when(outboxMessageRepository.findAllByStatusInAndNextAttemptAtLessThanEqualOrderById(
+                eq(DUE_STATUSES), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        doThrow(new ServiceBusyException("Telegram send queue is full"))
+                .when(eventPublisher).publishEvent(any(TelegramMessageEvent.class));
+
+        dispatcher.dispatch();
+
+        Assertions.assertEquals(0, first.getAttempts());
+        verify(eventPublisher).publishEvent(any(TelegramMessageEvent.class));
+        verify(outboxMessageRepository).updateStatus(eq(List.of(1L, 2L)),
+                eq(OutboxMessage.Status.PENDING), any(LocalDateTime.class));
+        verify(outboxMessageRepository, never()).saveAll(any());
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private OutboxMessage createMessage(Long id, int attempts) {
+        OutboxMessage message = new OutboxMessage();
+        message.setId(id);
+        message.setChatId(123L);
+        message.setMessage("Message");
+        message.setStatus(OutboxMessage.Status.PENDING);
+        message.setPriority(TelegramMessageEvent.Priority.NOTIFICATION);
+        message.setAttempts(attempts);
+        message.setCreatedAt(NotificationOutbox.now());
+        message.setNextAttemptAt(NotificationOutbox.now());
+        return message;
+    }
+}
@@ -0,0 +1,57 @@
+package mate.academy.carsharing.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.List;
+import mate.academy.carsharing.dto.rental.CreateRentalRequestDto;
+import mate.academy.carsharing.exception.RentalException;
+import mate.academy.carsharing.model.OutboxMessage;
+import mate.academy.carsharing.repository.outbox.OutboxMessageRepository;
+import mate.academy.carsharing.service.RentalService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+
+// the dispatcher is kept quiet, so the enqueued notice is still in the outbox when checked
+@SpringBootTest(properties = "notification.outbox.poll-delay=3600000")
+@Sql(statements = {
+        "INSERT INTO cars (id, model, brand, inventory, daily_fee, type, deleted) "
+                + "VALUES (1001, 'Model S', 'Tesla', 0, 80.50, 'SEDAN', FALSE)",
+        "INSERT INTO telegram_user_info (id, chat_id, user_id, deleted) "
+                + "VALUES (1001, 987654, 3, FALSE)"},
+        executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(statements = {
+        "DELETE FROM notification_outbox WHERE chat_id = 987654",
+        "DELETE FROM telegram_user_info WHERE id = 1001",
+        "DELETE FROM cars WHERE id = 1001"},
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class RentalRejectionNotificationTest {
+    private static final long CHAT_ID = 987654L;
+    private static final long SOLD_OUT_CAR_ID = 1001L;
+    private static final long CUSTOMER_ID = 3L;
+
+    @Autowired
+    private RentalService rentalService;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Test
+    @DisplayName("The 'no car available' notice survives the rollback of the rejected rental")
+    void save_SoldOutCar_KeepsNoticeInOutbox() {
+        CreateRentalRequestDto requestDto = new CreateRentalRequestDto(LocalDate.now(),
+                LocalDate.now().plusDays(3), SOLD_OUT_CAR_ID, CUSTOMER_ID);
+
+        assertThrows(RentalException.class, () -> rentalService.save(requestDto));
+
+        List<OutboxMessage> notices = outboxMessageRepository.findAll().stream()
+                .filter(message -> message.getChatId() == CHAT_ID)
+                .toList();
+        assertEquals(1, notices.size());
+        assertEquals("There is no car available with id: " + SOLD_OUT_CAR_ID,
+                notices.get(0).getMessage());
+    }
+}
@@ -0,0 +1,68 @@
+package mate.academy.carsharing.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class RateLimitFilterTest {
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties(true, Duration.ofMinutes(10),
+                1000, Map.of(
+                        "auth", new RateLimitProperties.RouteGroup(List.of("/api/auth/**"),
+                                1, Duration.ofMinutes(1), RateLimitProperties.ClientKey.IP),
+                        "api", new RateLimitProperties.RouteGroup(List.of("/api/**"),
+                                100, Duration.ofMinutes(1), RateLimitProperties.ClientKey.USER)));
+        rateLimitFilter = new RateLimitFilter(new RateLimiter(properties),
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("doFilter() method rejects requests over the limit with 429 and Retry-After")
+    void doFilter_OverLimit_RespondsTooManyRequests() throws ServletException, IOException {
+        MockHttpServletResponse first = filter("/api/auth/login", "10.0.0.1");
+        MockHttpServletResponse second = filter("/api/auth/login", "10.0.0.1");
+
+        Assertions.assertEquals(HttpStatus.OK.value(), first.getStatus());
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), second.getStatus());
+        Assertions.assertEquals("60", second.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    @DisplayName("doFilter() method keeps separate buckets per client and per route group")
+    void doFilter_DifferentClientsAndGroups_LimitedSeparately()
+            throws ServletException, IOException {
+        filter("/api/auth/login", "10.0.0.1");
+
+        Assertions.assertEquals(HttpStatus.OK.value(),
+                filter("/api/auth/login", "10.0.0.2").getStatus());
+        Assertions.assertEquals(HttpStatus.OK.value(),
+                filter("/api/rentals", "10.0.0.1").getStatus());
+    }
+
+    private MockHttpServletResponse filter(String path, String remoteAddress)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(remoteAddress);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,32 @@
+package mate.academy.carsharing.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class RateLimiterTest {
+    @Test
+    @DisplayName("RateLimiter refuses a group configured without capacity")
+    void constructor_GroupWithoutCapacity_FailsAtStartup() {
+        RateLimitProperties properties = properties(new RateLimitProperties.RouteGroup(
+                List.of("/api/**"), 0, Duration.ofMinutes(1), RateLimitProperties.ClientKey.IP));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> new RateLimiter(properties));
+    }
+
+    @Test
+    @DisplayName("RateLimiter refuses a group configured without period")
+    void constructor_GroupWithoutPeriod_FailsAtStartup() {
+        RateLimitProperties properties = properties(new RateLimitProperties.RouteGroup(
+                List.of("/api/**"), 100, null, RateLimitProperties.ClientKey.IP));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> new RateLimiter(properties));
+    }
+
+    private RateLimitProperties properties(RateLimitProperties.RouteGroup group) {
+        return new RateLimitProperties(true, Duration.ofMinutes(10), 1000, Map.of("api", group));
+    }
+}
@@ -0,0 +1,32 @@
+package mate.academy.carsharing.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTest {
+    private static final long START = 1_000L;
+
+    @Test
+    @DisplayName("tryConsume() method allows a burst up to the capacity")
+    void tryConsume_BurstUpToCapacity_Allowed() {
+        TokenBucket bucket = new TokenBucket(3, Duration.ofSeconds(3), START);
+
+        Assertions.assertEquals(0, bucket.tryConsume(START));
+        Assertions.assertEquals(0, bucket.tryConsume(START));
+        Assertions.assertEquals(0, bucket.tryConsume(START));
+        Assertions.assertEquals(TimeUnit.SECONDS.toNanos(1), bucket.tryConsume(START));
+    }
+
+    @Test
+    @DisplayName("tryConsume() method refills tokens over time")
+    void tryConsume_AfterRefillInterval_AllowedAgain() {
+        TokenBucket bucket = new TokenBucket(1, Duration.ofSeconds(1), START);
+        bucket.tryConsume(START);
+
+        Assertions.assertTrue(bucket.tryConsume(START + TimeUnit.MILLISECONDS.toNanos(500)) > 0);
+        Assertions.assertEquals(0, bucket.tryConsume(START + TimeUnit.SECONDS.toNanos(1)));
+    }
+}
@@ -0,0 +1,93 @@
+package mate.academy.carsharing.scheduler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import mate.academy.carsharing.repository.lease.JobLeaseRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class JobLeaseExecutorTest {
+    private static final String JOB_NAME = "job";
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(5);
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ofSeconds(30);
+
+    @Mock
+    private JobLeaseRepository jobLeaseRepository;
+    @InjectMocks
+    private JobLeaseExecutor jobLeaseExecutor;
+
+    @Test
+    @DisplayName("runExclusively() method runs the job and keeps the lease for a minimal time")
+    void runExclusively_LeaseAcquired_RunsJob() {
+        AtomicInteger runs = new AtomicInteger();
+        when(jobLeaseRepository.acquire(eq(JOB_NAME), anyString(), any(), any())).thenReturn(1);
+
+        boolean executed = jobLeaseExecutor.runExclusively(JOB_NAME, LOCK_AT_MOST_FOR,
+                LOCK_AT_LEAST_FOR, runs::incrementAndGet);
+
+        Assertions.assertTrue(executed);
+        Assertions.assertEquals(1, runs.get());
+        verify(jobLeaseRepository).release(eq(JOB_NAME), anyString(),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("runExclusively() method creates the lease on the first run")
+    void runExclusively_NoLeaseYet_InsertsLease() {
+        AtomicInteger runs = new AtomicInteger();
+        when(jobLeaseRepository.acquire(eq(JOB_NAME), anyString(), any(), any())).thenReturn(0);
+        when(jobLeaseRepository.insertIfAbsent(eq(JOB_NAME), anyString(), any(), any()))
+                .thenReturn(1);
+
+        boolean executed = jobLeaseExecutor.runExclusively(JOB_NAME, LOCK_AT_MOST_FOR,
+                LOCK_AT_LEAST_FOR, runs::incrementAndGet);
+
+        Assertions.assertTrue(executed);
+        Assertions.assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("runExclusively() method skips the job leased by another node")
+    void runExclusively_LeaseHeldByAnotherNode_SkipsJob() {
+        AtomicInteger runs = new AtomicInteger();
+        when(jobLeaseRepository.acquire(eq(JOB_NAME), anyString(), any(), any())).thenReturn(0);
+        when(jobLeaseRepository.insertIfAbsent(eq(JOB_NAME), anyString(), any(), any()))
+                .thenReturn(0);
+
+        boolean executed = jobLeaseExecutor.runExclusively(JOB_NAME, LOCK_AT_MOST_FOR,
+                LOCK_AT_LEAST_FOR, runs::incrementAndGet);
+
+        Assertions.assertFalse(executed);
+        Assertions.assertEquals(0, runs.get());
+        verify(jobLeaseRepository, never()).release(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("runExclusively() method releases the lease when the job fails")
+    void runExclusively_JobFails_ReleasesLease() {
+        when(jobLeaseRepository.acquire(eq(JOB_NAME), anyString(), any(), any())).thenReturn(1);
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> jobLeaseExecutor.runExclusively(JOB_NAME, LOCK_AT_MOST_FOR,
+                        LOCK_AT_LEAST_FOR, () -> {
+                            throw new IllegalStateException();
+                        }));
+
+        verify(jobLeaseRepository).release(eq(JOB_NAME), anyString(),
+                any(LocalDateTime.class));
+    }
+}
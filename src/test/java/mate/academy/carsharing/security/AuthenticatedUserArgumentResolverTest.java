@@ -0,0 +1,60 @@
+package mate.academy.carsharing.security;
+
+import static mate.academy.carsharing.util.TestUtils.VALID_ID;
+import static mate.academy.carsharing.util.TestUtils.createAuthenticatedUser;
+import static mate.academy.carsharing.util.TestUtils.createValidUser;
+
+import java.util.Set;
+import mate.academy.carsharing.model.Role;
+import mate.academy.carsharing.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+public class AuthenticatedUserArgumentResolverTest {
+    private final AuthenticatedUserArgumentResolver resolver =
+            new AuthenticatedUserArgumentResolver();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("resolveArgument() method returns principal put by stateless JWT filter")
+    void resolveArgument_AuthenticatedUserPrincipal_ReturnsSamePrincipal() {
+        AuthenticatedUser user = createAuthenticatedUser(VALID_ID, Role.RoleName.ROLE_CUSTOMER);
+        authenticate(user);
+
+        Assertions.assertSame(user, resolver.resolveArgument(null, null, null, null));
+    }
+
+    @Test
+    @DisplayName("resolveArgument() method converts loaded User entity")
+    void resolveArgument_UserEntityPrincipal_ReturnsAuthenticatedUser() {
+        User user = createValidUser();
+        user.addRole(Role.RoleName.ROLE_MANAGER);
+        authenticate(user);
+
+        Assertions.assertEquals(
+                new AuthenticatedUser(user.getId(), user.getEmail(),
+                        Set.of(Role.RoleName.ROLE_MANAGER), user.getTokenVersion()),
+                resolver.resolveArgument(null, null, null, null));
+    }
+
+    @Test
+    @DisplayName("resolveArgument() method without authentication throws exception")
+    void resolveArgument_NoAuthentication_ThrowsException() {
+        Assertions.assertThrows(AuthenticationCredentialsNotFoundException.class,
+                () -> resolver.resolveArgument(null, null, null, null));
+    }
+
+    private void authenticate(Object principal) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, Set.of()));
+    }
+}
@@ -0,0 +1,105 @@
+package mate.academy.carsharing.security;
+
+import static mate.academy.carsharing.util.TestUtils.VALID_EMAIL;
+import static mate.academy.carsharing.util.TestUtils.createValidUser;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import mate.academy.carsharing.model.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@ExtendWith(MockitoExtension.class)
+public class CachingDaoAuthenticationProviderTest {
+    private static final String RAW_PASSWORD = "password";
+    private static final String WRONG_PASSWORD = "wrong-password";
+
+    @Mock
+    private UserDetailsService userDetailsService;
+    @Mock
+    private UserDetailsPasswordService userDetailsPasswordService;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    private MeterRegistry meterRegistry;
+    private CachingDaoAuthenticationProvider authenticationProvider;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        authenticationProvider = new CachingDaoAuthenticationProvider(userDetailsService,
+                userDetailsPasswordService, passwordEncoder, meterRegistry, Duration.ofMinutes(1));
+        user = createValidUser();
+        when(userDetailsService.loadUserByUsername(VALID_EMAIL)).thenReturn(user);
+    }
+
+    @Test
+    @DisplayName("authenticate() method verifies the same credentials only once")
+    void authenticate_RepeatedCredentials_HashesPasswordOnce() {
+        when(passwordEncoder.matches(RAW_PASSWORD, user.getPassword())).thenReturn(true);
+
+        authenticationProvider.authenticate(token(RAW_PASSWORD));
+        authenticationProvider.authenticate(token(RAW_PASSWORD));
+
+        verify(passwordEncoder, times(1)).matches(RAW_PASSWORD, user.getPassword());
+        Assertions.assertEquals(1,
+                meterRegistry.timer("security.password.verification").count());
+    }
+
+    @Test
+    @DisplayName("authenticate() method doesn't use cached entry for another password")
+    void authenticate_DifferentPassword_VerifiesAgain() {
+        when(passwordEncoder.matches(RAW_PASSWORD, user.getPassword())).thenReturn(true);
+        when(passwordEncoder.matches(WRONG_PASSWORD, user.getPassword())).thenReturn(false);
+
+        authenticationProvider.authenticate(token(RAW_PASSWORD));
+
+        Assertions.assertThrows(BadCredentialsException.class,
+                () -> authenticationProvider.authenticate(token(WRONG_PASSWORD)));
+    }
+
+    @Test
+    @DisplayName("evict() method forces the next request to verify the password")
+    void evict_AfterPasswordChange_VerifiesAgain() {
+        when(passwordEncoder.matches(RAW_PASSWORD, user.getPassword())).thenReturn(true);
+
+        authenticationProvider.authenticate(token(RAW_PASSWORD));
+        authenticationProvider.evict(VALID_EMAIL);
+        authenticationProvider.authenticate(token(RAW_PASSWORD));
+
+        verify(passwordEncoder, times(2)).matches(RAW_PASSWORD, user.getPassword());
+    }
+
+    @Test
+    @DisplayName("authenticate() method rehashes password stored with a weaker strength")
+    void authenticate_WeakStoredHash_RehashesPassword() {
+        when(passwordEncoder.matches(RAW_PASSWORD, user.getPassword())).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(user.getPassword())).thenReturn(true);
+        // also answers the encode() done once for timing attack protection
+        when(passwordEncoder.encode(anyString())).thenReturn("stronger-hash");
+        when(userDetailsPasswordService.updatePassword(user, "stronger-hash")).thenReturn(user);
+
+        authenticationProvider.authenticate(token(RAW_PASSWORD));
+
+        verify(userDetailsPasswordService).updatePassword(user, "stronger-hash");
+    }
+
+    private UsernamePasswordAuthenticationToken token(String password) {
+        return new UsernamePasswordAuthenticationToken(VALID_EMAIL, password);
+    }
+}
@@ -0,0 +1,52 @@
+package mate.academy.carsharing.security;
+
+import static mate.academy.carsharing.util.TestUtils.createValidUser;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import java.util.Optional;
+import java.util.Set;
+import mate.academy.carsharing.model.Role;
+import mate.academy.carsharing.model.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JwtUtilTest {
+    private static final String SECRET = "test-secret-key-with-at-least-256-bits-length";
+    private static final long EXPIRATION = 60_000L;
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", EXPIRATION);
+    }
+
+    @Test
+    @DisplayName("generateToken() method puts user id, roles and token version into claims")
+    void generateToken_WithValidUser_TokenCarriesAuthenticatedUser() {
+        User user = createValidUser();
+        user.addRole(Role.RoleName.ROLE_MANAGER);
+        user.setTokenVersion(3);
+
+        Claims claims = jwtUtil.parseClaims(jwtUtil.generateToken(user));
+        Optional<AuthenticatedUser> actual = jwtUtil.getAuthenticatedUser(claims);
+
+        Assertions.assertEquals(Optional.of(new AuthenticatedUser(user.getId(), user.getEmail(),
+                Set.of(Role.RoleName.ROLE_MANAGER), 3)), actual);
+    }
+
+    @Test
+    @DisplayName("parseClaims() method rejects token signed with another key")
+    void parseClaims_TokenSignedWithAnotherKey_ThrowsJwtException() {
+        JwtUtil anotherJwtUtil = new JwtUtil(SECRET + "-another");
+        ReflectionTestUtils.setField(anotherJwtUtil, "expiration", EXPIRATION);
+        String token = anotherJwtUtil.generateToken(createValidUser());
+
+        Assertions.assertThrows(JwtException.class, () -> jwtUtil.parseClaims(token));
+    }
+}
@@ -0,0 +1,72 @@
+package mate.academy.carsharing.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import mate.academy.carsharing.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PasswordHashingExecutorTest {
+    private MeterRegistry meterRegistry;
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashingExecutor = new PasswordHashingExecutor(meterRegistry, 1, 1,
+                Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("execute() method returns the result of the task")
+    void execute_WithFreeWorker_ReturnsResult() {
+        Assertions.assertEquals("hash", passwordHashingExecutor.execute(() -> "hash"));
+    }
+
+    @Test
+    @DisplayName("execute() method fails fast when the worker and the queue are busy")
+    void execute_PoolSaturated_ThrowsServiceBusyException() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(
+                () -> passwordHashingExecutor.execute(() -> {
+                    started.countDown();
+                    await(release);
+                    return "running";
+                }));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(
+                () -> passwordHashingExecutor.execute(() -> "queued"));
+        while (meterRegistry.get("security.password-hashing.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        Assertions.assertThrows(ServiceBusyException.class,
+                () -> passwordHashingExecutor.execute(() -> "rejected"));
+        release.countDown();
+        Assertions.assertEquals("running", running.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1,
+                meterRegistry.counter("security.password-hashing.rejected").count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -6,27 +6,45 @@ import static mate.academy.carsharing.util.TestUtils.createValidCar;
 import static mate.academy.carsharing.util.TestUtils.createValidCarRequestDto;
 import static mate.academy.carsharing.util.TestUtils.createValidCarResponseDto;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import mate.academy.carsharing.dto.car.CarAvailabilityResponseDto;
 import mate.academy.carsharing.dto.car.CarResponseDto;
 import mate.academy.carsharing.dto.car.CreateCarRequestDto;
+import mate.academy.carsharing.dto.page.SliceResponseDto;
 import mate.academy.carsharing.exception.EntityNotFoundException;
+import mate.academy.carsharing.exception.RentalException;
+import mate.academy.carsharing.inventory.CarAvailabilityIndex;
+import mate.academy.carsharing.inventory.CarInventorySharding;
 import mate.academy.carsharing.mapper.CarMapper;
 import mate.academy.carsharing.model.Car;
 import mate.academy.carsharing.repository.car.CarRepository;
+import mate.academy.carsharing.repository.keyset.KeysetCursor;
+import mate.academy.carsharing.repository.keyset.KeysetScroller;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 public class CarServiceTest {
@@ -34,9 +52,22 @@ public class CarServiceTest {
     private CarRepository carRepository;
     @Mock
     private CarMapper carMapper;
+    @Mock
+    private CarInventorySharding carInventorySharding;
+    @Mock
+    private CarAvailabilityIndex carAvailabilityIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private KeysetScroller keysetScroller = new KeysetScroller();
     @InjectMocks
     private CarServiceImpl carService;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(keysetScroller, "maxPageSize", 100);
+    }
+
     @Test
     @DisplayName("save() method works")
     public void save_WithValidCarRequestDto_ReturnCarResponseDto() {
@@ -69,6 +100,71 @@ public class CarServiceTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    @DisplayName("scroll() method returns first slice and cursor to the next one")
+    public void scroll_WithoutCursor_ReturnSliceWithNextCursor() {
+        Car first = createValidCar();
+        Car second = createValidCar();
+        second.setId(VALID_ID + 1);
+        second.setDailyFee(BigDecimal.valueOf(99.5));
+        CarResponseDto responseDto = createValidCarResponseDto();
+        Pageable pageable = PageRequest.of(0, 1, Sort.by("dailyFee"));
+
+        when(carRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(first, second));
+        when(carMapper.toDto(first)).thenReturn(responseDto);
+
+        SliceResponseDto<CarResponseDto> actual = carService.scroll(pageable, null);
+
+        assertEquals(List.of(responseDto), actual.content());
+        assertTrue(actual.hasNext());
+        KeysetCursor nextCursor = KeysetCursor.decode(actual.nextCursor());
+        assertEquals("dailyFee", nextCursor.property());
+        assertEquals(first.getDailyFee().toPlainString(), nextCursor.value());
+        assertEquals(first.getId(), nextCursor.id());
+    }
+
+    @Test
+    @DisplayName("scroll() method returns last slice without cursor")
+    public void scroll_WithCursorToLastSlice_ReturnSliceWithoutNextCursor() {
+        Car car = createValidCar();
+        CarResponseDto responseDto = createValidCarResponseDto();
+        Pageable pageable = PageRequest.of(0, 10);
+        String cursor = new KeysetCursor("id", Sort.Direction.ASC, "", 1L).encode();
+
+        when(carRepository.findBy(any(Specification.class), any()))
+                .thenReturn(List.of(car));
+        when(carMapper.toDto(car)).thenReturn(responseDto);
+
+        SliceResponseDto<CarResponseDto> actual = carService.scroll(pageable, cursor);
+
+        assertEquals(List.of(responseDto), actual.content());
+        assertFalse(actual.hasNext());
+    }
+
+    @Test
+    @DisplayName("findAvailable() method returns cars free for the whole period")
+    public void findAvailable_WithValidPeriod_ReturnAvailableCars() {
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(3);
+        List<CarAvailabilityResponseDto> expected =
+                List.of(new CarAvailabilityResponseDto(VALID_ID, 2));
+        when(carAvailabilityIndex.findAvailable(from, to)).thenReturn(expected);
+
+        List<CarAvailabilityResponseDto> actual = carService.findAvailable(from, to);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("findAvailable() method with reversed period throws RentalException")
+    public void findAvailable_WithReversedPeriod_ThrowsRentalException() {
+        LocalDate from = LocalDate.now();
+
+        assertThrows(RentalException.class,
+                () -> carService.findAvailable(from, from.minusDays(1)));
+    }
+
     @Test
     @DisplayName("getById() method works")
     public void getById_WithValidId_ReturnCarResponseDto() {
@@ -100,16 +196,28 @@ public class CarServiceTest {
         CarResponseDto expected = createValidCarResponseDto();
         when(carRepository.findById(VALID_ID)).thenReturn(Optional.of(car));
         when(carRepository.save(car)).thenReturn(car);
-        when(carMapper.toModel(requestDto)).thenReturn(car);
         when(carMapper.toDto(car)).thenReturn(expected);
 
         CarResponseDto actual = carService.updateById(VALID_ID, requestDto);
 
         assertEquals(expected, actual);
-        verify(carMapper).toModel(requestDto);
+        verify(carMapper).updateModel(requestDto, car);
         verify(carRepository).save(car);
     }
 
+    @Test
+    @DisplayName("updateById() method redistributes inventory of a sharded car")
+    public void updateById_WithShardedCar_ResetsInventorySlots() {
+        Car car = createValidCar();
+        CreateCarRequestDto requestDto = createValidCarRequestDto();
+        when(carRepository.findById(VALID_ID)).thenReturn(Optional.of(car));
+        when(carRepository.save(car)).thenReturn(car);
+
+        carService.updateById(VALID_ID, requestDto);
+
+        verify(carInventorySharding).resetInventory(VALID_ID, car.getInventory());
+    }
+
     @Test
     @DisplayName("updateById() method with invalid 'id' throws EntityNotFoundException")
     public void updateById_WithInvalidId_ThrowsEntityNotFoundException() {
@@ -1,13 +1,12 @@
 package mate.academy.carsharing.service.impl;
 
-import static mate.academy.carsharing.model.Payment.Status;
 import static mate.academy.carsharing.util.TestUtils.VALID_ACTUAL_RETURN_DATE;
-import static mate.academy.carsharing.util.TestUtils.VALID_EMAIL;
 import static mate.academy.carsharing.util.TestUtils.VALID_ID;
 import static mate.academy.carsharing.util.TestUtils.VALID_RENTAL_DATE;
 import static mate.academy.carsharing.util.TestUtils.VALID_RETURN_DATE;
-import static mate.academy.carsharing.util.TestUtils.createExpiredPayments;
+import static mate.academy.carsharing.util.TestUtils.createAuthenticatedUser;
 import static mate.academy.carsharing.util.TestUtils.createOverdueRental;
+import static mate.academy.carsharing.util.TestUtils.createRentalPeriod;
 import static mate.academy.carsharing.util.TestUtils.createValidCar;
 import static mate.academy.carsharing.util.TestUtils.createValidRental;
 import static mate.academy.carsharing.util.TestUtils.createValidRentalRequestDto;
@@ -15,32 +14,42 @@ import static mate.academy.carsharing.util.TestUtils.createValidRentalResponseDt
 import static mate.academy.carsharing.util.TestUtils.createValidUser;
 import static mate.academy.carsharing.util.TestUtils.returnedRentalResponseDto;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import mate.academy.carsharing.dto.rental.CreateRentalRequestDto;
 import mate.academy.carsharing.dto.rental.RentalResponseDto;
 import mate.academy.carsharing.dto.rental.RentalSearchParametersDto;
 import mate.academy.carsharing.exception.RentalException;
+import mate.academy.carsharing.inventory.InventoryReservationManager;
+import mate.academy.carsharing.ledger.AccountSummaryLedger;
 import mate.academy.carsharing.mapper.RentalMapper;
 import mate.academy.carsharing.model.Car;
-import mate.academy.carsharing.model.Payment;
 import mate.academy.carsharing.model.Rental;
+import mate.academy.carsharing.model.Role;
 import mate.academy.carsharing.model.User;
 import mate.academy.carsharing.repository.SpecificationProvider;
 import mate.academy.carsharing.repository.car.CarRepository;
-import mate.academy.carsharing.repository.payment.PaymentRepository;
+import mate.academy.carsharing.repository.keyset.KeysetScroller;
+import mate.academy.carsharing.repository.rental.OverdueRental;
 import mate.academy.carsharing.repository.rental.RentalRepository;
 import mate.academy.carsharing.repository.rental.RentalSpecificationBuilder;
 import mate.academy.carsharing.repository.rental.RentalSpecificationProviderManager;
@@ -49,16 +58,21 @@ import mate.academy.carsharing.repository.rental.spec.RentalUserIdSpecificationP
 import mate.academy.carsharing.repository.user.UserRepository;
 import mate.academy.carsharing.service.NotificationService;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 public class RentalServiceTest {
@@ -73,11 +87,21 @@ public class RentalServiceTest {
     @Mock
     private NotificationService notificationService;
     @Mock
-    private PaymentRepository paymentRepository;
+    private AccountSummaryLedger accountSummaryLedger;
     @Mock
     private ObjectMapper objectMapper;
     @Mock
     private RentalSpecificationBuilder rentalSpecificationBuilder;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private KeysetScroller keysetScroller;
+    @Mock
+    private InventoryReservationManager inventoryReservationManager;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Captor
+    private ArgumentCaptor<Map<Long, String>> messages;
     private final ObjectMapper notMockedMapper = new ObjectMapper();
     @InjectMocks
     private RentalServiceImpl rentalService;
@@ -86,6 +110,11 @@ public class RentalServiceTest {
         notMockedMapper.findAndRegisterModules();
     }
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rentalService, "overdueChunkSize", 500);
+    }
+
     @Test
     @DisplayName("save() method works")
     public void save_WithValidCreateRentalRequestDto_ReturnRental() {
@@ -94,10 +123,16 @@ public class RentalServiceTest {
         User user = createValidUser();
         Rental rental = createValidRental();
         RentalResponseDto expected = createValidRentalResponseDto();
-        when(paymentRepository.getAllByUserIdAndPaymentStatus(user.getId(), Status.EXPIRED))
-                .thenReturn(List.of());
-        when(carRepository.findById(requestDto.carId()))
+        when(accountSummaryLedger.isAllowedToRent(user.getId()))
+                .thenReturn(true);
+        when(inventoryReservationManager.reserve(requestDto.carId()))
+                .thenReturn(true);
+        when(carRepository.findByIdForUpdate(requestDto.carId()))
                 .thenReturn(Optional.of(car));
+        when(carRepository.findFreeInventory(car.getId()))
+                .thenReturn(0);
+        when(rentalRepository.findActiveRentalPeriodsByCarId(car.getId()))
+                .thenReturn(List.of());
         when(userRepository.findById(requestDto.userId()))
                 .thenReturn(Optional.of(user));
         when(rentalMapper.toModel(requestDto))
@@ -115,40 +150,104 @@ public class RentalServiceTest {
         RentalResponseDto actualResponse = rentalService.save(requestDto);
 
         assertEquals(expected, actualResponse);
+        verify(accountSummaryLedger).rentalOpened(requestDto.userId());
     }
 
     @Test
     @DisplayName("save() method throws RentalException when user has expired payments")
     public void save_WithExpiredPayments_ThrowsRentalException() {
         CreateRentalRequestDto requestDto = createValidRentalRequestDto();
-        List<Payment> expiredPayments = List.of(createExpiredPayments());
-        when(paymentRepository.getAllByUserIdAndPaymentStatus(requestDto.userId(), Status.EXPIRED))
-                .thenReturn(expiredPayments);
+        when(accountSummaryLedger.isAllowedToRent(requestDto.userId()))
+                .thenReturn(false);
 
         Assertions.assertThrows(RentalException.class, () -> rentalService.save(requestDto));
+        verify(carRepository, never()).findByIdForUpdate(anyLong());
     }
 
     @Test
     @DisplayName("save() method throws RentalException when there is no available car")
     public void save_WhenThereIsNoAvailableCar_ThrowsRentalException() {
-        Car notAvailableCar = createValidCar();
-        notAvailableCar.setInventory(0);
-
-        when(carRepository.findById(anyLong()))
-                .thenReturn(Optional.of(notAvailableCar));
-        doNothing()
-                .when(notificationService).sendNotification(anyLong(), anyString());
+        when(accountSummaryLedger.isAllowedToRent(anyLong()))
+                .thenReturn(true);
+        when(inventoryReservationManager.reserve(anyLong()))
+                .thenReturn(false);
 
         CreateRentalRequestDto requestDto = createValidRentalRequestDto();
 
+        Assertions.assertThrows(RentalException.class, () -> rentalService.save(requestDto));
+        verify(notificationService).sendFailureNotification(eq(requestDto.userId()), anyString());
+        verify(rentalRepository, never()).save(any(Rental.class));
+    }
+
+    @Test
+    @DisplayName("save() method throws RentalException when car is booked for the period")
+    public void save_WhenCarIsBookedForPeriod_ThrowsRentalException() {
+        CreateRentalRequestDto requestDto = new CreateRentalRequestDto(
+                VALID_RENTAL_DATE.plusDays(10), VALID_RETURN_DATE.plusDays(10), VALID_ID, VALID_ID);
+        Car car = createValidCar();
+        when(accountSummaryLedger.isAllowedToRent(requestDto.userId()))
+                .thenReturn(true);
+        when(carRepository.findByIdForUpdate(requestDto.carId()))
+                .thenReturn(Optional.of(car));
+        when(carRepository.findFreeInventory(car.getId()))
+                .thenReturn(1);
+        when(rentalRepository.findActiveRentalPeriodsByCarId(car.getId()))
+                .thenReturn(List.of(createRentalPeriod(VALID_RENTAL_DATE.plusDays(12),
+                        VALID_RETURN_DATE.plusDays(20), false)));
+
+        Assertions.assertThrows(RentalException.class, () -> rentalService.save(requestDto));
+        verify(notificationService).sendFailureNotification(eq(requestDto.userId()), anyString());
+        verify(inventoryReservationManager, never()).reserve(anyLong());
+    }
+
+    @Test
+    @DisplayName("save() method books a later period without taking a unit "
+            + "from the inventory counter")
+    public void save_WithFuturePeriod_DoesNotReserveInventory() {
+        CreateRentalRequestDto requestDto = new CreateRentalRequestDto(
+                VALID_RENTAL_DATE.plusDays(30), VALID_RETURN_DATE.plusDays(30), VALID_ID, VALID_ID);
+        Car car = createValidCar();
+        Rental rental = new Rental();
+        when(accountSummaryLedger.isAllowedToRent(requestDto.userId()))
+                .thenReturn(true);
+        when(carRepository.findByIdForUpdate(requestDto.carId()))
+                .thenReturn(Optional.of(car));
+        when(carRepository.findFreeInventory(car.getId()))
+                .thenReturn(0);
+        when(rentalRepository.findActiveRentalPeriodsByCarId(car.getId()))
+                .thenReturn(List.of(createRentalPeriod(VALID_RENTAL_DATE,
+                        VALID_RETURN_DATE, true)));
+        when(userRepository.findById(requestDto.userId()))
+                .thenReturn(Optional.of(createValidUser()));
+        when(rentalMapper.toModel(requestDto))
+                .thenReturn(rental);
+        when(rentalRepository.save(rental))
+                .thenReturn(rental);
+        when(rentalMapper.toDto(rental))
+                .thenReturn(createValidRentalResponseDto());
+        when(objectMapper.writerWithDefaultPrettyPrinter())
+                .thenReturn(notMockedMapper.writerWithDefaultPrettyPrinter());
+
+        rentalService.save(requestDto);
+
+        verify(inventoryReservationManager, never()).reserve(anyLong());
+        assertFalse(rental.isInventoryReserved());
+    }
+
+    @Test
+    @DisplayName("save() method throws RentalException when return date isn't after rental date")
+    public void save_WithReturnDateBeforeRentalDate_ThrowsRentalException() {
+        CreateRentalRequestDto requestDto = new CreateRentalRequestDto(
+                VALID_RETURN_DATE, VALID_RENTAL_DATE, VALID_ID, VALID_ID);
+        when(accountSummaryLedger.isAllowedToRent(VALID_ID))
+                .thenReturn(true);
+
         Assertions.assertThrows(RentalException.class, () -> rentalService.save(requestDto));
     }
 
     @Test
     @DisplayName("searchRentals() method returns active rentals for specified users")
     public void searchRentals_WithValidParams_ReturnActiveRentals() {
-        Rental notReturnedYetRental = createValidRental();
-
         String[] parameterToSearchForTheseUserIds = {VALID_ID.toString()};
         String[] parameterToSearchForActiveRentals = {"true"};
         RentalSearchParametersDto parametersDto = new RentalSearchParametersDto(
@@ -164,11 +263,9 @@ public class RentalServiceTest {
 
         when(rentalSpecificationBuilder.build(any(RentalSearchParametersDto.class)))
                 .thenReturn(specification);
-        when(rentalRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(new PageImpl<Rental>(List.of(notReturnedYetRental)));
-
         RentalResponseDto responseDtoWithNotReturnedYetRental = createValidRentalResponseDto();
-        when(rentalMapper.toDto(any(Rental.class))).thenReturn(responseDtoWithNotReturnedYetRental);
+        when(rentalRepository.findAllResponseDtos(any(Specification.class), any(Pageable.class)))
+                .thenReturn(List.of(responseDtoWithNotReturnedYetRental));
 
         List<RentalResponseDto> expected = List.of(responseDtoWithNotReturnedYetRental);
         Pageable pageable = PageRequest.of(0, 20);
@@ -180,8 +277,6 @@ public class RentalServiceTest {
     @Test
     @DisplayName("searchRentals() method returns nonactive rentals for specified users")
     public void searchRentals_WithValidParams_ReturnNonactiveRentals() {
-        Rental returnedRental = createValidRental();
-        returnedRental.setActualReturnDate(VALID_ACTUAL_RETURN_DATE);
         RentalResponseDto responseDtoWithReturnedRental =
                 new RentalResponseDto(
                         VALID_ID,
@@ -207,9 +302,8 @@ public class RentalServiceTest {
 
         when(rentalSpecificationBuilder.build(any(RentalSearchParametersDto.class)))
                 .thenReturn(specification);
-        when(rentalRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(new PageImpl<Rental>(List.of(returnedRental)));
-        when(rentalMapper.toDto(any(Rental.class))).thenReturn(responseDtoWithReturnedRental);
+        when(rentalRepository.findAllResponseDtos(any(Specification.class), any(Pageable.class)))
+                .thenReturn(List.of(responseDtoWithReturnedRental));
 
         List<RentalResponseDto> expected = List.of(responseDtoWithReturnedRental);
         Pageable pageable = PageRequest.of(0, 20);
@@ -221,10 +315,6 @@ public class RentalServiceTest {
     @Test
     @DisplayName("searchRentals() method returns all rentals for specified users")
     public void searchRentals_WithValidParams_ReturnAllRentals() {
-        Rental notReturnedYetRental = createValidRental();
-
-        Rental returnedRental = createValidRental();
-        returnedRental.setActualReturnDate(VALID_ACTUAL_RETURN_DATE);
         RentalResponseDto responseDtoWithReturnedRental =
                 new RentalResponseDto(
                         VALID_ID,
@@ -250,12 +340,10 @@ public class RentalServiceTest {
 
         when(rentalSpecificationBuilder.build(any(RentalSearchParametersDto.class)))
                 .thenReturn(specification);
-        when(rentalRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(new PageImpl<Rental>(List.of(returnedRental, notReturnedYetRental)));
-
         RentalResponseDto responseDtoWithNotReturnedYetRental = createValidRentalResponseDto();
-        when(rentalMapper.toDto(any(Rental.class)))
-                .thenReturn(responseDtoWithReturnedRental, responseDtoWithNotReturnedYetRental);
+        when(rentalRepository.findAllResponseDtos(any(Specification.class), any(Pageable.class)))
+                .thenReturn(List.of(responseDtoWithReturnedRental,
+                        responseDtoWithNotReturnedYetRental));
 
         List<RentalResponseDto> expected =
                 List.of(responseDtoWithReturnedRental, responseDtoWithNotReturnedYetRental);
@@ -266,18 +354,17 @@ public class RentalServiceTest {
     }
 
     @Test
-    @DisplayName("getRentalByIdAndUserEmail() method works")
-    public void getRentalByIdAndUserEmail_ValidRentalIdAndUserEmail_ValidRentalResponseDto() {
+    @DisplayName("getRentalByIdAndUser() method works")
+    public void getRentalByIdAndUser_ValidRentalIdAndUser_ValidRentalResponseDto() {
         Rental rental = createValidRental();
         RentalResponseDto expected = createValidRentalResponseDto();
-        when(userRepository.findByEmail(VALID_EMAIL))
-                .thenReturn(Optional.of(createValidUser()));
         when(rentalRepository.findByIdAndUserId(VALID_ID, VALID_ID))
                 .thenReturn(Optional.of(rental));
         when(rentalMapper.toDto(rental))
                 .thenReturn(expected);
 
-        RentalResponseDto actual = rentalService.getRentalByIdAndUserEmail(VALID_ID, VALID_EMAIL);
+        RentalResponseDto actual = rentalService.getRentalByIdAndUser(VALID_ID,
+                createAuthenticatedUser(VALID_ID, Role.RoleName.ROLE_CUSTOMER));
 
         assertEquals(expected, actual);
     }
@@ -290,7 +377,7 @@ public class RentalServiceTest {
         returnedRental.setActualReturnDate(VALID_ACTUAL_RETURN_DATE);
         RentalResponseDto expected = returnedRentalResponseDto();
 
-        when(rentalRepository.findById(VALID_ID))
+        when(rentalRepository.findByIdForUpdate(VALID_ID))
                 .thenReturn(Optional.of(rentalFromDb));
         when(rentalRepository.save(any(Rental.class)))
                 .thenReturn(returnedRental);
@@ -306,30 +393,54 @@ public class RentalServiceTest {
         RentalResponseDto actual = rentalService.returnRental(VALID_ID);
 
         assertEquals(expected, actual);
+        verify(inventoryReservationManager).release(rentalFromDb.getCar().getId());
+        verify(accountSummaryLedger).rentalReturned(rentalFromDb.getUser().getId());
     }
 
     @Test
-    @DisplayName("checkOverdueRentals() method sends notifications about every overdue rental")
-    public void checkOverdueRentals_WithOverdueRentals() {
-        List<Rental> overdueRentals = List.of(createOverdueRental(), createOverdueRental());
-        when(rentalRepository
-                .findAllByReturnDateBeforeAndActualReturnDateIsNull(any(LocalDate.class)))
+    @DisplayName("checkOverdueRentals() method sends one notification per user")
+    public void checkOverdueRentals_WithOverdueRentals_GroupsMessagesByUser() {
+        List<OverdueRental> overdueRentals = List.of(
+                createOverdueRental(1L, 1L), createOverdueRental(2L, 1L),
+                createOverdueRental(3L, 2L));
+        when(rentalRepository.findOverdueRentalsAfter(
+                any(LocalDate.class), anyLong(), anyLong(), any(Pageable.class)))
                 .thenReturn(overdueRentals);
-        doNothing()
-                .when(notificationService).sendNotification(anyLong(), anyString());
 
         rentalService.checkOverdueRentals();
 
-        verify(notificationService, times(overdueRentals.size()))
-                .sendNotification(anyLong(), anyString());
+        verify(notificationService).sendNotifications(messages.capture());
+        assertEquals(Set.of(1L, 2L), messages.getValue().keySet());
+        assertEquals(2, messages.getValue().get(1L).lines().count());
+        verify(notificationService, never()).sendGlobalNotification(anyString());
+    }
+
+    @Test
+    @DisplayName("checkOverdueRentals() method reads overdue rentals in chunks "
+            + "without splitting user's rentals between messages")
+    public void checkOverdueRentals_WithSeveralChunks_KeepsUserRentalsTogether() {
+        ReflectionTestUtils.setField(rentalService, "overdueChunkSize", 2);
+        when(rentalRepository.findOverdueRentalsAfter(
+                any(LocalDate.class), anyLong(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(createOverdueRental(1L, 1L), createOverdueRental(2L, 2L)))
+                .thenReturn(List.of(createOverdueRental(3L, 2L)));
+
+        rentalService.checkOverdueRentals();
+
+        verify(notificationService, times(2)).sendNotifications(messages.capture());
+        assertEquals(Set.of(1L), messages.getAllValues().get(0).keySet());
+        assertEquals(Set.of(2L), messages.getAllValues().get(1).keySet());
+        assertEquals(2, messages.getAllValues().get(1).get(2L).lines().count());
+        verify(rentalRepository).findOverdueRentalsAfter(
+                any(LocalDate.class), eq(2L), eq(2L), any(Pageable.class));
     }
 
     @Test
     @DisplayName("checkOverdueRentals() method sends global notification "
             + "when no rentals are overdue")
     public void checkOverdueRentals_NoOverdueRentals() {
-        when(rentalRepository.findAllByReturnDateBeforeAndActualReturnDateIsNull(
-                any(LocalDate.class)))
+        when(rentalRepository.findOverdueRentalsAfter(
+                any(LocalDate.class), anyLong(), anyLong(), any(Pageable.class)))
                 .thenReturn(Collections.emptyList());
         doNothing()
                 .when(notificationService).sendGlobalNotification(anyString());
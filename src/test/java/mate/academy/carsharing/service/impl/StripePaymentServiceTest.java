@@ -1,14 +1,13 @@
 package mate.academy.carsharing.service.impl;
 
 import static mate.academy.carsharing.util.TestUtils.NOT_VALID_ID;
-import static mate.academy.carsharing.util.TestUtils.VALID_EMAIL;
 import static mate.academy.carsharing.util.TestUtils.VALID_ID;
 import static mate.academy.carsharing.util.TestUtils.VALID_SESSION_ID;
 import static mate.academy.carsharing.util.TestUtils.VALID_SESSION_URL;
+import static mate.academy.carsharing.util.TestUtils.createAuthenticatedUser;
 import static mate.academy.carsharing.util.TestUtils.createValidPayment;
 import static mate.academy.carsharing.util.TestUtils.createValidPaymentResponseDto;
 import static mate.academy.carsharing.util.TestUtils.createValidRental;
-import static mate.academy.carsharing.util.TestUtils.createValidUser;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -16,6 +15,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -23,27 +23,31 @@ import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.List;
 import java.util.Optional;
 import mate.academy.carsharing.dto.payment.CreatePaymentRequestDto;
 import mate.academy.carsharing.dto.payment.PaymentResponseDto;
 import mate.academy.carsharing.dto.payment.PaymentSearchParametersDto;
 import mate.academy.carsharing.exception.EntityNotFoundException;
+import mate.academy.carsharing.exception.PaymentException;
+import mate.academy.carsharing.ledger.RentalBalanceLedger;
 import mate.academy.carsharing.mapper.PaymentMapper;
 import mate.academy.carsharing.model.Payment;
 import mate.academy.carsharing.model.Rental;
 import mate.academy.carsharing.model.Role;
-import mate.academy.carsharing.model.User;
 import mate.academy.carsharing.repository.SpecificationProvider;
+import mate.academy.carsharing.repository.keyset.KeysetScroller;
 import mate.academy.carsharing.repository.payment.PaymentRepository;
+import mate.academy.carsharing.repository.payment.PaymentSession;
 import mate.academy.carsharing.repository.payment.PaymentSpecificationBuilder;
 import mate.academy.carsharing.repository.payment.PaymentSpecificationProviderManager;
+import mate.academy.carsharing.repository.payment.PaymentView;
 import mate.academy.carsharing.repository.payment.spec.PaymentUserIdSpecificationProvider;
 import mate.academy.carsharing.repository.rental.RentalRepository;
-import mate.academy.carsharing.repository.role.RoleRepository;
-import mate.academy.carsharing.repository.user.UserRepository;
 import mate.academy.carsharing.service.NotificationService;
 import mate.academy.carsharing.stripe.StripeSessionProvider;
+import mate.academy.carsharing.stripe.StripeSessionReconciler;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -51,7 +55,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -69,11 +72,13 @@ public class StripePaymentServiceTest {
     @Mock
     private StripeSessionProvider stripeSessionProvider;
     @Mock
-    private UserRepository userRepository;
+    private PaymentSpecificationBuilder paymentSpecificationBuilder;
     @Mock
-    private RoleRepository roleRepository;
+    private KeysetScroller keysetScroller;
     @Mock
-    private PaymentSpecificationBuilder paymentSpecificationBuilder;
+    private StripeSessionReconciler stripeSessionReconciler;
+    @Mock
+    private RentalBalanceLedger rentalBalanceLedger;
     @InjectMocks
     private StripePaymentServiceImpl stripeService;
 
@@ -86,11 +91,8 @@ public class StripePaymentServiceTest {
         Session mockSession = mock(Session.class);
         when(stripeSessionProvider.createStripeSession(any(BigDecimal.class), any(String.class)))
                 .thenReturn(mockSession);
-        when(rentalRepository.findById(VALID_ID))
+        when(rentalRepository.findWithCarById(VALID_ID))
                 .thenReturn(Optional.of(rental));
-        when(paymentRepository
-                .getSumByRentalAndPaymentStatus(any(Rental.class), eq(Payment.Status.PAID)))
-                .thenReturn(BigDecimal.ZERO);
         when(mockSession.getId())
                 .thenReturn(VALID_SESSION_ID);
         when(mockSession.getUrl())
@@ -98,9 +100,9 @@ public class StripePaymentServiceTest {
         doNothing()
                 .when(notificationService).sendNotification(anyLong(), anyString());
         Payment payment = createValidPayment();
-        when(paymentRepository.save(any(Payment.class)))
+        when(rentalBalanceLedger.open(any(Payment.class)))
                 .thenReturn(payment);
-        when(paymentMapper.toDto(any(Payment.class)))
+        when(paymentMapper.toDto(payment))
                 .thenReturn(createValidPaymentResponseDto());
 
         PaymentResponseDto actualResponse = stripeService.save(requestDto);
@@ -126,35 +128,28 @@ public class StripePaymentServiceTest {
                 new PaymentSpecificationBuilder(specificationProviderManager);
         Specification<Payment> specification = specificationBuilder.build(searchParametersDto);
 
-        User validUser = createValidUser();
-        Role roleManager = new Role();
-        roleManager.setName(Role.RoleName.ROLE_MANAGER);
-        Payment validPayment = createValidPayment();
+        PaymentView paymentView = new PaymentView(VALID_ID, VALID_ID, VALID_ID,
+                Payment.Status.PENDING, Payment.Type.PAYMENT, new URL(VALID_SESSION_URL),
+                VALID_SESSION_ID, BigDecimal.TEN);
         PaymentResponseDto expected = createValidPaymentResponseDto();
         when(paymentSpecificationBuilder.build(any(PaymentSearchParametersDto.class)))
                 .thenReturn(specification);
-        when(userRepository.findByEmail(anyString()))
-                .thenReturn(Optional.of(validUser));
-        when(roleRepository.findByName(Role.RoleName.ROLE_MANAGER))
-                .thenReturn(Optional.of(roleManager));
-        when(paymentRepository.findAll(any(Specification.class), any(Pageable.class)))
-                .thenReturn(new PageImpl<Payment>(List.of(validPayment)));
-        when(paymentMapper.toDto(validPayment))
+        when(paymentRepository.findAllViews(any(Specification.class), any(Pageable.class)))
+                .thenReturn(List.of(paymentView));
+        when(paymentMapper.toDto(paymentView))
                 .thenReturn(expected);
 
         Pageable pageable = PageRequest.of(0, 20);
-        List<PaymentResponseDto> actual = stripeService.search(VALID_EMAIL, searchParametersDto,
-                pageable);
+        List<PaymentResponseDto> actual = stripeService.search(
+                createAuthenticatedUser(VALID_ID, Role.RoleName.ROLE_CUSTOMER),
+                searchParametersDto, pageable);
 
         Assertions.assertEquals(List.of(expected), actual);
     }
 
     @Test
     @DisplayName("processSuccessfulPayment() method work")
-    public void processSuccessfulPayment_WithValidSessionId_ReturnPaymentResponseDto()
-            throws MalformedURLException {
-        Payment payment = createValidPayment();
-        payment.setStatus(Payment.Status.PAID);
+    public void processSuccessfulPayment_WithValidSessionId_ReturnPaymentResponseDto() {
         when(paymentRepository.findBySessionId(VALID_SESSION_ID))
                 .thenReturn(Optional.of(createValidPayment()));
         Session mockSession = mock(Session.class);
@@ -166,8 +161,8 @@ public class StripePaymentServiceTest {
         }
         when(mockSession.getPaymentStatus())
                 .thenReturn("paid");
-        when(paymentRepository.save(payment))
-                .thenReturn(payment);
+        when(rentalBalanceLedger.transition(any(Payment.class), eq(Payment.Status.PAID)))
+                .thenReturn(true);
         PaymentResponseDto expected = new PaymentResponseDto(
                 VALID_ID,
                 VALID_ID,
@@ -178,7 +173,7 @@ public class StripePaymentServiceTest {
                 VALID_SESSION_ID,
                 BigDecimal.TEN
         );
-        when(paymentMapper.toDto(payment))
+        when(paymentMapper.toDto(any(Payment.class)))
                 .thenReturn(expected);
 
         PaymentResponseDto actual = stripeService.processSuccessfulPayment(VALID_SESSION_ID);
@@ -192,7 +187,6 @@ public class StripePaymentServiceTest {
     public void processCanceledPayment_WithValidSessionId_ReturnPaymentResponseDto()
             throws MalformedURLException {
         Payment payment = createValidPayment();
-        payment.setStatus(Payment.Status.CANCEL);
         PaymentResponseDto expected = new PaymentResponseDto(
                 VALID_ID,
                 VALID_ID,
@@ -204,17 +198,16 @@ public class StripePaymentServiceTest {
                 BigDecimal.TEN
         );
         when(paymentRepository.findBySessionId(VALID_SESSION_ID))
-                .thenReturn(Optional.of(createValidPayment()));
+                .thenReturn(Optional.of(payment));
         doNothing()
                 .when(notificationService).sendNotification(anyLong(), anyString());
-        when(paymentRepository.save(payment))
-                .thenReturn(payment);
         when(paymentMapper.toDto(payment))
                 .thenReturn(expected);
 
         PaymentResponseDto actual = stripeService.processCanceledPayment(VALID_SESSION_ID);
 
         Assertions.assertEquals(expected, actual);
+        verify(rentalBalanceLedger).transition(payment, Payment.Status.CANCEL);
         verify(notificationService).sendNotification(any(Long.class), any(String.class));
     }
 
@@ -224,8 +217,6 @@ public class StripePaymentServiceTest {
             throws StripeException, MalformedURLException {
         Payment payment = createValidPayment();
         payment.setStatus(Payment.Status.CANCEL);
-        Role roleManager = new Role();
-        roleManager.setName(Role.RoleName.ROLE_MANAGER);
         Session mockSession = mock(Session.class);
         when(mockSession.getId())
                 .thenReturn("new_stripe_session_id");
@@ -241,22 +232,20 @@ public class StripePaymentServiceTest {
                 "new_stripe_session_id",
                 BigDecimal.TEN
         );
-        when(paymentRepository.findById(anyLong()))
+        when(paymentRepository.findWithRentalAndCarById(anyLong()))
                 .thenReturn(Optional.of(payment));
-        when(userRepository.findByEmail(anyString()))
-                .thenReturn(Optional.of(createValidUser()));
-        when(roleRepository.findByName(Role.RoleName.ROLE_MANAGER))
-                .thenReturn(Optional.of(roleManager));
-
         when(stripeSessionProvider.createStripeSession(any(BigDecimal.class), anyString()))
                 .thenReturn(mockSession);
         when(paymentRepository.save(any(Payment.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
+        when(rentalBalanceLedger.transition(payment, Payment.Status.PENDING))
+                .thenReturn(true);
         when(paymentMapper.toDto(any(Payment.class)))
                 .thenReturn(expected);
 
         PaymentResponseDto actualResponse =
-                stripeService.renewPaymentSession(VALID_ID, VALID_EMAIL);
+                stripeService.renewPaymentSession(VALID_ID,
+                        createAuthenticatedUser(VALID_ID, Role.RoleName.ROLE_CUSTOMER));
 
         Assertions.assertNotNull(actualResponse);
         Assertions.assertEquals(expected, actualResponse);
@@ -264,54 +253,105 @@ public class StripePaymentServiceTest {
         Assertions.assertEquals("http://new.payment.url", actualResponse.sessionUrl());
     }
 
+    @Test
+    @DisplayName("renewPaymentSession() method doesn't open a session "
+            + "when another renewal claimed the payment first")
+    void renewPaymentSession_AlreadyClaimed_DoesNotCreateSession()
+            throws StripeException, MalformedURLException {
+        Payment payment = createValidPayment();
+        payment.setStatus(Payment.Status.CANCEL);
+        when(paymentRepository.findWithRentalAndCarById(VALID_ID))
+                .thenReturn(Optional.of(payment));
+        when(rentalBalanceLedger.transition(payment, Payment.Status.PENDING))
+                .thenReturn(false);
+
+        Assertions.assertThrows(PaymentException.class,
+                () -> stripeService.renewPaymentSession(VALID_ID,
+                        createAuthenticatedUser(VALID_ID, Role.RoleName.ROLE_CUSTOMER)));
+        verify(stripeSessionProvider, never()).createStripeSession(any(), anyString());
+        verify(paymentRepository, never()).save(any(Payment.class));
+    }
+
     @Test
     @DisplayName("renewPaymentSession() method with invalid 'paymentId' "
             + "throws EntityNotFoundException")
     void renewPaymentSession_WitInvalidPaymentId_ThrowEntityNotFoundException() {
-        when(paymentRepository.findById(NOT_VALID_ID))
+        when(paymentRepository.findWithRentalAndCarById(NOT_VALID_ID))
                 .thenReturn(Optional.empty());
 
         Assertions.assertThrows(EntityNotFoundException.class,
-                () -> stripeService.renewPaymentSession(NOT_VALID_ID, VALID_EMAIL));
+                () -> stripeService.renewPaymentSession(NOT_VALID_ID,
+                        createAuthenticatedUser(VALID_ID, Role.RoleName.ROLE_CUSTOMER)));
     }
 
     @Test
-    @DisplayName("renewPaymentSession() method with invalid 'email' "
-            + "throws EntityNotFoundException")
-    void renewPaymentSession_WitInvalidEmail_ThrowEntityNotFoundException()
+    @DisplayName("renewPaymentSession() method for another customer's payment "
+            + "throws PaymentException")
+    void renewPaymentSession_WithAnotherCustomer_ThrowPaymentException()
             throws MalformedURLException {
         Long validPaymentId = VALID_ID;
-        String email = "invalid@email.com";
         Payment payment = createValidPayment();
 
-        when(paymentRepository.findById(validPaymentId))
+        when(paymentRepository.findWithRentalAndCarById(validPaymentId))
                 .thenReturn(Optional.of(payment));
-        when(userRepository.findByEmail(anyString()))
-                .thenReturn(Optional.empty());
 
-        Assertions.assertThrows(RuntimeException.class,
-                () -> stripeService.renewPaymentSession(validPaymentId, email));
+        Assertions.assertThrows(PaymentException.class,
+                () -> stripeService.renewPaymentSession(validPaymentId,
+                        createAuthenticatedUser(VALID_ID + 1, Role.RoleName.ROLE_CUSTOMER)));
     }
 
     @Test
     @DisplayName("checkExpiredStripeSessions() methode updates status for expired sessions")
-    void checkExpiredStripeSessions_UpdateExpiredSessionStatus()
-            throws StripeException, MalformedURLException {
-        List<Payment> pendingPayments = List.of(createValidPayment());
-        Session expiredSession = mock(Session.class);
-        when(expiredSession.getStatus())
-                .thenReturn("expired");
-        when(paymentRepository.findAllByStatus(Payment.Status.PENDING))
-                .thenReturn(pendingPayments);
-        when(stripeSessionProvider.retrieveSession(anyString()))
-                .thenReturn(expiredSession);
-        when(paymentRepository.save(any(Payment.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+    void checkExpiredStripeSessions_UpdateExpiredSessionStatus() {
+        List<PaymentSession> pendingSessions =
+                List.of(new PaymentSession(VALID_ID, VALID_SESSION_ID));
+        when(paymentRepository.findSessionsByStatus(Payment.Status.PENDING))
+                .thenReturn(pendingSessions);
+        when(stripeSessionReconciler.findExpiredPaymentIds(pendingSessions))
+                .thenReturn(List.of(VALID_ID));
 
         stripeService.checkExpiredStripeSessions();
 
-        for (Payment payment : pendingPayments) {
-            Assertions.assertEquals(Payment.Status.EXPIRED, payment.getStatus());
-        }
+        verify(rentalBalanceLedger).transitionAll(List.of(VALID_ID),
+                Payment.Status.PENDING, Payment.Status.EXPIRED);
+    }
+
+    @Test
+    @DisplayName("checkExpiredStripeSessions() method checks only payments of its partition")
+    void checkExpiredStripeSessions_WithPartitions_ReadsOnlyOwnPartition() {
+        List<PaymentSession> pendingSessions =
+                List.of(new PaymentSession(VALID_ID, VALID_SESSION_ID));
+        when(paymentRepository.findSessionsByStatusInPartition(Payment.Status.PENDING, 1, 4))
+                .thenReturn(pendingSessions);
+        when(stripeSessionReconciler.findExpiredPaymentIds(pendingSessions))
+                .thenReturn(List.of());
+
+        stripeService.checkExpiredStripeSessions(1, 4);
+
+        verify(paymentRepository, never()).findSessionsByStatus(any());
+        verify(rentalBalanceLedger, never()).transitionAll(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("markSessionPaid() method notifies user only once")
+    void markSessionPaid_AlreadyPaid_DoesNotNotifyAgain() throws MalformedURLException {
+        Payment payment = createValidPayment();
+        payment.setStatus(Payment.Status.PAID);
+        when(paymentRepository.findBySessionId(VALID_SESSION_ID))
+                .thenReturn(Optional.of(payment));
+
+        stripeService.markSessionPaid(VALID_SESSION_ID);
+
+        verify(notificationService, never()).sendNotification(anyLong(), anyString());
+        verify(rentalBalanceLedger).transition(payment, Payment.Status.PAID);
+    }
+
+    @Test
+    @DisplayName("markSessionPaid() method reports a session without payment")
+    void markSessionPaid_UnknownSession_ReturnsFalse() {
+        when(paymentRepository.findBySessionId(VALID_SESSION_ID)).thenReturn(Optional.empty());
+
+        Assertions.assertFalse(stripeService.markSessionPaid(VALID_SESSION_ID));
+        verify(rentalBalanceLedger, never()).transition(any(), any());
     }
 }
@@ -0,0 +1,129 @@
+package mate.academy.carsharing.service.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.HexFormat;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import mate.academy.carsharing.exception.PaymentException;
+import mate.academy.carsharing.model.StripeWebhookEvent;
+import mate.academy.carsharing.repository.payment.StripeWebhookEventRepository;
+import mate.academy.carsharing.service.PaymentService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class StripeWebhookServiceTest {
+    private static final String WEBHOOK_SECRET = "whsec_test_secret";
+    private static final String SESSION_ID =
+            "cs_test_a1Yk3ZsGv8xH2c9zJ0mQ4rT7uW5nB6pL8dF3gK1jS2eR4tY7uI9oP0aS";
+    private static final String COMPLETED_EVENT_ID = "evt_1P3cHk2eZvKYlo2C0aSY5pUy";
+    private static final String UNKNOWN_SESSION_ID =
+            "cs_test_b7Rn2QwXk4Lm9Vc3Hs8Jd1Fp6Ty0Ug5Ze2Ai7Ok4Mx3Nb9Pq1Wr8Ev6Cy0D";
+    private static final String UNKNOWN_SESSION_EVENT_ID = "evt_1P3dQw2eZvKYlo2CqLm8Rt0n";
+
+    @Mock
+    private StripeWebhookEventRepository stripeWebhookEventRepository;
+    @Mock
+    private PaymentService paymentService;
+    @InjectMocks
+    private StripeWebhookServiceImpl stripeWebhookService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stripeWebhookService, "webhookSecret", WEBHOOK_SECRET);
+    }
+
+    @Test
+    @DisplayName("handleEvent() method marks payment as paid on completed session")
+    void handleEvent_SessionCompleted_MarksPaymentPaid() throws Exception {
+        String payload = readFixture("checkout.session.completed.json");
+        when(stripeWebhookEventRepository.existsById(COMPLETED_EVENT_ID)).thenReturn(false);
+
+        stripeWebhookService.handleEvent(payload, sign(payload));
+
+        verify(paymentService).markSessionPaid(SESSION_ID);
+        verify(stripeWebhookEventRepository).save(any(StripeWebhookEvent.class));
+    }
+
+    @Test
+    @DisplayName("handleEvent() method marks payment as expired on expired session")
+    void handleEvent_SessionExpired_MarksPaymentExpired() throws Exception {
+        String payload = readFixture("checkout.session.expired.json");
+
+        stripeWebhookService.handleEvent(payload, sign(payload));
+
+        verify(paymentService).markSessionExpired(SESSION_ID);
+        verify(paymentService, never()).markSessionPaid(anyString());
+    }
+
+    @Test
+    @DisplayName("handleEvent() method acknowledges an event of an unknown session")
+    void handleEvent_UnknownSession_RecordsEvent() throws Exception {
+        String payload = readFixture("checkout.session.completed.unknown_session.json");
+        when(paymentService.markSessionPaid(UNKNOWN_SESSION_ID)).thenReturn(false);
+
+        stripeWebhookService.handleEvent(payload, sign(payload));
+
+        ArgumentCaptor<StripeWebhookEvent> captor =
+                ArgumentCaptor.forClass(StripeWebhookEvent.class);
+        verify(stripeWebhookEventRepository).save(captor.capture());
+        Assertions.assertEquals(UNKNOWN_SESSION_EVENT_ID, captor.getValue().getEventId());
+    }
+
+    @Test
+    @DisplayName("handleEvent() method skips already handled event")
+    void handleEvent_DuplicateEvent_DoesNothing() throws Exception {
+        String payload = readFixture("checkout.session.completed.json");
+        when(stripeWebhookEventRepository.existsById(COMPLETED_EVENT_ID)).thenReturn(true);
+
+        stripeWebhookService.handleEvent(payload, sign(payload));
+
+        verify(paymentService, never()).markSessionPaid(anyString());
+        verify(stripeWebhookEventRepository, never()).save(any(StripeWebhookEvent.class));
+    }
+
+    @Test
+    @DisplayName("handleEvent() method rejects payload with wrong signature")
+    void handleEvent_InvalidSignature_ThrowsException() throws Exception {
+        String payload = readFixture("checkout.session.completed.json");
+        String signature = sign(payload);
+
+        Assertions.assertThrows(PaymentException.class,
+                () -> stripeWebhookService.handleEvent(payload.replace("paid", "unpaid"),
+                        signature));
+        verify(paymentService, never()).markSessionPaid(anyString());
+    }
+
+    private String readFixture(String name) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/stripe/" + name)) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private String sign(String payload) throws GeneralSecurityException {
+        long timestamp = Instant.now().getEpochSecond();
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(WEBHOOK_SECRET.getBytes(StandardCharsets.UTF_8),
+                "HmacSHA256"));
+        byte[] hash = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(hash);
+    }
+}
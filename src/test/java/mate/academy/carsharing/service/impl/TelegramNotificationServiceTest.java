@@ -1,14 +1,18 @@
 package mate.academy.carsharing.service.impl;
 
 import static mate.academy.carsharing.util.TestUtils.createValidUser;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import mate.academy.carsharing.model.TelegramUserInfo;
 import mate.academy.carsharing.model.User;
+import mate.academy.carsharing.outbox.NotificationOutbox;
+import mate.academy.carsharing.repository.telegram.TelegramChat;
 import mate.academy.carsharing.repository.telegram.TelegramUserInfoRepository;
 import mate.academy.carsharing.telegram.TelegramMessageEvent;
 import org.junit.jupiter.api.DisplayName;
@@ -18,12 +22,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 public class TelegramNotificationServiceTest {
     @Mock
-    private ApplicationEventPublisher eventPublisher;
+    private NotificationOutbox notificationOutbox;
     @Mock
     private TelegramUserInfoRepository telegramUserInfoRepository;
     @InjectMocks
@@ -42,8 +47,7 @@ public class TelegramNotificationServiceTest {
 
         telegramNotificationService.sendNotification(validUser.getId(), message);
 
-        verify(eventPublisher)
-                .publishEvent(new TelegramMessageEvent(userInfo.getChatId(), message));
+        verify(notificationOutbox).enqueue(userInfo.getChatId(), message);
     }
 
     @Test
@@ -56,43 +60,72 @@ public class TelegramNotificationServiceTest {
 
         telegramNotificationService.sendNotification(userId, message);
 
-        verify(eventPublisher, never())
-                .publishEvent(Mockito.any(TelegramMessageEvent.class));
+        verify(notificationOutbox, never()).enqueue(Mockito.anyLong(), Mockito.anyString());
     }
 
     @Test
-    @DisplayName("sendGlobalNotification() method sends messages to all users")
-    void sendGlobalNotification_SendMessageToAllUsers() {
+    @DisplayName("sendFailureNotification() method enqueues outside the caller's transaction")
+    void sendFailureNotification_WithValidUserId_EnqueuesInNewTransaction() {
         User validUser = createValidUser();
-        TelegramUserInfo userInfo01 = new TelegramUserInfo();
-        userInfo01.setId(1L);
-        userInfo01.setChatId(123L);
-        userInfo01.setUser(validUser);
-        TelegramUserInfo userInfo02 = new TelegramUserInfo();
-        userInfo02.setId(1L);
-        userInfo02.setChatId(456L);
-        userInfo02.setUser(createValidUser());
-        String message = "Global message";
+        TelegramUserInfo userInfo = new TelegramUserInfo();
+        userInfo.setChatId(123L);
+        userInfo.setUser(validUser);
+        String message = "Test message";
+        when(telegramUserInfoRepository.findByUserId(validUser.getId()))
+                .thenReturn(Optional.of(userInfo));
 
-        List<TelegramUserInfo> userList = List.of(userInfo01, userInfo02);
-        Mockito.when(telegramUserInfoRepository.findAll()).thenReturn(userList);
+        telegramNotificationService.sendFailureNotification(validUser.getId(), message);
+
+        verify(notificationOutbox).enqueueInNewTransaction(userInfo.getChatId(), message);
+        verify(notificationOutbox, never()).enqueue(Mockito.anyLong(), Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("sendGlobalNotification() method sends messages to all chats chunk by chunk")
+    void sendGlobalNotification_SendMessageToAllChatsInChunks() {
+        ReflectionTestUtils.setField(telegramNotificationService, "broadcastChunkSize", 2);
+        String message = "Global message";
+        when(telegramUserInfoRepository.findChatIdsAfter(Long.MIN_VALUE, PageRequest.of(0, 2)))
+                .thenReturn(List.of(123L, 456L));
+        when(telegramUserInfoRepository.findChatIdsAfter(456L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(789L));
 
         telegramNotificationService.sendGlobalNotification(message);
 
-        userList.forEach(user -> Mockito.verify(eventPublisher)
-                .publishEvent(new TelegramMessageEvent(user.getChatId(), message)));
+        verify(notificationOutbox).enqueue(List.of(123L, 456L), message,
+                TelegramMessageEvent.Priority.BROADCAST);
+        verify(notificationOutbox).enqueue(List.of(789L), message,
+                TelegramMessageEvent.Priority.BROADCAST);
+        verify(telegramUserInfoRepository, never()).findAll();
     }
 
     @Test
-    @DisplayName("sendGlobalNotification() method does nothing if users list is empty")
-    void sendGlobalNotification_NoUsers() {
+    @DisplayName("sendGlobalNotification() method does nothing if there are no chats")
+    void sendGlobalNotification_NoChats() {
+        ReflectionTestUtils.setField(telegramNotificationService, "broadcastChunkSize", 2);
         String message = "Global message";
-        Mockito.when(telegramUserInfoRepository.findAll())
+        when(telegramUserInfoRepository.findChatIdsAfter(Long.MIN_VALUE, PageRequest.of(0, 2)))
                 .thenReturn(List.of());
 
         telegramNotificationService.sendGlobalNotification(message);
 
-        Mockito.verify(eventPublisher, Mockito.never())
-                .publishEvent(Mockito.any(TelegramMessageEvent.class));
+        verify(notificationOutbox, never()).enqueue(anyCollection(), Mockito.any(),
+                Mockito.any());
+    }
+
+    @Test
+    @DisplayName("sendNotifications() method resolves all chats with one query")
+    void sendNotifications_WithSeveralUsers_SendMessageToEveryRegisteredChat() {
+        TelegramChat chat = Mockito.mock(TelegramChat.class);
+        when(chat.getUserId()).thenReturn(1L);
+        when(chat.getChatId()).thenReturn(123L);
+        Map<Long, String> messagesByUserId = Map.of(1L, "First", 2L, "Second");
+        when(telegramUserInfoRepository.findChatsByUserIds(messagesByUserId.keySet()))
+                .thenReturn(List.of(chat));
+
+        telegramNotificationService.sendNotifications(messagesByUserId);
+
+        verify(notificationOutbox).enqueue(Map.of(123L, "First"));
+        verify(telegramUserInfoRepository, never()).findByUserId(Mockito.anyLong());
     }
 }
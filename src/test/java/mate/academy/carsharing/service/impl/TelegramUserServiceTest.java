@@ -4,7 +4,6 @@ import static mate.academy.carsharing.util.TestUtils.NOT_VALID_EMAIL;
 import static mate.academy.carsharing.util.TestUtils.REGISTRATION_SUCCESS;
 import static mate.academy.carsharing.util.TestUtils.VALID_CHAT_ID;
 import static mate.academy.carsharing.util.TestUtils.VALID_EMAIL;
-import static mate.academy.carsharing.util.TestUtils.VALID_ID;
 import static mate.academy.carsharing.util.TestUtils.createValidTelegramUserState;
 import static mate.academy.carsharing.util.TestUtils.createValidUser;
 import static org.mockito.Mockito.verify;
@@ -15,6 +14,7 @@ import mate.academy.carsharing.repository.telegram.TelegramUserInfoRepository;
 import mate.academy.carsharing.repository.user.UserRepository;
 import mate.academy.carsharing.telegram.TelegramMessageEvent;
 import mate.academy.carsharing.telegram.TelegramUserState;
+import mate.academy.carsharing.telegram.TelegramUserStateStore;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -32,6 +32,8 @@ public class TelegramUserServiceTest {
     private TelegramUserInfoRepository telegramUserInfoRepository;
     @Mock
     private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private TelegramUserStateStore telegramUserStateStore;
     @InjectMocks
     private TelegramUserServiceImpl telegramUserService;
 
@@ -48,9 +50,6 @@ public class TelegramUserServiceTest {
     @Test
     @DisplayName("registerNewUser() method registers a new user and sends success message")
     public void registerNewUser_WithValidChatIdAndUsername_SendSuccessRegistrationMessage() {
-        TelegramUserState telegramUserState = new TelegramUserState(VALID_ID, VALID_EMAIL, false);
-        telegramUserService.addUserState(VALID_CHAT_ID, telegramUserState);
-
         when(telegramUserInfoRepository.findByChatId(VALID_CHAT_ID))
                 .thenReturn(Optional.empty());
         when(userRepository.findByEmail(VALID_EMAIL))
@@ -60,13 +59,16 @@ public class TelegramUserServiceTest {
 
         verify(eventPublisher)
                 .publishEvent(new TelegramMessageEvent(VALID_CHAT_ID, REGISTRATION_SUCCESS));
+        verify(telegramUserStateStore).put(VALID_CHAT_ID,
+                new TelegramUserState(VALID_CHAT_ID, VALID_EMAIL, false));
     }
 
     @Test
     @DisplayName("getUserState() method works")
     void getUserState_ValidChatId_ValidTelegramUserState() {
         TelegramUserState expected = createValidTelegramUserState();
-        telegramUserService.addUserState(VALID_CHAT_ID, expected);
+        when(telegramUserStateStore.get(VALID_CHAT_ID))
+                .thenReturn(expected);
 
         TelegramUserState actual = telegramUserService.getUserState(VALID_CHAT_ID);
 
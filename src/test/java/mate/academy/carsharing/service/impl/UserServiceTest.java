@@ -1,11 +1,12 @@
 package mate.academy.carsharing.service.impl;
 
-import static mate.academy.carsharing.util.TestUtils.NOT_VALID_EMAIL;
+import static mate.academy.carsharing.util.TestUtils.NOT_VALID_ID;
 import static mate.academy.carsharing.util.TestUtils.VALID_EMAIL;
 import static mate.academy.carsharing.util.TestUtils.VALID_FIRST_NAME;
 import static mate.academy.carsharing.util.TestUtils.VALID_ID;
 import static mate.academy.carsharing.util.TestUtils.VALID_NEW_LAST_NAME;
 import static mate.academy.carsharing.util.TestUtils.VALID_ROLE;
+import static mate.academy.carsharing.util.TestUtils.createAuthenticatedUser;
 import static mate.academy.carsharing.util.TestUtils.createValidRole;
 import static mate.academy.carsharing.util.TestUtils.createValidUser;
 import static mate.academy.carsharing.util.TestUtils.createValidUserRegistrationRequestDto;
@@ -20,7 +21,6 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Optional;
-import java.util.Set;
 import mate.academy.carsharing.dto.user.UserRegistrationRequestDto;
 import mate.academy.carsharing.dto.user.UserResponseDto;
 import mate.academy.carsharing.dto.user.UserResponseDtoWithRoles;
@@ -31,8 +31,10 @@ import mate.academy.carsharing.exception.RegistrationException;
 import mate.academy.carsharing.mapper.UserMapper;
 import mate.academy.carsharing.model.Role;
 import mate.academy.carsharing.model.User;
-import mate.academy.carsharing.repository.role.RoleRepository;
+import mate.academy.carsharing.repository.role.RoleRegistry;
 import mate.academy.carsharing.repository.user.UserRepository;
+import mate.academy.carsharing.security.CachingDaoAuthenticationProvider;
+import mate.academy.carsharing.security.TokenVersionRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -48,9 +50,13 @@ public class UserServiceTest {
     @Mock
     private UserMapper userMapper;
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+    @Mock
+    private CachingDaoAuthenticationProvider authenticationProvider;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -66,8 +72,6 @@ public class UserServiceTest {
                 .thenReturn(newUser);
         when(passwordEncoder.encode(requestDto.password()))
                 .thenReturn("HashedPassword");
-        when(roleRepository.findByName(any(Role.RoleName.class)))
-                .thenReturn(Optional.of(createValidRole(VALID_ID, Role.RoleName.ROLE_CUSTOMER)));
         User savedUser = createValidUser();
         when(userRepository.save(newUser))
                 .thenReturn(savedUser);
@@ -84,12 +88,12 @@ public class UserServiceTest {
     public void updateUserRole_WithValidUserUpdateRoleRequestDto_ReturnUserResponseDtoWithRoles() {
         User user = createValidUser();
         Role role = createValidRole(VALID_ID, Role.RoleName.ROLE_CUSTOMER);
-        user.setRoles(Set.of(role));
+        user.addRole(role.getName());
         UserUpdateRoleRequestDto requestDto = createValidUserUpdateRoleRequestDto();
         UserResponseDtoWithRoles expected = createValidUserWithRoleResponseDto();
         when(userRepository.findById(VALID_ID))
                 .thenReturn(Optional.of(createValidUser()));
-        when(roleRepository.findByName(VALID_ROLE))
+        when(roleRegistry.findByName(VALID_ROLE))
                 .thenReturn(Optional.of(role));
         when(userRepository.save(user))
                 .thenReturn(user);
@@ -99,11 +103,12 @@ public class UserServiceTest {
         UserResponseDtoWithRoles actual = userService.updateUserRole(VALID_ID, requestDto);
 
         assertEquals(expected, actual);
+        verify(tokenVersionRegistry).evict(VALID_ID);
     }
 
     @Test
     @DisplayName("updateUserInfo() method works")
-    public void updateUserInfo_WithValidEmailAndUserUpdateInfoRequestDto_ReturnUserResponseDto() {
+    public void updateUserInfo_WithValidUserAndUserUpdateInfoRequestDto_ReturnUserResponseDto() {
         User user = createValidUser();
         UserResponseDto expected = new UserResponseDto(
                 VALID_ID,
@@ -113,30 +118,33 @@ public class UserServiceTest {
         );
 
         UserUpdateInfoRequestDto requestDto = createValidUserUpdateInfoRequestDto();
-        when(userRepository.findByEmail(VALID_EMAIL))
+        when(userRepository.findById(VALID_ID))
                 .thenReturn(Optional.of(user));
         when(userRepository.save(user))
                 .thenReturn(user);
         when(userMapper.toDto(user))
                 .thenReturn(expected);
 
-        UserResponseDto actual = userService.updateUserInfo(VALID_EMAIL, requestDto);
+        UserResponseDto actual = userService.updateUserInfo(
+                createAuthenticatedUser(VALID_ID, Role.RoleName.ROLE_CUSTOMER), requestDto);
 
         verify(userMapper).toDto(user);
         assertEquals(expected, actual);
+        verify(authenticationProvider).evict(VALID_EMAIL);
     }
 
     @Test
     @DisplayName("getUserInfo() method works")
-    public void getUserInfo_WithValidEmail_ReturnUserResponseDtoWithRoles() {
+    public void getUserInfo_WithValidUser_ReturnUserResponseDtoWithRoles() {
         User user = createValidUser();
         UserResponseDtoWithRoles expected = createValidUserWithRoleResponseDto();
-        when(userRepository.findByEmail(VALID_EMAIL))
+        when(userRepository.findById(VALID_ID))
                 .thenReturn(Optional.of(user));
         when(userMapper.toDtoWithRoles(user))
                 .thenReturn(expected);
 
-        UserResponseDtoWithRoles actual = userService.getUserInfo(VALID_EMAIL);
+        UserResponseDtoWithRoles actual = userService.getUserInfo(
+                createAuthenticatedUser(VALID_ID, Role.RoleName.ROLE_CUSTOMER));
 
         assertEquals(expected, actual);
     }
@@ -157,7 +165,7 @@ public class UserServiceTest {
         User user = createValidUser();
         when(userRepository.findById(VALID_ID))
                 .thenReturn(Optional.of(user));
-        when(roleRepository.findByName(any(Role.RoleName.class)))
+        when(roleRegistry.findByName(any(Role.RoleName.class)))
                 .thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class, () -> userService.updateUserRole(VALID_ID,
@@ -166,11 +174,12 @@ public class UserServiceTest {
     }
 
     @Test
-    @DisplayName("getUserInfo() method with invalid 'email' throws EntityNotFoundException")
-    void getUserInfo_WithNotValidEmail_ThrowEntityNotFoundException() {
-        when(userRepository.findByEmail(NOT_VALID_EMAIL))
+    @DisplayName("getUserInfo() method with invalid user id throws EntityNotFoundException")
+    void getUserInfo_WithNotValidUserId_ThrowEntityNotFoundException() {
+        when(userRepository.findById(NOT_VALID_ID))
                 .thenReturn(Optional.empty());
 
-        assertThrows(EntityNotFoundException.class, () -> userService.getUserInfo(NOT_VALID_EMAIL));
+        assertThrows(EntityNotFoundException.class, () -> userService.getUserInfo(
+                createAuthenticatedUser(NOT_VALID_ID, Role.RoleName.ROLE_CUSTOMER)));
     }
 }
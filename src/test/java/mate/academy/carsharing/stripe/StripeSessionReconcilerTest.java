@@ -0,0 +1,89 @@
+package mate.academy.carsharing.stripe;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import mate.academy.carsharing.repository.payment.PaymentSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class StripeSessionReconcilerTest {
+    @Mock
+    private StripeSessionProvider stripeSessionProvider;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @InjectMocks
+    private StripeSessionReconciler stripeSessionReconciler;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stripeSessionReconciler, "concurrency", 4);
+        ReflectionTestUtils.setField(stripeSessionReconciler, "runTimeout",
+                Duration.ofSeconds(5));
+        stripeSessionReconciler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stripeSessionReconciler.stop();
+    }
+
+    @Test
+    @DisplayName("findExpiredPaymentIds() method keeps going when a session can't be retrieved")
+    void findExpiredPaymentIds_OneCallFails_ReturnsOtherExpiredSessions()
+            throws StripeException {
+        Session expiredSession = mock(Session.class);
+        when(expiredSession.getStatus()).thenReturn("expired");
+        Session openSession = mock(Session.class);
+        when(openSession.getStatus()).thenReturn("open");
+        when(stripeSessionProvider.retrieveSession("failing"))
+                .thenThrow(mock(StripeException.class));
+        when(stripeSessionProvider.retrieveSession("expired")).thenReturn(expiredSession);
+        when(stripeSessionProvider.retrieveSession("open")).thenReturn(openSession);
+
+        List<Long> expiredPaymentIds = stripeSessionReconciler.findExpiredPaymentIds(List.of(
+                new PaymentSession(1L, "failing"),
+                new PaymentSession(2L, "expired"),
+                new PaymentSession(3L, "open")));
+
+        Assertions.assertEquals(List.of(2L), expiredPaymentIds);
+        Assertions.assertEquals(1,
+                meterRegistry.counter("payments.reconciliation.failures").count());
+        Assertions.assertEquals(1, meterRegistry.timer("payments.reconciliation.run").count());
+    }
+
+    @Test
+    @DisplayName("findExpiredPaymentIds() method stops waiting when the run times out")
+    void findExpiredPaymentIds_RunTimesOut_ReturnsWithoutSlowSessions()
+            throws StripeException {
+        ReflectionTestUtils.setField(stripeSessionReconciler, "runTimeout",
+                Duration.ofMillis(100));
+        when(stripeSessionProvider.retrieveSession("slow")).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return null;
+        });
+
+        List<Long> expiredPaymentIds = stripeSessionReconciler.findExpiredPaymentIds(
+                List.of(new PaymentSession(1L, "slow")));
+
+        Assertions.assertTrue(expiredPaymentIds.isEmpty());
+        Assertions.assertEquals(1,
+                meterRegistry.counter("payments.reconciliation.failures").count());
+    }
+}
@@ -0,0 +1,92 @@
+package mate.academy.carsharing.telegram;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import mate.academy.carsharing.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChatLaneExecutorTest {
+    private static final long FIRST_CHAT_ID = 1L;
+    private static final long SECOND_CHAT_ID = 2L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatLaneExecutor chatLaneExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        chatLaneExecutor = new ChatLaneExecutor(meterRegistry, 2, 3, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        chatLaneExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("execute() runs the tasks of one chat in the order they came")
+    void execute_SameChat_KeepsOrder() throws InterruptedException {
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            int number = i;
+            chatLaneExecutor.execute(FIRST_CHAT_ID, () -> {
+                processed.add(number);
+                done.countDown();
+            });
+        }
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of(0, 1, 2), processed);
+    }
+
+    @Test
+    @DisplayName("execute() runs another chat while the first one is busy")
+    void execute_BusyChat_OtherChatProceeds() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherChatDone = new CountDownLatch(1);
+        chatLaneExecutor.execute(FIRST_CHAT_ID, () -> await(release));
+
+        chatLaneExecutor.execute(SECOND_CHAT_ID, otherChatDone::countDown);
+
+        Assertions.assertTrue(otherChatDone.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("execute() rejects a task when the chat backlog is full")
+    void execute_BacklogFull_ThrowsException() {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        chatLaneExecutor.execute(FIRST_CHAT_ID, () -> {
+            started.countDown();
+            await(release);
+        });
+        await(started);
+        for (int i = 0; i < 3; i++) {
+            chatLaneExecutor.execute(FIRST_CHAT_ID, () -> { });
+        }
+
+        Assertions.assertThrows(ServiceBusyException.class,
+                () -> chatLaneExecutor.execute(FIRST_CHAT_ID, () -> { }));
+        chatLaneExecutor.execute(SECOND_CHAT_ID, () -> { });
+        Assertions.assertEquals(1, meterRegistry.counter("telegram.updates.rejected").count());
+        release.countDown();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package mate.academy.carsharing.telegram;
+
+import java.time.Duration;
+import mate.academy.carsharing.event.RentalsChangedEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+public class RentalPageCacheTest {
+    private static final Long USER_ID = 3L;
+    private static final Long FIRST_CHAT_ID = 111L;
+    private static final Long SECOND_CHAT_ID = 222L;
+    private static final Long OTHER_CHAT_ID = 333L;
+    private static final String KEY = "active 0";
+
+    private RentalPageCache rentalPageCache;
+
+    @BeforeEach
+    void setUp() {
+        rentalPageCache = new RentalPageCache(Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    @DisplayName("onRentalsChanged() drops the pages of every chat of the user")
+    void onRentalsChanged_UserWithSeveralChats_DropsPagesOfAllChats() {
+        RentalPageCache.RentalPage page =
+                new RentalPageCache.RentalPage("No rentals", new InlineKeyboardMarkup());
+        long generation = rentalPageCache.currentGeneration();
+        rentalPageCache.put(FIRST_CHAT_ID, USER_ID, generation, KEY, page);
+        rentalPageCache.put(SECOND_CHAT_ID, USER_ID, generation, KEY, page);
+        rentalPageCache.put(OTHER_CHAT_ID, 4L, generation, KEY, page);
+
+        rentalPageCache.onRentalsChanged(new RentalsChangedEvent(USER_ID));
+
+        Assertions.assertNull(rentalPageCache.get(FIRST_CHAT_ID, KEY));
+        Assertions.assertNull(rentalPageCache.get(SECOND_CHAT_ID, KEY));
+        Assertions.assertEquals(page, rentalPageCache.get(OTHER_CHAT_ID, KEY));
+    }
+
+    @Test
+    @DisplayName("put() skips a page rendered before the rentals of its user changed")
+    void put_RentalsChangedWhileRendering_SkipsStalePage() {
+        RentalPageCache.RentalPage page =
+                new RentalPageCache.RentalPage("No rentals", new InlineKeyboardMarkup());
+        long generation = rentalPageCache.currentGeneration();
+        rentalPageCache.onRentalsChanged(new RentalsChangedEvent(USER_ID));
+
+        rentalPageCache.put(FIRST_CHAT_ID, USER_ID, generation, KEY, page);
+        rentalPageCache.put(OTHER_CHAT_ID, 4L, generation, KEY, page);
+
+        Assertions.assertNull(rentalPageCache.get(FIRST_CHAT_ID, KEY));
+        Assertions.assertEquals(page, rentalPageCache.get(OTHER_CHAT_ID, KEY));
+        rentalPageCache.put(FIRST_CHAT_ID, USER_ID, rentalPageCache.currentGeneration(), KEY,
+                page);
+        Assertions.assertEquals(page, rentalPageCache.get(FIRST_CHAT_ID, KEY));
+    }
+}
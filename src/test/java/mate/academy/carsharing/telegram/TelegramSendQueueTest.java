@@ -0,0 +1,147 @@
+package mate.academy.carsharing.telegram;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import mate.academy.carsharing.exception.ServiceBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+@ExtendWith(MockitoExtension.class)
+public class TelegramSendQueueTest {
+    @Mock
+    private AbsSender sender;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private SimpleMeterRegistry meterRegistry;
+    private TelegramSendQueue telegramSendQueue;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        telegramSendQueue = new TelegramSendQueue(sender, eventPublisher, meterRegistry, 30,
+                Duration.ofSeconds(1), 2, 1, 3, Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        telegramSendQueue.shutdown();
+    }
+
+    @Test
+    @DisplayName("submit() keeps the reserved part of the buffer for replies to users")
+    void submit_BufferFull_RejectsNotificationsButNotReplies() {
+        telegramSendQueue.submit(new TelegramMessageEvent(1L, "First",
+                TelegramMessageEvent.Priority.NOTIFICATION));
+
+        Assertions.assertThrows(ServiceBusyException.class,
+                () -> telegramSendQueue.submit(new TelegramMessageEvent(2L, "Second",
+                        TelegramMessageEvent.Priority.BROADCAST)));
+        telegramSendQueue.submit(new TelegramMessageEvent(3L, "Reply"));
+        Assertions.assertThrows(ServiceBusyException.class,
+                () -> telegramSendQueue.submit(new TelegramMessageEvent(4L, "Another reply")));
+        Assertions.assertEquals(2,
+                meterRegistry.counter("telegram.send.rejected", "priority", "BROADCAST").count()
+                + meterRegistry.counter("telegram.send.rejected", "priority", "INTERACTIVE")
+                        .count());
+    }
+
+    @Test
+    @DisplayName("replies to users are sent before broadcasts submitted earlier")
+    void start_QueuedMessages_SendsRepliesFirst() throws TelegramApiException {
+        telegramSendQueue.submit(new TelegramMessageEvent(1L, "Broadcast",
+                TelegramMessageEvent.Priority.BROADCAST));
+        telegramSendQueue.submit(new TelegramMessageEvent(2L, "Reply"));
+
+        telegramSendQueue.start();
+
+        ArgumentCaptor<SendMessage> sent = ArgumentCaptor.forClass(SendMessage.class);
+        verify(sender, timeout(2000).times(2)).execute(sent.capture());
+        Assertions.assertEquals(List.of("Reply", "Broadcast"),
+                sent.getAllValues().stream().map(SendMessage::getText).toList());
+    }
+
+    @Test
+    @DisplayName("a message rejected with 429 is sent again after retry_after")
+    void start_TooManyRequests_RetriesMessage() throws TelegramApiException {
+        TelegramApiRequestException tooManyRequests =
+                Mockito.mock(TelegramApiRequestException.class);
+        when(tooManyRequests.getErrorCode()).thenReturn(429);
+        when(tooManyRequests.getParameters()).thenReturn(new ResponseParameters(null, 0));
+        when(sender.execute(any(SendMessage.class)))
+                .thenThrow(tooManyRequests)
+                .thenReturn(null);
+        telegramSendQueue.submit(new TelegramMessageEvent(1L, "Reply"));
+
+        telegramSendQueue.start();
+
+        verify(sender, timeout(3000).times(2)).execute(any(SendMessage.class));
+        Assertions.assertEquals(1, meterRegistry.counter("telegram.send.throttled").count());
+    }
+
+    @Test
+    @DisplayName("outbox messages are reported back once sent or refused for good")
+    void start_OutboxMessages_ReportsOutcomeToOutbox() throws TelegramApiException {
+        TelegramApiRequestException blocked = Mockito.mock(TelegramApiRequestException.class);
+        when(blocked.getErrorCode()).thenReturn(403);
+        when(sender.execute(any(SendMessage.class)))
+                .thenReturn(null)
+                .thenThrow(blocked);
+        telegramSendQueue.submit(TelegramMessageEvent.fromOutbox(10L, 1L, "Sent",
+                TelegramMessageEvent.Priority.NOTIFICATION));
+        telegramSendQueue.submit(TelegramMessageEvent.fromOutbox(11L, 2L, "Blocked",
+                TelegramMessageEvent.Priority.NOTIFICATION));
+
+        telegramSendQueue.start();
+
+        verify(eventPublisher, timeout(2000)).publishEvent(new TelegramMessageDeliveredEvent(10L));
+        verify(eventPublisher, timeout(2000))
+                .publishEvent(new TelegramMessageDroppedEvent(11L, false));
+    }
+
+    @Test
+    @DisplayName("a reply to a button press edits the message the button belongs to")
+    void start_CallbackReply_EditsMessageAndAnswersCallback() throws TelegramApiException {
+        Message message = new Message();
+        message.setMessageId(7);
+        CallbackQuery callbackQuery = new CallbackQuery();
+        callbackQuery.setId("callback");
+        callbackQuery.setMessage(message);
+        telegramSendQueue.submit(new TelegramMessageEvent(1L, "Older rentals",
+                TelegramMessageEvent.Priority.INTERACTIVE, null, callbackQuery));
+
+        telegramSendQueue.start();
+
+        verify(sender, timeout(2000)).execute(EditMessageText.builder()
+                .chatId(1L)
+                .messageId(7)
+                .text("Older rentals")
+                .build());
+        verify(sender, timeout(2000)).execute(AnswerCallbackQuery.builder()
+                .callbackQueryId("callback")
+                .build());
+    }
+}
@@ -0,0 +1,257 @@
+package mate.academy.carsharing.telegram;
+
+import static mate.academy.carsharing.util.TestUtils.VALID_CHAT_ID;
+import static mate.academy.carsharing.util.TestUtils.VALID_EMAIL;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import mate.academy.carsharing.exception.ServiceBusyException;
+import mate.academy.carsharing.model.TelegramFailedUpdate;
+import mate.academy.carsharing.model.TelegramUpdateOffset;
+import mate.academy.carsharing.repository.telegram.TelegramFailedUpdateRepository;
+import mate.academy.carsharing.repository.telegram.TelegramUpdateOffsetRepository;
+import mate.academy.carsharing.service.TelegramUserService;
+import mate.academy.carsharing.telegram.dispatcher.CommandDispatcher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+@ExtendWith(MockitoExtension.class)
+public class TelegramUpdateHandlerTest {
+    private static final String BOT = "car_sharing_bot";
+
+    @Mock
+    private TelegramUserService telegramUserService;
+    @Mock
+    private CommandDispatcher commandDispatcher;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private TelegramUpdateOffsetRepository telegramUpdateOffsetRepository;
+    @Mock
+    private TelegramFailedUpdateRepository telegramFailedUpdateRepository;
+    @Mock
+    private ChatLaneExecutor chatLaneExecutor;
+    private SimpleMeterRegistry meterRegistry;
+    private TelegramUpdateHandler telegramUpdateHandler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        telegramUpdateHandler = new TelegramUpdateHandler(telegramUserService, commandDispatcher,
+                eventPublisher, telegramUpdateOffsetRepository, telegramFailedUpdateRepository,
+                new ObjectMapper(), chatLaneExecutor, meterRegistry, BOT);
+        // runs the lane task right away, ChatLaneExecutorTest covers the lanes themselves
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(chatLaneExecutor).execute(anyLong(), any(Runnable.class));
+        TelegramUpdateOffset offset = new TelegramUpdateOffset();
+        offset.setBot(BOT);
+        offset.setLastUpdateId(10);
+        when(telegramUpdateOffsetRepository.findById(BOT)).thenReturn(Optional.of(offset));
+        telegramUpdateHandler.loadOffset();
+    }
+
+    @Test
+    @DisplayName("handle() dispatches a command of a registered chat once")
+    void handle_RedeliveredUpdate_DispatchesOnce() {
+        when(telegramUserService.getUserState(VALID_CHAT_ID))
+                .thenReturn(new TelegramUserState(VALID_CHAT_ID, VALID_EMAIL, false));
+        Update update = createUpdate(11, "/checkRentals active");
+
+        telegramUpdateHandler.handle(update);
+        telegramUpdateHandler.handle(update);
+
+        verify(commandDispatcher, times(1))
+                .dispatch(VALID_CHAT_ID, "/checkRentals", new String[] {"active"});
+        verify(telegramUpdateOffsetRepository).advance(BOT, 11);
+        Assertions.assertEquals(1, meterRegistry.counter("telegram.updates.duplicate").count());
+    }
+
+    @Test
+    @DisplayName("handle() skips updates processed before the restart")
+    void handle_UpdateUpToPersistedOffset_IsSkipped() {
+        telegramUpdateHandler.handle(createUpdate(10, "/start"));
+
+        verify(commandDispatcher, never()).dispatch(anyLong(), any(), any());
+        verify(telegramUpdateOffsetRepository, never()).advance(any(), any());
+    }
+
+    @Test
+    @DisplayName("handle() asks an unknown chat for the email")
+    void handle_UnknownChat_AsksForEmail() {
+        telegramUpdateHandler.handle(createUpdate(12, "/start"));
+
+        verify(telegramUserService).addUserState(VALID_CHAT_ID,
+                new TelegramUserState(VALID_CHAT_ID, "no email yet", true));
+        verify(eventPublisher).publishEvent(
+                new TelegramMessageEvent(VALID_CHAT_ID, "Enter your email to verify"));
+        verify(commandDispatcher, never()).dispatch(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("handle() stores a polled update whose chat lane was full")
+    void handle_ChatLaneFull_StoresFailedUpdate() {
+        doThrow(new ServiceBusyException("Too many pending updates for this chat"))
+                .when(chatLaneExecutor).execute(anyLong(), any(Runnable.class));
+
+        telegramUpdateHandler.handle(createUpdate(13, "/checkRentals active"));
+
+        ArgumentCaptor<TelegramFailedUpdate> captor =
+                ArgumentCaptor.forClass(TelegramFailedUpdate.class);
+        verify(telegramFailedUpdateRepository).save(captor.capture());
+        Assertions.assertEquals(13, captor.getValue().getUpdateId());
+        Assertions.assertEquals("Too many pending updates for this chat",
+                captor.getValue().getError());
+        verify(telegramUpdateOffsetRepository).advance(BOT, 13);
+    }
+
+    @Test
+    @DisplayName("handle() keeps the offset when a polled update of a full lane can't be stored")
+    void handle_ChatLaneFullAndNotStored_HoldsOffset() {
+        doThrow(new ServiceBusyException("Too many pending updates for this chat"))
+                .doNothing()
+                .when(chatLaneExecutor).execute(anyLong(), any(Runnable.class));
+        when(telegramFailedUpdateRepository.save(any(TelegramFailedUpdate.class)))
+                .thenThrow(new IllegalStateException("Database is down"));
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> telegramUpdateHandler.handle(createUpdate(13, "/checkRentals active")));
+        telegramUpdateHandler.handle(createUpdate(14, "/start"));
+
+        verify(telegramUpdateOffsetRepository, never()).advance(any(), any());
+    }
+
+    @Test
+    @DisplayName("handleOrReject() accepts the webhook update again after the chat lane was full")
+    void handleOrReject_ChatLaneFull_AcceptsRedelivery() {
+        Update update = createUpdate(13, "/checkRentals active");
+        doThrow(new ServiceBusyException("Too many pending updates for this chat"))
+                .doNothing()
+                .when(chatLaneExecutor).execute(anyLong(), any(Runnable.class));
+
+        Assertions.assertThrows(ServiceBusyException.class,
+                () -> telegramUpdateHandler.handleOrReject(update));
+        telegramUpdateHandler.handleOrReject(update);
+
+        verify(chatLaneExecutor, times(2)).execute(anyLong(), any(Runnable.class));
+        verify(telegramFailedUpdateRepository, never()).save(any(TelegramFailedUpdate.class));
+        Assertions.assertEquals(0, meterRegistry.counter("telegram.updates.duplicate").count());
+    }
+
+    @Test
+    @DisplayName("handle() passes a button press of a registered chat to its command")
+    void handle_CallbackQuery_DispatchesCallback() {
+        when(telegramUserService.getUserState(VALID_CHAT_ID))
+                .thenReturn(new TelegramUserState(VALID_CHAT_ID, VALID_EMAIL, false));
+        Chat chat = new Chat();
+        chat.setId(VALID_CHAT_ID);
+        Message message = new Message();
+        message.setChat(chat);
+        CallbackQuery callbackQuery = new CallbackQuery();
+        callbackQuery.setMessage(message);
+        callbackQuery.setData("/checkRentals older 4");
+        Update update = new Update();
+        update.setUpdateId(14);
+        update.setCallbackQuery(callbackQuery);
+
+        telegramUpdateHandler.handle(update);
+
+        verify(commandDispatcher).dispatchCallback(VALID_CHAT_ID, callbackQuery,
+                "/checkRentals", new String[] {"older", "4"});
+        verify(telegramUpdateOffsetRepository).advance(BOT, 14);
+    }
+
+    @Test
+    @DisplayName("handle() keeps the offset behind an update that is still running")
+    void handle_LaterUpdateFinishesFirst_AdvancesContiguously() {
+        when(telegramUserService.getUserState(VALID_CHAT_ID))
+                .thenReturn(new TelegramUserState(VALID_CHAT_ID, VALID_EMAIL, false));
+        List<Runnable> tasks = new ArrayList<>();
+        doAnswer(invocation -> tasks.add(invocation.getArgument(1)))
+                .when(chatLaneExecutor).execute(anyLong(), any(Runnable.class));
+        telegramUpdateHandler.handle(createUpdate(11, "/checkRentals active"));
+        telegramUpdateHandler.handle(createUpdate(12, "/checkRentals active"));
+
+        tasks.get(1).run();
+        verify(telegramUpdateOffsetRepository, never()).advance(any(), any());
+        tasks.get(0).run();
+
+        verify(telegramUpdateOffsetRepository).advance(BOT, 12);
+        verify(telegramUpdateOffsetRepository, never()).advance(BOT, 11);
+    }
+
+    @Test
+    @DisplayName("handle() stores an update whose command failed and moves the offset past it")
+    void handle_CommandFails_StoresFailedUpdate() {
+        when(telegramUserService.getUserState(VALID_CHAT_ID))
+                .thenReturn(new TelegramUserState(VALID_CHAT_ID, VALID_EMAIL, false));
+        doThrow(new IllegalStateException("Database is down"))
+                .when(commandDispatcher).dispatch(anyLong(), any(), any());
+
+        telegramUpdateHandler.handle(createUpdate(11, "/checkRentals active"));
+
+        ArgumentCaptor<TelegramFailedUpdate> captor =
+                ArgumentCaptor.forClass(TelegramFailedUpdate.class);
+        verify(telegramFailedUpdateRepository).save(captor.capture());
+        Assertions.assertEquals(11, captor.getValue().getUpdateId());
+        Assertions.assertEquals(VALID_CHAT_ID, captor.getValue().getChatId());
+        Assertions.assertEquals("Database is down", captor.getValue().getError());
+        Assertions.assertTrue(captor.getValue().getPayload().contains("update_id"));
+        verify(telegramUpdateOffsetRepository).advance(BOT, 11);
+        Assertions.assertEquals(1, meterRegistry.counter("telegram.updates.failed").count());
+    }
+
+    @Test
+    @DisplayName("handle() holds the offset back when a failed update can't be stored")
+    void handle_FailedUpdateNotStored_HoldsOffset() {
+        when(telegramUserService.getUserState(VALID_CHAT_ID))
+                .thenReturn(new TelegramUserState(VALID_CHAT_ID, VALID_EMAIL, false));
+        doThrow(new IllegalStateException("Database is down"))
+                .doNothing()
+                .when(commandDispatcher).dispatch(anyLong(), any(), any());
+        when(telegramFailedUpdateRepository.save(any(TelegramFailedUpdate.class)))
+                .thenThrow(new IllegalStateException("Database is down"));
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> telegramUpdateHandler.handle(createUpdate(11, "/checkRentals active")));
+        telegramUpdateHandler.handle(createUpdate(12, "/checkRentals active"));
+
+        verify(telegramUpdateOffsetRepository, never()).advance(any(), any());
+    }
+
+    private Update createUpdate(int updateId, String text) {
+        Chat chat = new Chat();
+        chat.setId(VALID_CHAT_ID);
+        Message message = new Message();
+        message.setChat(chat);
+        message.setText(text);
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        update.setMessage(message);
+        return update;
+    }
+}
@@ -0,0 +1,70 @@
+package mate.academy.carsharing.telegram;
+
+import static mate.academy.carsharing.util.TestUtils.VALID_CHAT_ID;
+import static mate.academy.carsharing.util.TestUtils.VALID_EMAIL;
+import static mate.academy.carsharing.util.TestUtils.createValidUser;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import mate.academy.carsharing.model.TelegramUserInfo;
+import mate.academy.carsharing.repository.telegram.TelegramUserInfoRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class TelegramUserStateStoreTest {
+    @Mock
+    private TelegramUserInfoRepository telegramUserInfoRepository;
+    private TelegramUserStateStore telegramUserStateStore;
+
+    @BeforeEach
+    void setUp() {
+        telegramUserStateStore = new TelegramUserStateStore(telegramUserInfoRepository,
+                new SimpleMeterRegistry(), 100, Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("get() restores the state of a registered chat once")
+    void get_RegisteredChat_LoadsStateFromTelegramUserInfo() {
+        TelegramUserInfo telegramUserInfo = new TelegramUserInfo();
+        telegramUserInfo.setChatId(VALID_CHAT_ID);
+        telegramUserInfo.setUser(createValidUser());
+        when(telegramUserInfoRepository.findByChatId(VALID_CHAT_ID))
+                .thenReturn(Optional.of(telegramUserInfo));
+        TelegramUserState expected = new TelegramUserState(VALID_CHAT_ID, VALID_EMAIL, false);
+
+        Assertions.assertEquals(expected, telegramUserStateStore.get(VALID_CHAT_ID));
+        Assertions.assertEquals(expected, telegramUserStateStore.get(VALID_CHAT_ID));
+
+        verify(telegramUserInfoRepository, times(1)).findByChatId(VALID_CHAT_ID);
+    }
+
+    @Test
+    @DisplayName("get() returns null for an unknown chat")
+    void get_UnknownChat_ReturnsNull() {
+        when(telegramUserInfoRepository.findByChatId(VALID_CHAT_ID))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertNull(telegramUserStateStore.get(VALID_CHAT_ID));
+    }
+
+    @Test
+    @DisplayName("put() state is returned without a database lookup")
+    void put_AwaitingEmail_ReturnsStoredState() {
+        TelegramUserState state = new TelegramUserState(VALID_CHAT_ID, "no email yet", true);
+
+        telegramUserStateStore.put(VALID_CHAT_ID, state);
+
+        Assertions.assertEquals(state, telegramUserStateStore.get(VALID_CHAT_ID));
+        verify(telegramUserInfoRepository, times(0)).findByChatId(VALID_CHAT_ID);
+    }
+}
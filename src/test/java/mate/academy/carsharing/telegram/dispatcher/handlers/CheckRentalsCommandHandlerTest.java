@@ -0,0 +1,164 @@
+package mate.academy.carsharing.telegram.dispatcher.handlers;
+
+import static mate.academy.carsharing.util.TestUtils.VALID_BRAND;
+import static mate.academy.carsharing.util.TestUtils.VALID_CHAT_ID;
+import static mate.academy.carsharing.util.TestUtils.VALID_ID;
+import static mate.academy.carsharing.util.TestUtils.VALID_MODEL;
+import static mate.academy.carsharing.util.TestUtils.VALID_RENTAL_DATE;
+import static mate.academy.carsharing.util.TestUtils.VALID_RETURN_DATE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import mate.academy.carsharing.event.RentalsChangedEvent;
+import mate.academy.carsharing.model.TelegramUserInfo;
+import mate.academy.carsharing.repository.rental.RentalLine;
+import mate.academy.carsharing.repository.telegram.TelegramUserInfoRepository;
+import mate.academy.carsharing.service.RentalService;
+import mate.academy.carsharing.telegram.RentalPageCache;
+import mate.academy.carsharing.telegram.TelegramMessageEvent;
+import mate.academy.carsharing.util.TestUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+
+@ExtendWith(MockitoExtension.class)
+public class CheckRentalsCommandHandlerTest {
+    private static final String COMMAND = "/checkRentals";
+    private static final int PAGE_SIZE = 2;
+
+    @Mock
+    private RentalService rentalService;
+    @Mock
+    private TelegramUserInfoRepository telegramUserInfoRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private RentalPageCache rentalPageCache;
+    private CheckRentalsCommandHandler checkRentalsCommandHandler;
+
+    @BeforeEach
+    void setUp() {
+        rentalPageCache = new RentalPageCache(Duration.ofMinutes(1), 100);
+        checkRentalsCommandHandler = new CheckRentalsCommandHandler(rentalService,
+                telegramUserInfoRepository, eventPublisher, rentalPageCache);
+        ReflectionTestUtils.setField(checkRentalsCommandHandler, "pageSize", PAGE_SIZE);
+    }
+
+    @Test
+    @DisplayName("handleCommand() sends the newest rentals with a button to the older ones")
+    void handleCommand_ManyRentals_SendsFirstPage() {
+        mockTelegramUser();
+        when(rentalService.getRentalsBefore(VALID_ID, Long.MAX_VALUE, PAGE_SIZE + 1))
+                .thenReturn(createRentalLines(5, 4, 3));
+
+        checkRentalsCommandHandler.handleCommand(VALID_CHAT_ID, COMMAND, new String[0]);
+
+        TelegramMessageEvent event = captureEvent();
+        Assertions.assertEquals("Your rentals:\n\n#5 " + VALID_BRAND + " " + VALID_MODEL + "\n"
+                + VALID_RENTAL_DATE + " - " + VALID_RETURN_DATE + ", active\n\n#4 "
+                + VALID_BRAND + " " + VALID_MODEL + "\n" + VALID_RENTAL_DATE + " - "
+                + VALID_RETURN_DATE + ", active", event.message());
+        Assertions.assertEquals(List.of("/checkRentals older 4"), getCallbackData(event));
+    }
+
+    @Test
+    @DisplayName("handleCallback() edits the message with the older rentals")
+    void handleCallback_Older_EditsMessageWithOlderPage() {
+        mockTelegramUser();
+        when(rentalService.getRentalsBefore(VALID_ID, 4L, PAGE_SIZE + 1))
+                .thenReturn(createRentalLines(3, 2));
+        CallbackQuery callbackQuery = new CallbackQuery();
+
+        checkRentalsCommandHandler.handleCallback(VALID_CHAT_ID, callbackQuery,
+                new String[] {"older", "4"});
+
+        TelegramMessageEvent event = captureEvent();
+        Assertions.assertSame(callbackQuery, event.callbackQuery());
+        Assertions.assertEquals(List.of("/checkRentals newer 3"), getCallbackData(event));
+    }
+
+    @Test
+    @DisplayName("handleCallback() shows the newer rentals in descending order")
+    void handleCallback_Newer_SendsNewerPage() {
+        mockTelegramUser();
+        when(rentalService.getRentalsAfter(VALID_ID, 3L, PAGE_SIZE + 1))
+                .thenReturn(createRentalLines(4, 5, 6));
+
+        checkRentalsCommandHandler.handleCallback(VALID_CHAT_ID, new CallbackQuery(),
+                new String[] {"newer", "3"});
+
+        Assertions.assertEquals(List.of("/checkRentals newer 5", "/checkRentals older 4"),
+                getCallbackData(captureEvent()));
+    }
+
+    @Test
+    @DisplayName("handleCommand() renders a page again only after the user's rentals changed")
+    void handleCommand_CachedPage_QueriesRentalsOnceUntilChanged() {
+        mockTelegramUser();
+        when(rentalService.getRentalsBefore(VALID_ID, Long.MAX_VALUE, PAGE_SIZE + 1))
+                .thenReturn(createRentalLines(1));
+
+        checkRentalsCommandHandler.handleCommand(VALID_CHAT_ID, COMMAND, new String[0]);
+        checkRentalsCommandHandler.handleCommand(VALID_CHAT_ID, COMMAND, new String[0]);
+        rentalPageCache.onRentalsChanged(new RentalsChangedEvent(VALID_ID));
+        checkRentalsCommandHandler.handleCommand(VALID_CHAT_ID, COMMAND, new String[0]);
+
+        verify(rentalService, times(2))
+                .getRentalsBefore(VALID_ID, Long.MAX_VALUE, PAGE_SIZE + 1);
+        verify(eventPublisher, times(3)).publishEvent(any(TelegramMessageEvent.class));
+    }
+
+    @Test
+    @DisplayName("handleCommand() tells a chat without an account that it can't be found")
+    void handleCommand_UnknownChat_SendsAccountNotFound() {
+        when(telegramUserInfoRepository.findByChatId(VALID_CHAT_ID)).thenReturn(Optional.empty());
+
+        checkRentalsCommandHandler.handleCommand(VALID_CHAT_ID, COMMAND, new String[0]);
+
+        verify(eventPublisher).publishEvent(
+                new TelegramMessageEvent(VALID_CHAT_ID, "Can't find yor account in DB :("));
+    }
+
+    private void mockTelegramUser() {
+        TelegramUserInfo telegramUserInfo = new TelegramUserInfo();
+        telegramUserInfo.setChatId(VALID_CHAT_ID);
+        telegramUserInfo.setUser(TestUtils.createValidUser());
+        when(telegramUserInfoRepository.findByChatId(VALID_CHAT_ID))
+                .thenReturn(Optional.of(telegramUserInfo));
+    }
+
+    private List<RentalLine> createRentalLines(long... ids) {
+        return LongStream.of(ids)
+                .mapToObj(id -> new RentalLine(id, VALID_BRAND, VALID_MODEL, VALID_RENTAL_DATE,
+                        VALID_RETURN_DATE, null))
+                .toList();
+    }
+
+    private TelegramMessageEvent captureEvent() {
+        ArgumentCaptor<TelegramMessageEvent> captor =
+                ArgumentCaptor.forClass(TelegramMessageEvent.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(captor.capture());
+        return captor.getValue();
+    }
+
+    private List<String> getCallbackData(TelegramMessageEvent event) {
+        return event.keyboard().getKeyboard().get(0).stream()
+                .map(InlineKeyboardButton::getCallbackData)
+                .toList();
+    }
+}
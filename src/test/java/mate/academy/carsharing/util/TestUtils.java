@@ -20,6 +20,9 @@ import mate.academy.carsharing.model.Payment;
 import mate.academy.carsharing.model.Rental;
 import mate.academy.carsharing.model.Role;
 import mate.academy.carsharing.model.User;
+import mate.academy.carsharing.repository.rental.OverdueRental;
+import mate.academy.carsharing.repository.rental.RentalPeriod;
+import mate.academy.carsharing.security.AuthenticatedUser;
 import mate.academy.carsharing.telegram.TelegramUserState;
 
 public final class TestUtils {
@@ -92,6 +95,10 @@ public final class TestUtils {
         return user;
     }
 
+    public static AuthenticatedUser createAuthenticatedUser(Long id, Role.RoleName... roles) {
+        return new AuthenticatedUser(id, VALID_EMAIL, Set.of(roles), 0);
+    }
+
     public static Rental createValidRental() {
         Rental rental = new Rental();
         rental.setId(VALID_ID);
@@ -99,6 +106,7 @@ public final class TestUtils {
         rental.setReturnDate(VALID_RETURN_DATE);
         rental.setCar(createValidCar());
         rental.setUser(createValidUser());
+        rental.setInventoryReserved(true);
         return rental;
     }
 
@@ -149,15 +157,34 @@ public final class TestUtils {
         );
     }
 
-    public static Rental createOverdueRental() {
-        Rental rental = new Rental();
-        rental.setId(VALID_ID);
-        rental.setRentalDate(LocalDate.now().minusDays(5));
-        rental.setReturnDate(VALID_RETURN_DATE);
-        rental.setCar(createValidCar());
-        rental.setUser(createValidUser());
-        rental.setDeleted(false);
-        return rental;
+    public static OverdueRental createOverdueRental(Long id, Long userId) {
+        return new OverdueRental(id, VALID_ID, userId,
+                LocalDate.now().minusDays(5), LocalDate.now().minusDays(1));
+    }
+
+    public static RentalPeriod createRentalPeriod(LocalDate rentalDate, LocalDate returnDate,
+            boolean inventoryReserved) {
+        return new RentalPeriod() {
+            @Override
+            public Long getCarId() {
+                return VALID_ID;
+            }
+
+            @Override
+            public LocalDate getRentalDate() {
+                return rentalDate;
+            }
+
+            @Override
+            public LocalDate getReturnDate() {
+                return returnDate;
+            }
+
+            @Override
+            public boolean isInventoryReserved() {
+                return inventoryReserved;
+            }
+        };
     }
 
     public static Payment createValidPayment() throws MalformedURLException {
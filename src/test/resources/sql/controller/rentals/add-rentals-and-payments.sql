@@ -0,0 +1,11 @@
+INSERT INTO rentals (id, rental_date, return_date, actual_return_date, car_id, user_id, deleted)
+VALUES (101, '2024-03-01', '2024-03-05', '2024-03-05', 1, 2, FALSE),
+       (102, '2024-03-10', '2024-03-15', NULL, 2, 2, FALSE),
+       (103, '2024-03-11', '2024-03-12', NULL, 1, 3, FALSE);
+INSERT INTO payments (id, rental_id, status, type, session_url, session_id, amount_to_pay, deleted)
+VALUES (101, 101, 'PAID', 'PAYMENT', 'https://checkout.stripe.com/c/pay/cs_test_101',
+        'cs_test_101', 79960, FALSE),
+       (102, 102, 'PENDING', 'PAYMENT', 'https://checkout.stripe.com/c/pay/cs_test_102',
+        'cs_test_102', 99950, FALSE),
+       (103, 103, 'EXPIRED', 'PAYMENT', 'https://checkout.stripe.com/c/pay/cs_test_103',
+        'cs_test_103', 19990, FALSE);
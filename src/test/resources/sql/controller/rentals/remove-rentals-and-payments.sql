@@ -0,0 +1,2 @@
+DELETE FROM payments WHERE id IN (101, 102, 103);
+DELETE FROM rentals WHERE id IN (101, 102, 103);